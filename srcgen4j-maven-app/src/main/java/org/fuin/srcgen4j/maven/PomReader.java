@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads the plugin configuration from a Maven POM in a single streaming pass. Only the values used by {@link SrcGen4JMavenApp} are
+ * collected, so neither a DOM nor XPath is needed. Like the former XPath expressions ('//configuration/configFile') all
+ * <code>configuration</code> elements of the POM are searched.
+ */
+public final class PomReader {
+
+    private final List<String> configFiles;
+
+    private final List<String> jaxbClassesToBeBound;
+
+    private final List<String> modelCache;
+
+    private PomReader() {
+        super();
+        this.configFiles = new ArrayList<>();
+        this.jaxbClassesToBeBound = new ArrayList<>();
+        this.modelCache = new ArrayList<>();
+    }
+
+    /**
+     * Reads a POM.
+     *
+     * @param pomFile
+     *            Maven 'pom.xml' to read - Cannot be NULL.
+     *
+     * @return Values found in the POM.
+     */
+    public static PomReader read(final File pomFile) {
+        final PomReader pom = new PomReader();
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        try (final InputStream in = Files.newInputStream(pomFile.toPath())) {
+            final XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                pom.parse(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (final IOException | XMLStreamException ex) {
+            throw new RuntimeException("Error parsing Maven pom: " + pomFile, ex);
+        }
+        return pom;
+    }
+
+    private void parse(final XMLStreamReader reader) throws XMLStreamException {
+        // Names of the elements between the nearest 'configuration' element and the current one
+        final List<String> path = new ArrayList<>();
+        int depth = 0;
+        int configurationDepth = -1;
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                final String name = reader.getLocalName();
+                if (name.equals("configuration")) {
+                    configurationDepth = depth;
+                    path.clear();
+                } else if (configurationDepth > 0) {
+                    path.add(name);
+                    final List<String> target = target(path);
+                    if (target != null) {
+                        target.add(reader.getElementText());
+                        path.remove(path.size() - 1);
+                        depth--;
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == configurationDepth) {
+                    configurationDepth = -1;
+                } else if (configurationDepth > 0 && !path.isEmpty()) {
+                    path.remove(path.size() - 1);
+                }
+                depth--;
+            }
+        }
+    }
+
+    private List<String> target(final List<String> path) {
+        if (path.size() == 1 && path.get(0).equals("configFile")) {
+            return configFiles;
+        }
+        if (path.size() == 2 && path.get(0).equals("configFiles")) {
+            return configFiles;
+        }
+        if (path.size() == 1 && path.get(0).equals("modelCache")) {
+            return modelCache;
+        }
+        if (path.size() == 2 && path.get(0).equals("jaxbClassesToBeBound") && path.get(1).equals("param")) {
+            return jaxbClassesToBeBound;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the values of all 'configFile' elements and of all children of 'configFiles' elements.
+     *
+     * @return Unmodifiable list of file names.
+     */
+    public List<String> getConfigFiles() {
+        return Collections.unmodifiableList(configFiles);
+    }
+
+    /**
+     * Returns the values of all 'jaxbClassesToBeBound/param' elements.
+     *
+     * @return Unmodifiable list of class names.
+     */
+    public List<String> getJaxbClassesToBeBound() {
+        return Collections.unmodifiableList(jaxbClassesToBeBound);
+    }
+
+    /**
+     * Returns the values of all 'modelCache' elements.
+     *
+     * @return Unmodifiable list of values.
+     */
+    public List<String> getModelCache() {
+        return Collections.unmodifiableList(modelCache);
+    }
+
+}
@@ -18,37 +18,22 @@
 package org.fuin.srcgen4j.maven;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.fuin.srcgen4j.commons.DefaultContext;
 import org.fuin.srcgen4j.commons.GenerateException;
 import org.fuin.srcgen4j.commons.ParseException;
-import org.fuin.srcgen4j.commons.SrcGen4J;
 import org.fuin.srcgen4j.commons.SrcGen4JConfig;
 import org.fuin.srcgen4j.commons.SrcGen4JContext;
-import org.fuin.utils4j.Utils4J;
-import org.fuin.utils4j.jaxb.JaxbUtils;
-import org.fuin.utils4j.jaxb.UnmarshallerBuilder;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
 /**
  * Application that takes a Maven POM as input and executes the source code generation. This allows easier debugging of problems.
@@ -56,51 +41,8 @@ import org.xml.sax.SAXException;
 public final class SrcGen4JMavenApp {
 
     /**
-     * Creates an XML document from the Maven POM file.
-     * 
-     * @param pomFile
-     *            Maven 'pom.xml' to parse.
-     * 
-     * @return DOM
-     */
-    private static Document parseMavenPom(final File pomFile) {
-        try (final FileInputStream fileIS = new FileInputStream(pomFile)) {
-            DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = builderFactory.newDocumentBuilder();
-            return builder.parse(fileIS);
-        } catch (final IOException | ParserConfigurationException | SAXException ex) {
-            throw new RuntimeException("Error parsing Maven pom: " + pomFile, ex);
-        }
-    }
-
-    /**
-     * Loads a list of JAX-B classes.
-     * 
-     * @param classLoader
-     *            Class loader to use.
-     * @param jaxbClassesToBeBound
-     *            List of class names to load.
-     * 
-     * @return List of classes to add to JAX-B context.
-     */
-    private static Class<?>[] getJaxbContextClasses(final ClassLoader classLoader, final List<String> jaxbClassesToBeBound) {
-        final Set<Class<?>> classes = new HashSet<Class<?>>();
-        classes.add(SrcGen4JConfig.class);
-        if (jaxbClassesToBeBound != null) {
-            for (final String name : jaxbClassesToBeBound) {
-                try {
-                    final Class<?> clasz = classLoader.loadClass(name);
-                    classes.add(clasz);
-                } catch (final ClassNotFoundException ex) {
-                    throw new RuntimeException("Class to add to JAXB context not found: " + name, ex);
-                }
-            }
-        }
-        return classes.toArray(new Class<?>[classes.size()]);
-    }
-
-    /**
-     * Loads a configuration file.
+     * Loads a configuration file. Only the parsers and generators selected with the system properties 'srcgen4j.generators' and
+     * 'srcgen4j.parsers' (comma separated names) are read.
      * 
      * @param context
      *            Context to use.
@@ -113,98 +55,200 @@ public final class SrcGen4JMavenApp {
      */
     public static SrcGen4JConfig createAndInit(final SrcGen4JContext context, final File configFile,
             final List<String> jaxbClassesToBeBound) {
+        final ConfigSelection selection = new ConfigSelection(System.getProperty("srcgen4j.generators"),
+                System.getProperty("srcgen4j.parsers"));
+        final String[] jaxbClasses = jaxbClassesToBeBound == null ? null : jaxbClassesToBeBound.toArray(new String[0]);
         try {
-            final Class<?>[] classes = getJaxbContextClasses(context.getClassLoader(), jaxbClassesToBeBound);
-            final SrcGen4JConfig config = JaxbUtils
-                    .unmarshal(new UnmarshallerBuilder().withContext(JAXBContext.newInstance(classes)).build(), configFile);
-            config.init(context, Utils4J.getCanonicalFile(configFile.getParentFile()));
-            return config;
+            return new ConfigLoader(jaxbClasses, selection, null).load(context, configFile);
+        } catch (final ClassNotFoundException ex) {
+            throw new RuntimeException(ex.getMessage(), ex);
         } catch (final JAXBException ex) {
             throw new RuntimeException("Error creating the JAXB context", ex);
+        } catch (final IOException ex) {
+            throw new RuntimeException("Error reading configuration: " + configFile, ex);
         }
     }
 
     /**
-     * Uses XPath to extract a list of strings from a set of nodes.
+     * Returns the configuration files from the POM or a default based on the pom directory. All 'configFile' and 'configFiles' entries
+     * are used and may contain glob patterns. The variables '${basedir}' and '${project.basedir}' are replaced with the POM directory.
      * 
-     * @param xPath
-     *            XPath instance to use.
-     * @param xpathExpression
-     *            Expression to use for locating the strings to extract.
-     * @param doc
-     *            Document to locate the nodes within.
+     * @param pom
+     *            Values read from the POM.
+     * @param dir
+     *            Directory where the 'pom.xml' is located.
      * 
-     * @return List of strings extracted from the document.
+     * @return XML configuration files.
      */
-    private static List<String> findStrings(final XPath xPath, final String xpathExpression, final Document doc) {
-        final List<String> list = new ArrayList<>();
+    private static List<File> extractConfigFiles(final PomReader pom, final File dir) {
+        final List<String> names = new ArrayList<>();
+        for (final String name : pom.getConfigFiles()) {
+            names.add(name.replace("${project.basedir}", dir.getPath()).replace("${basedir}", dir.getPath()));
+        }
+        if (names.size() == 0) {
+            return Collections.singletonList(new File(dir, "srcgen4j-config.xml"));
+        }
         try {
-            final NodeList nodeList = (NodeList) xPath.compile(xpathExpression).evaluate(doc, XPathConstants.NODESET);
-            if (nodeList != null) {
-                for (int i = 0; i < nodeList.getLength(); i++) {
-                    final Node node = nodeList.item(i);
-                    list.add(node.getTextContent());
-                }
+            final List<File> files = ConfigFiles.resolve(dir, names);
+            if (files.isEmpty()) {
+                throw new RuntimeException("No configuration file found: " + names);
             }
-        } catch (final XPathExpressionException ex) {
-            throw new RuntimeException("Failed to find '" + xpathExpression + "'", ex);
+            return files;
+        } catch (final IOException ex) {
+            throw new RuntimeException("Error searching the configuration files: " + names, ex);
+        }
+    }
+
+    /**
+     * Executes the parsers and generators of a configuration.
+     * 
+     * @param config
+     *            Initialized configuration.
+     * @param modelCache
+     *            Cache for the parser models or NULL.
+     * @param profiler
+     *            Profiler or NULL.
+     * 
+     * @throws ParseException
+     *             Error parsing a model.
+     * @throws GenerateException
+     *             Error generating.
+     */
+    private static void execute(final SrcGen4JConfig config, final ModelCache modelCache, final RenderProfiler profiler)
+            throws ParseException, GenerateException {
+        final ParallelSrcGen4J srcGen4J = new ParallelSrcGen4J(config, 1);
+        if (modelCache != null) {
+            srcGen4J.withModelProvider(modelCache);
         }
-        return list;
+        if (profiler != null) {
+            srcGen4J.addListener(profiler);
+        }
+        srcGen4J.execute();
     }
 
     /**
-     * Returns the configuration file from the POM or a default based on the pom directory.
+     * Creates a cache for the parser models in the 'target' directory of the project. The key of the models includes all jars of the
+     * application's classpath.
      * 
-     * @param xPath
-     *            XPath instance to use.
-     * @param xpathExpression
-     *            Expression to use for locating the strings to extract.
-     * @param doc
-     *            Document to locate the nodes within.
      * @param dir
      *            Directory where the 'pom.xml' is located.
+     * @param configFile
+     *            XML configuration file.
      * 
-     * @return XML configuration file.
+     * @return New cache.
      */
-    private static File extractConfigFile(final XPath xPath, final Document doc, final File dir) {
-        final List<String> names = findStrings(xPath, "//configuration/configFile", doc);
-        if (names.size() == 0) {
-            return new File(dir, "srcgen4j-config.xml");
+    private static ModelCache createModelCache(final File dir, final File configFile) {
+        try {
+            final Fingerprint salt = new Fingerprint();
+            for (final String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+                final File file = new File(entry);
+                if (file.isFile()) {
+                    salt.addFileInfo(file.toPath());
+                }
+            }
+            return new ModelCache(new File(dir, "target/srcgen4j-cache"), RawConfig.read(configFile), salt.toHex(),
+                    SrcGen4JMavenApp.class.getClassLoader());
+        } catch (final IOException ex) {
+            throw new RuntimeException("Error creating the model cache", ex);
         }
-        return new File(names.get(0));
     }
 
     /**
      * Main application.
      * 
      * @param args
-     *            Only argument is the directory where the Maven pom.xml is located.
+     *            First argument is the directory where the Maven pom.xml is located. The optional second argument '--watch' keeps the
+     *            application running and regenerates whenever the configuration, a model or a template changes. The parser models are
+     *            cached in 'target/srcgen4j-cache' if 'modelCache' is set in the plugin configuration or with the system property
+     *            'srcgen4j.modelCache'. The system property 'srcgen4j.profile' logs the slowest generators at the end and
+     *            'srcgen4j.profileTop' sets their number (default 10). Several configuration files run concurrently with at most
+     *            'srcgen4j.configThreads' threads (default 4) and must not write to the same output folders. Only the first one is
+     *            watched.
      */
     public static void main(final String[] args) {
 
         if (args == null || args.length == 0) {
-            System.err.println("Please provide the directory where the Maven pom.xml is located as only command line argument");
+            System.err.println("Please provide the directory where the Maven pom.xml is located as first command line argument");
             System.exit(1);
         }
         final File dir = new File(args[0]);
+        final boolean watch = args.length > 1 && args[1].equals("--watch");
 
         /// Read POM and create a configuration using the configuration
         final File pomFile = new File(dir, "pom.xml");
-        final Document pomDoc = parseMavenPom(pomFile);
-        final XPath xPath = XPathFactory.newInstance().newXPath();
-        final File configFile = extractConfigFile(xPath, pomDoc, dir);
-        final List<String> jaxbClassesToBeBound = findStrings(xPath, "//configuration/jaxbClassesToBeBound/param/text()", pomDoc);
+        final PomReader pom = PomReader.read(pomFile);
+        final List<File> configFiles = extractConfigFiles(pom, dir);
+        final List<String> jaxbClassesToBeBound = pom.getJaxbClassesToBeBound();
+        final List<String> modelCacheValues = pom.getModelCache();
+        final boolean modelCache = Boolean.parseBoolean(
+                System.getProperty("srcgen4j.modelCache", modelCacheValues.isEmpty() ? "false" : modelCacheValues.get(0).trim()));
 
         // Generate based on the configuration
         final DefaultContext context = new DefaultContext(SrcGen4JMavenApp.class.getClassLoader(), Collections.emptyList());
-        final SrcGen4JConfig config = createAndInit(context, configFile, jaxbClassesToBeBound);
-        final SrcGen4J srcGen4J = new SrcGen4J(config, context);
-        try {
-            srcGen4J.execute();
-            System.exit(0);
-        } catch (final ParseException | GenerateException ex) {
-            throw new RuntimeException("Failed to execute", ex);
+        if (watch) {
+            final File configFile = configFiles.get(0);
+            if (configFiles.size() > 1) {
+                System.err.println("Only the first configuration file is watched: " + configFile);
+            }
+            try {
+                new SrcGen4JWatcher(configFile, () -> createAndInit(context, configFile, jaxbClassesToBeBound)).run();
+                System.exit(0);
+            } catch (final IOException ex) {
+                throw new RuntimeException("Failed to watch", ex);
+            }
+        }
+        final List<SrcGen4JConfig> configs = new ArrayList<>();
+        final OutputDirClaims claims = new OutputDirClaims();
+        for (final File configFile : configFiles) {
+            final SrcGen4JConfig config = createAndInit(context, configFile, jaxbClassesToBeBound);
+            final String overlap = claims.claim(configFile, ConfigUtils.outputDirs(config));
+            if (overlap != null) {
+                throw new RuntimeException(overlap);
+            }
+            configs.add(config);
+        }
+        final RenderProfiler profiler = Boolean.getBoolean("srcgen4j.profile")
+                ? new RenderProfiler(Integer.getInteger("srcgen4j.profileTop", 10))
+                : null;
+        if (configs.size() == 1) {
+            try {
+                execute(configs.get(0), modelCache ? createModelCache(dir, configFiles.get(0)) : null, profiler);
+            } catch (final ParseException | GenerateException ex) {
+                throw new RuntimeException("Failed to execute", ex);
+            }
+        } else {
+            final ExecutorService executor = Executors
+                    .newFixedThreadPool(Math.max(1, Math.min(configs.size(), Integer.getInteger("srcgen4j.configThreads", 4))));
+            try {
+                final List<Future<Void>> futures = new ArrayList<>();
+                for (int i = 0; i < configs.size(); i++) {
+                    final SrcGen4JConfig config = configs.get(i);
+                    final ModelCache models = modelCache ? createModelCache(dir, configFiles.get(i)) : null;
+                    futures.add(executor.submit(() -> {
+                        execute(config, models, profiler);
+                        return null;
+                    }));
+                }
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        futures.get(i).get();
+                    } catch (final ExecutionException ex) {
+                        throw new RuntimeException("Failed to execute: " + configFiles.get(i), ex.getCause());
+                    }
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted", ex);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        if (profiler != null) {
+            for (final String line : profiler.toTable()) {
+                System.out.println(line);
+            }
         }
+        System.exit(0);
 
     }
 
@@ -0,0 +1,289 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.fuin.srcgen4j.commons.GenerateException;
+import org.fuin.srcgen4j.commons.GeneratorConfig;
+import org.fuin.srcgen4j.commons.ParseException;
+import org.fuin.srcgen4j.commons.ParserConfig;
+import org.fuin.srcgen4j.commons.SrcGen4JConfig;
+import org.fuin.utils4j.Utils4J;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches the configuration file and the model and template directories of all parsers and generators. After a burst of changes has
+ * settled, only the parsers and generators affected by the changed files are executed again. The configuration with its parser and
+ * generator instances is kept between runs and is only reloaded if the configuration file itself changes. The models of the last run are
+ * kept as well, so a changed template only executes the generators that use it and no parser.
+ */
+public final class SrcGen4JWatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SrcGen4JWatcher.class);
+
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 200;
+
+    private final File configFile;
+
+    private final Supplier<SrcGen4JConfig> loader;
+
+    private final long debounceMillis;
+
+    private final Map<WatchKey, Path> keys;
+
+    private final Map<String, Object> models;
+
+    private SrcGen4JConfig config;
+
+    private RawConfig rawConfig;
+
+    private WatchService watchService;
+
+    /**
+     * Constructor with mandatory data.
+     *
+     * @param configFile
+     *            Configuration file - Cannot be NULL.
+     * @param loader
+     *            Creates and initializes a new configuration from the configuration file - Cannot be NULL.
+     */
+    public SrcGen4JWatcher(final File configFile, final Supplier<SrcGen4JConfig> loader) {
+        this(configFile, loader, DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * Constructor with all data.
+     *
+     * @param configFile
+     *            Configuration file - Cannot be NULL.
+     * @param loader
+     *            Creates and initializes a new configuration from the configuration file - Cannot be NULL.
+     * @param debounceMillis
+     *            Time without further changes before a regeneration starts.
+     */
+    public SrcGen4JWatcher(final File configFile, final Supplier<SrcGen4JConfig> loader, final long debounceMillis) {
+        super();
+        this.configFile = Utils4J.getCanonicalFile(configFile);
+        this.loader = loader;
+        this.debounceMillis = debounceMillis;
+        this.keys = new HashMap<>();
+        this.models = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Executes a full generation and afterwards regenerates on every change until the thread is interrupted.
+     *
+     * @throws IOException
+     *             Error watching the directories.
+     */
+    public void run() throws IOException {
+        try {
+            reload();
+            while (!Thread.currentThread().isInterrupted()) {
+                final Set<Path> changed = awaitChanges();
+                final long start = System.currentTimeMillis();
+                if (changed == null || changed.contains(configFile.toPath())) {
+                    reload();
+                } else {
+                    regenerate(changed);
+                }
+                LOG.info("Regeneration finished in {} ms", System.currentTimeMillis() - start);
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (watchService != null) {
+                watchService.close();
+            }
+        }
+    }
+
+    private void reload() throws IOException {
+        LOG.info("Loading {}", configFile);
+        models.clear();
+        rawConfig = RawConfig.read(configFile);
+        if (watchService != null) {
+            watchService.close();
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        keys.clear();
+        register(configFile.getParentFile().toPath(), false);
+        for (final InputRoot input : rawConfig.getInputs()) {
+            register(input.getDir().toPath(), true);
+        }
+        try {
+            config = loader.get();
+            // The models are kept for the regeneration of single generators
+            new ParallelSrcGen4J(config, 1).withModelProvider(this::model).execute();
+        } catch (final RuntimeException | ParseException | GenerateException ex) {
+            config = null;
+            LOG.error("Generation failed - Waiting for changes", ex);
+        }
+    }
+
+    private void register(final Path path, final boolean recursive) throws IOException {
+        final Path dir = Files.isDirectory(path) ? path : path.getParent();
+        if (dir == null || !Files.isDirectory(dir)) {
+            return;
+        }
+        if (!recursive) {
+            keys.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+            return;
+        }
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path subDir, final BasicFileAttributes attrs) throws IOException {
+                keys.put(subDir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), subDir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Blocks until at least one change occurred and no further change happened within the debounce time.
+     *
+     * @return Changed files or NULL if events were lost.
+     *
+     * @throws InterruptedException
+     *             The thread was interrupted.
+     * @throws IOException
+     *             Error registering a new directory.
+     */
+    private Set<Path> awaitChanges() throws InterruptedException, IOException {
+        final Set<Path> changed = new LinkedHashSet<>();
+        boolean overflow = false;
+        WatchKey key = watchService.take();
+        while (key != null) {
+            final Path dir = keys.get(key);
+            for (final WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    overflow = true;
+                } else if (dir != null) {
+                    final Path file = dir.resolve((Path) event.context());
+                    changed.add(file);
+                    if (event.kind() == ENTRY_CREATE && Files.isDirectory(file) && !dir.equals(configFile.getParentFile().toPath())) {
+                        register(file, true);
+                    }
+                }
+            }
+            if (!key.reset()) {
+                keys.remove(key);
+            }
+            key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+        }
+        LOG.debug("Changed: {}", changed);
+        if (overflow) {
+            return null;
+        }
+        return changed;
+    }
+
+    private void regenerate(final Set<Path> changed) {
+        if (config == null) {
+            // Last load failed
+            try {
+                reload();
+            } catch (final IOException ex) {
+                LOG.error("Reloading the configuration failed", ex);
+            }
+            return;
+        }
+
+        final Set<String> parsers = new LinkedHashSet<>();
+        final Set<String> generators = new LinkedHashSet<>();
+        for (final Path file : changed) {
+            for (final RawConfig.ParserEntry parser : rawConfig.getParsers()) {
+                if (contains(parser.getInputs(), file)) {
+                    parsers.add(parser.getName());
+                }
+            }
+            for (final RawConfig.GeneratorEntry generator : rawConfig.getGenerators()) {
+                if (contains(generator.getInputs(), file)) {
+                    generators.add(generator.getName());
+                }
+            }
+        }
+        if (parsers.isEmpty() && generators.isEmpty()) {
+            LOG.debug("No parser or generator affected by: {}", changed);
+            return;
+        }
+        LOG.info("Regenerating - Parsers: {}, Generators: {}", parsers, generators);
+
+        try {
+            for (final ParserConfig parserConfig : config.getParsers().getList()) {
+                final String name = parserConfig.getName();
+                if (parsers.contains(name)) {
+                    models.remove(name);
+                }
+                for (final GeneratorConfig generatorConfig : config.findGeneratorsForParser(name)) {
+                    if (parsers.contains(name) || generators.contains(generatorConfig.getName())) {
+                        generatorConfig.getGenerator().generate(model(parserConfig), false);
+                    }
+                }
+            }
+        } catch (final RuntimeException | ParseException | GenerateException ex) {
+            LOG.error("Regeneration failed - Waiting for changes", ex);
+        }
+    }
+
+    private Object model(final ParserConfig parserConfig) throws ParseException {
+        final String name = parserConfig.getName();
+        Object model = models.get(name);
+        if (model == null) {
+            LOG.debug("Parse: {}", name);
+            model = parserConfig.getParser().parse();
+            models.put(name, model);
+        }
+        return model;
+    }
+
+    private static boolean contains(final List<InputRoot> inputs, final Path file) {
+        for (final InputRoot input : inputs) {
+            if (input.contains(file)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,33 @@
+#!/bin/sh
+#
+# Measures the wall time of the srcgen4j-maven-app without and with the class data sharing archive.
+# Usage: measure-startup.sh [runs] (default: 10) - Requires a build with the 'appcds' profile.
+#
+DIR=$(cd "$(dirname "$0")" && pwd)
+RUNS=${1:-10}
+if [ -n "$JAVA_HOME" ]; then
+    JAVA="$JAVA_HOME/bin/java"
+else
+    JAVA=java
+fi
+JAR="$DIR/@project.build.finalName@.jar"
+PROJECT="$DIR/cds-training"
+
+measure() {
+    total=0
+    i=0
+    while [ $i -lt "$RUNS" ]; do
+        start=$(date +%s%N)
+        "$JAVA" "$@" -jar "$JAR" "$PROJECT" > /dev/null 2>&1 || { echo "Run failed: $*"; exit 1; }
+        end=$(date +%s%N)
+        total=$((total + (end - start) / 1000000))
+        i=$((i + 1))
+    done
+    echo $((total / RUNS))
+}
+
+BEFORE=$(measure -Xshare:off)
+AFTER=$(measure -Xshare:auto -XX:SharedArchiveFile="$DIR/srcgen4j-app.jsa")
+echo "Average of $RUNS runs over $PROJECT"
+echo "  without class data sharing: $BEFORE ms"
+echo "  with AppCDS archive:        $AFTER ms"
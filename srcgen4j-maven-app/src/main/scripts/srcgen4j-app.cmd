@@ -0,0 +1,13 @@
+@echo off
+rem
+rem Starts the srcgen4j-maven-app with the class data sharing archive created by the appcds profile.
+rem Usage: srcgen4j-app.cmd ^<directory-with-pom.xml^> [--watch]
+rem Additional JVM options can be passed with the environment variable SRCGEN4J_APP_OPTS.
+rem
+setlocal
+set DIR=%~dp0
+set JAVA=java
+if defined JAVA_HOME set JAVA="%JAVA_HOME%\bin\java"
+set CDS_OPTS=
+if exist "%DIR%srcgen4j-app.jsa" set CDS_OPTS=-Xshare:auto -XX:SharedArchiveFile="%DIR%srcgen4j-app.jsa"
+%JAVA% %CDS_OPTS% %SRCGEN4J_APP_OPTS% -jar "%DIR%@project.build.finalName@.jar" %*
@@ -0,0 +1,17 @@
+#!/bin/sh
+#
+# Starts the srcgen4j-maven-app with the class data sharing archive created by the 'appcds' profile.
+# Usage: srcgen4j-app.sh <directory-with-pom.xml> [--watch]
+# Additional JVM options can be passed with the environment variable SRCGEN4J_APP_OPTS.
+#
+DIR=$(cd "$(dirname "$0")" && pwd)
+if [ -n "$JAVA_HOME" ]; then
+    JAVA="$JAVA_HOME/bin/java"
+else
+    JAVA=java
+fi
+CDS_OPTS=""
+if [ -f "$DIR/srcgen4j-app.jsa" ]; then
+    CDS_OPTS="-Xshare:auto -XX:SharedArchiveFile=$DIR/srcgen4j-app.jsa"
+fi
+exec "$JAVA" $CDS_OPTS $SRCGEN4J_APP_OPTS -jar "$DIR/@project.build.finalName@.jar" "$@"
@@ -0,0 +1,174 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import org.fuin.srcgen4j.commons.DefaultContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+/**
+ * Test for {@link SrcGen4JWatcher}.
+ */
+public class SrcGen4JWatcherTest {
+
+    // CHECKSTYLE:OFF Test
+
+    private static final String CONFIG = "<srcgen4j-config xmlns=\"http://www.fuin.org/srcgen4j/commons/0.4.3\""
+            + " xmlns:velo=\"http://www.fuin.org/srcgen4j/core/velocity/0.4.3\">"
+            + "<projects><project name=\"example\" path=\"${rootDir}\" maven=\"false\">"
+            + "<folder name=\"genA\" path=\"genA\" create=\"true\" override=\"true\" clean=\"false\" />"
+            + "<folder name=\"genB\" path=\"genB\" create=\"true\" override=\"true\" clean=\"false\" /></project></projects>"
+            + "<parsers><parser name=\"parse1\" class=\"org.fuin.srcgen4j.core.velocity.ParameterizedTemplateParser\"><config>"
+            + "<velo:parameterized-template-parser modelPath=\"${rootDir}/models\" modelFilter=\".*\\.ptg\\.xml\""
+            + " templatePath=\"${rootDir}/templatesA\" templateFilter=\".*\\.ptg\\.java\" /></config></parser></parsers>"
+            + "<generators>" + generator("genA", "templatesA") + generator("genB", "templatesB") + "</generators></srcgen4j-config>";
+
+    private static final String MODEL = "<parameterized-template template=\"t.ptg.java\""
+            + " xmlns=\"http://www.fuin.org/srcgen4j/core/velocity/0.4.3\">"
+            + "<target-file path=\"x\" name=\"X.java\"><argument key=\"name\" value=\"X\" /></target-file></parameterized-template>";
+
+    private static final List<String> JAXB_CLASSES = Arrays.asList("org.fuin.srcgen4j.core.velocity.ParameterizedTemplateParserConfig",
+            "org.fuin.srcgen4j.core.velocity.ParameterizedTemplateGeneratorConfig");
+
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File rootDir;
+
+    private Logger logger;
+
+    private ListAppender<ILoggingEvent> appender;
+
+    @Before
+    public void setup() throws IOException {
+        rootDir = tmp.newFolder("root").getCanonicalFile();
+        write(new File(rootDir, "srcgen4j-config.xml"), CONFIG);
+        write(new File(rootDir, "models/m.ptg.xml"), MODEL);
+        write(new File(rootDir, "templatesA/t.ptg.java"), "// A ${name}");
+        write(new File(rootDir, "templatesB/t.ptg.java"), "// B ${name}");
+        logger = (Logger) LoggerFactory.getLogger(SrcGen4JWatcher.class);
+        logger.setLevel(Level.DEBUG);
+        appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @After
+    public void teardown() {
+        logger.detachAppender(appender);
+        logger.setLevel(null);
+    }
+
+    @Test
+    public void testTemplateChanged() throws Exception {
+
+        // PREPARE
+        final File configFile = new File(rootDir, "srcgen4j-config.xml");
+        final File fileA = new File(rootDir, "genA/x/X.java");
+        final File fileB = new File(rootDir, "genB/x/X.java");
+        final DefaultContext context = new DefaultContext(getClass().getClassLoader(), Collections.emptyList());
+        final SrcGen4JWatcher testee = new SrcGen4JWatcher(configFile,
+                () -> SrcGen4JMavenApp.createAndInit(context, configFile, JAXB_CLASSES), 50);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final Thread thread = new Thread(() -> {
+            try {
+                testee.run();
+            } catch (final IOException | RuntimeException ex) {
+                failure.set(ex);
+            }
+        }, "srcgen4j-watcher-test");
+        thread.start();
+        try {
+            await(() -> fileA.exists() && fileB.exists());
+            final FileTime old = FileTime.fromMillis(System.currentTimeMillis() - 3600000L);
+            Files.setLastModifiedTime(fileA.toPath(), old);
+            Files.setLastModifiedTime(fileB.toPath(), old);
+
+            // TEST
+            write(new File(rootDir, "templatesB/t.ptg.java"), "// B2 ${name}");
+            await(() -> read(fileB).contains("B2"));
+
+            // VERIFY
+            assertThat(Files.getLastModifiedTime(fileA.toPath())).isEqualTo(old);
+            assertThat(read(fileA)).isEqualTo("// A X");
+            assertThat(read(fileB)).isEqualTo("// B2 X");
+            // The model of the initial run is reused
+            assertThat(appender.list.stream().filter(event -> event.getFormattedMessage().equals("Parse: parse1")).count())
+                    .isEqualTo(1L);
+        } finally {
+            thread.interrupt();
+            thread.join(TIMEOUT_MILLIS);
+        }
+        assertThat(failure.get()).isNull();
+
+    }
+
+    private static String generator(final String name, final String templates) {
+        return "<generator name=\"" + name + "\" class=\"org.fuin.srcgen4j.core.velocity.ParameterizedTemplateGenerator\""
+                + " parser=\"parse1\" project=\"example\"><config><velo:parameterized-template-generator templatePath=\"${rootDir}/"
+                + templates + "\" /></config><artifact name=\"file\" folder=\"" + name + "\" /></generator>";
+    }
+
+    private static void await(final BooleanSupplier condition) throws InterruptedException {
+        final long end = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(end);
+            Thread.sleep(50);
+        }
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(final File file) {
+        try {
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        } catch (final IOException ex) {
+            return "";
+        }
+    }
+
+    // CHECKSTYLE:ON
+
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven.benchmark;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.fuin.srcgen4j.commons.DefaultContext;
+import org.fuin.srcgen4j.commons.SrcGen4JConfig;
+import org.fuin.srcgen4j.maven.SrcGen4JMojo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.impl.StaticLoggerBinder;
+
+/**
+ * Unmarshalling and initializing the configuration with {@link SrcGen4JMojo#createAndInit(org.fuin.srcgen4j.commons.SrcGen4JContext,
+ * java.io.File)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CreateAndInitBenchmark {
+
+    private SyntheticProject project;
+
+    private DefaultContext context;
+
+    private SrcGen4JMojo mojo;
+
+    /**
+     * Prepares the benchmark.
+     *
+     * @throws Exception
+     *             Error creating the project or the mojo.
+     */
+    @Setup
+    public void setup() throws Exception {
+        StaticLoggerBinder.getSingleton().setMavenLog(new QuietLog(false));
+        project = SyntheticProject.create(10);
+        context = new DefaultContext(getClass().getClassLoader(), Collections.emptyList());
+        mojo = new SrcGen4JMojo();
+        final Field field = SrcGen4JMojo.class.getDeclaredField("jaxbClassesToBeBound");
+        field.setAccessible(true);
+        field.set(mojo, SyntheticProject.JAXB_CLASSES);
+    }
+
+    /**
+     * Removes the project.
+     *
+     * @throws IOException
+     *             Error deleting the project.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        project.delete();
+    }
+
+    /**
+     * Reads and initializes the configuration.
+     *
+     * @return Configuration.
+     *
+     * @throws Exception
+     *             Error reading the configuration.
+     */
+    @Benchmark
+    public SrcGen4JConfig createAndInit() throws Exception {
+        return mojo.createAndInit(context, project.getConfigFile());
+    }
+
+}
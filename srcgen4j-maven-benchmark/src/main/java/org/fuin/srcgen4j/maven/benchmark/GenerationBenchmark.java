@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven.benchmark;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.fuin.srcgen4j.commons.DefaultContext;
+import org.fuin.srcgen4j.commons.SrcGen4J;
+import org.fuin.srcgen4j.commons.SrcGen4JConfig;
+import org.fuin.srcgen4j.maven.SrcGen4JMojo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.impl.StaticLoggerBinder;
+
+/**
+ * {@link SrcGen4J#execute()} end to end (clean, parse, generate) for a parameterized template with a growing number of target files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GenerationBenchmark {
+
+    /** Number of generated files. */
+    @Param({ "10", "100", "1000", "10000", "50000" })
+    public int targetFiles;
+
+    private SyntheticProject project;
+
+    private DefaultContext context;
+
+    private SrcGen4JConfig config;
+
+    /**
+     * Prepares the benchmark.
+     *
+     * @throws Exception
+     *             Error creating the project or the configuration.
+     */
+    @Setup
+    public void setup() throws Exception {
+        StaticLoggerBinder.getSingleton().setMavenLog(new QuietLog(false));
+        project = SyntheticProject.create(targetFiles);
+        context = new DefaultContext(getClass().getClassLoader(), Collections.emptyList());
+        final SrcGen4JMojo mojo = new SrcGen4JMojo();
+        final Field field = SrcGen4JMojo.class.getDeclaredField("jaxbClassesToBeBound");
+        field.setAccessible(true);
+        field.set(mojo, SyntheticProject.JAXB_CLASSES);
+        config = mojo.createAndInit(context, project.getConfigFile());
+    }
+
+    /**
+     * Removes the project.
+     *
+     * @throws IOException
+     *             Error deleting the project.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        project.delete();
+    }
+
+    /**
+     * Executes the complete generation.
+     *
+     * @throws Exception
+     *             Error generating.
+     */
+    @Benchmark
+    public void execute() throws Exception {
+        new SrcGen4J(config, context).execute();
+    }
+
+}
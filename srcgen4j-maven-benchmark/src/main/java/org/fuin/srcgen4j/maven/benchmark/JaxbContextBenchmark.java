@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+import org.fuin.srcgen4j.maven.ConfigLoader;
+import org.fuin.srcgen4j.maven.ConfigSelection;
+import org.fuin.srcgen4j.maven.JaxbContextCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.impl.StaticLoggerBinder;
+
+/**
+ * Loading the 'jaxbClassesToBeBound' and creating the JAXB context, with and without the {@link JaxbContextCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JaxbContextBenchmark {
+
+    private ClassLoader classLoader;
+
+    /**
+     * Prepares the benchmark.
+     */
+    @Setup
+    public void setup() {
+        StaticLoggerBinder.getSingleton().setMavenLog(new QuietLog(false));
+        classLoader = getClass().getClassLoader();
+    }
+
+    private Class<?>[] getJaxbContextClasses() throws ClassNotFoundException, IOException {
+        return new ConfigLoader(SyntheticProject.JAXB_CLASSES, new ConfigSelection(null, null), null).getJaxbContextClasses(classLoader);
+    }
+
+    /**
+     * Creates a new context for every invocation.
+     *
+     * @return New context.
+     *
+     * @throws Exception
+     *             Error creating the context.
+     */
+    @Benchmark
+    public JAXBContext uncached() throws Exception {
+        return JAXBContext.newInstance(getJaxbContextClasses());
+    }
+
+    /**
+     * Returns the context from the cache.
+     *
+     * @return Cached context.
+     *
+     * @throws ClassNotFoundException
+     *             A class was not found.
+     * @throws IOException
+     *             Error reading the JAXB index.
+     * @throws JAXBException
+     *             Error creating the context.
+     */
+    @Benchmark
+    public JAXBContext cached() throws ClassNotFoundException, IOException, JAXBException {
+        return JaxbContextCache.getOrCreate(classLoader, getJaxbContextClasses());
+    }
+
+}
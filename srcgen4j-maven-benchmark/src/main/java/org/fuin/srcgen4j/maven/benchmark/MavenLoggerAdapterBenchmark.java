@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.impl.StaticLoggerBinder;
+
+/**
+ * Formatting paths of the SLF4J to Maven logging bridge with enabled and disabled debug level.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MavenLoggerAdapterBenchmark {
+
+    /** Determines if the debug level is enabled in the Maven log. */
+    @Param({ "false", "true" })
+    public boolean debugEnabled;
+
+    private QuietLog log;
+
+    private Logger logger;
+
+    private final Object[] args = new Object[] { "gen1", Integer.valueOf(42), "srcGen/a/A.java" };
+
+    /**
+     * Prepares the benchmark.
+     */
+    @Setup
+    public void setup() {
+        log = new QuietLog(debugEnabled);
+        StaticLoggerBinder.getSingleton().setMavenLog(log);
+        logger = LoggerFactory.getLogger(MavenLoggerAdapterBenchmark.class);
+    }
+
+    /**
+     * Debug message without arguments.
+     *
+     * @return Number of characters logged so far.
+     */
+    @Benchmark
+    public long debugPlain() {
+        logger.debug("Generating file");
+        return log.getChars();
+    }
+
+    /**
+     * Debug message with one argument.
+     *
+     * @return Number of characters logged so far.
+     */
+    @Benchmark
+    public long debugOneArg() {
+        logger.debug("Generating file: {}", args[2]);
+        return log.getChars();
+    }
+
+    /**
+     * Debug message with two arguments.
+     *
+     * @return Number of characters logged so far.
+     */
+    @Benchmark
+    public long debugTwoArgs() {
+        logger.debug("Generator {} writes {}", args[0], args[2]);
+        return log.getChars();
+    }
+
+    /**
+     * Debug message with an argument array.
+     *
+     * @return Number of characters logged so far.
+     */
+    @Benchmark
+    public long debugArray() {
+        logger.debug("Generator {} wrote {} bytes to {}", args);
+        return log.getChars();
+    }
+
+    /**
+     * Trace message with one argument (trace is always disabled).
+     *
+     * @return Number of characters logged so far.
+     */
+    @Benchmark
+    public long traceOneArg() {
+        logger.trace("Generating file: {}", args[2]);
+        return log.getChars();
+    }
+
+    /**
+     * Info message with two arguments.
+     *
+     * @return Number of characters logged so far.
+     */
+    @Benchmark
+    public long infoTwoArgs() {
+        logger.info("Generator {} writes {}", args[0], args[2]);
+        return log.getChars();
+    }
+
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven.benchmark;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Maven log that discards all messages, but counts their length so the formatting cannot be optimized away.
+ */
+public final class QuietLog implements Log {
+
+    private final boolean debugEnabled;
+
+    private long chars;
+
+    /**
+     * Constructor with debug level flag.
+     *
+     * @param debugEnabled
+     *            TRUE if debug messages are enabled.
+     */
+    public QuietLog(final boolean debugEnabled) {
+        super();
+        this.debugEnabled = debugEnabled;
+    }
+
+    /**
+     * Returns the number of characters of all messages.
+     *
+     * @return Number of characters.
+     */
+    public long getChars() {
+        return chars;
+    }
+
+    private void consume(final CharSequence content) {
+        if (content != null) {
+            chars += content.length();
+        }
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return debugEnabled;
+    }
+
+    @Override
+    public void debug(final CharSequence content) {
+        consume(content);
+    }
+
+    @Override
+    public void debug(final CharSequence content, final Throwable error) {
+        consume(content);
+    }
+
+    @Override
+    public void debug(final Throwable error) {
+        // Ignore
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return true;
+    }
+
+    @Override
+    public void info(final CharSequence content) {
+        consume(content);
+    }
+
+    @Override
+    public void info(final CharSequence content, final Throwable error) {
+        consume(content);
+    }
+
+    @Override
+    public void info(final Throwable error) {
+        // Ignore
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return true;
+    }
+
+    @Override
+    public void warn(final CharSequence content) {
+        consume(content);
+    }
+
+    @Override
+    public void warn(final CharSequence content, final Throwable error) {
+        consume(content);
+    }
+
+    @Override
+    public void warn(final Throwable error) {
+        // Ignore
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return true;
+    }
+
+    @Override
+    public void error(final CharSequence content) {
+        consume(content);
+    }
+
+    @Override
+    public void error(final CharSequence content, final Throwable error) {
+        consume(content);
+    }
+
+    @Override
+    public void error(final Throwable error) {
+        // Ignore
+    }
+
+}
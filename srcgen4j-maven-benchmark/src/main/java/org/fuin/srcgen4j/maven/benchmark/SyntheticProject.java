@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Creates a temporary project with a 'srcgen4j-config.xml', a Velocity template and a parameterized template model with a given number
+ * of target files. The layout is the same as the one of the 'srcgen4j-maven-test' project.
+ */
+public final class SyntheticProject {
+
+    /** Classes to be bound to the JAXB context. */
+    public static final String[] JAXB_CLASSES = new String[] { "org.fuin.srcgen4j.core.velocity.VelocityGeneratorConfig",
+            "org.fuin.srcgen4j.core.velocity.ParameterizedTemplateParserConfig",
+            "org.fuin.srcgen4j.core.velocity.ParameterizedTemplateGeneratorConfig" };
+
+    private static final String CONFIG = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<srcgen4j-config xmlns=\"http://www.fuin.org/srcgen4j/commons/0.4.3\"\n"
+            + "    xmlns:velo=\"http://www.fuin.org/srcgen4j/core/velocity/0.4.3\">\n"
+            + "  <variables>\n"
+            + "    <variable name=\"templatesPath\" value=\"${rootDir}/templates\" />\n"
+            + "  </variables>\n"
+            + "  <projects>\n"
+            + "    <project name=\"example\" path=\"${rootDir}\" maven=\"false\">\n"
+            + "      <folder name=\"srcGenFolder\" path=\"srcGen\" create=\"true\" override=\"true\" clean=\"true\" />\n"
+            + "    </project>\n"
+            + "  </projects>\n"
+            + "  <parsers>\n"
+            + "    <parser name=\"parse1\" class=\"org.fuin.srcgen4j.core.velocity.ParameterizedTemplateParser\">\n"
+            + "      <config>\n"
+            + "        <velo:parameterized-template-parser modelPath=\"${templatesPath}\" modelFilter=\".*\\.ptg\\.xml\"\n"
+            + "                                            templatePath=\"${templatesPath}\" templateFilter=\".*\\.ptg\\.java\" />\n"
+            + "      </config>\n"
+            + "    </parser>\n"
+            + "  </parsers>\n"
+            + "  <generators>\n"
+            + "    <generator name=\"gen1\" class=\"org.fuin.srcgen4j.core.velocity.ParameterizedTemplateGenerator\"\n"
+            + "               parser=\"parse1\" project=\"example\">\n"
+            + "      <config>\n"
+            + "        <velo:parameterized-template-generator templatePath=\"${templatesPath}\" />\n"
+            + "      </config>\n"
+            + "      <artifact name=\"file\" folder=\"srcGenFolder\" />\n"
+            + "    </generator>\n"
+            + "  </generators>\n"
+            + "</srcgen4j-config>\n";
+
+    private static final String TEMPLATE = "package ${pkg};\n\n/** TEST. */\npublic class ${name} {\n\n}\n";
+
+    private static final int FILES_PER_PACKAGE = 500;
+
+    private final Path dir;
+
+    private SyntheticProject(final Path dir) {
+        super();
+        this.dir = dir;
+    }
+
+    /**
+     * Returns the project directory.
+     *
+     * @return Directory.
+     */
+    public File getDir() {
+        return dir.toFile();
+    }
+
+    /**
+     * Returns the configuration file.
+     *
+     * @return 'srcgen4j-config.xml' file.
+     */
+    public File getConfigFile() {
+        return dir.resolve("srcgen4j-config.xml").toFile();
+    }
+
+    /**
+     * Creates a new project in a temporary directory.
+     *
+     * @param targetFiles
+     *            Number of files the generator will create.
+     *
+     * @return New project.
+     *
+     * @throws IOException
+     *             Error writing the files.
+     */
+    public static SyntheticProject create(final int targetFiles) throws IOException {
+        final Path dir = Files.createTempDirectory("srcgen4j-benchmark-");
+        final Path templates = Files.createDirectories(dir.resolve("templates"));
+        Files.write(dir.resolve("srcgen4j-config.xml"), CONFIG.getBytes(StandardCharsets.UTF_8));
+        Files.write(templates.resolve("template.ptg.java"), TEMPLATE.getBytes(StandardCharsets.UTF_8));
+        try (final Writer writer = Files.newBufferedWriter(templates.resolve("model.ptg.xml"), StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<parameterized-template template=\"template.ptg.java\" "
+                    + "xmlns=\"http://www.fuin.org/srcgen4j/core/velocity/0.4.3\">\n");
+            writer.write("  <arguments>\n    <argument key=\"name\" value=\"-\" />\n    <argument key=\"pkg\" value=\"-\" />\n"
+                    + "  </arguments>\n");
+            for (int i = 0; i < targetFiles; i++) {
+                final String pkg = "p" + (i / FILES_PER_PACKAGE);
+                final String name = "C" + i;
+                writer.write("  <target-file path=\"" + pkg + "\" name=\"" + name + ".java\">\n");
+                writer.write("    <argument key=\"name\" value=\"" + name + "\" />\n");
+                writer.write("    <argument key=\"pkg\" value=\"" + pkg + "\" />\n");
+                writer.write("  </target-file>\n");
+            }
+            writer.write("</parameterized-template>\n");
+        }
+        return new SyntheticProject(dir);
+    }
+
+    /**
+     * Deletes the project directory.
+     *
+     * @throws IOException
+     *             Error deleting the files.
+     */
+    public void delete() throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path subDir, final IOException ex) throws IOException {
+                Files.delete(subDir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+}
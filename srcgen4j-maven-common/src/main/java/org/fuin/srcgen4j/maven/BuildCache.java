@@ -0,0 +1,357 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.fuin.srcgen4j.commons.GeneratorConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local build cache for the output of generators. The key of a generator is a hash of the generator's class and definition, the
+ * definition of its parser and the content of all inputs of both. Paths below the root directory of the configuration are relative, so
+ * the cache can be shared by several workspaces. The output is stored as ZIP file named after the key. A hit touches the file and the
+ * least recently used files are deleted if the cache grows beyond its maximum size. Only generators whose inputs are known and whose
+ * output folders are not used by other generators are cached. The complete content of these folders is stored, including files the
+ * generator did not write in this run (for example existing files in a folder that does not allow overriding them), and the folders are
+ * emptied before the output is restored. The cache directory may be shared by concurrent builds, so cache files are written to a
+ * unique temporary file and moved atomically. The class is thread-safe.
+ */
+public final class BuildCache implements GeneratorCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BuildCache.class);
+
+    private static final String SUFFIX = ".zip";
+
+    private final File dir;
+
+    private final long maxSize;
+
+    private final String salt;
+
+    private final Path rootDir;
+
+    private final Map<String, RawConfig.GeneratorEntry> generators;
+
+    private final Map<String, RawConfig.ParserEntry> parsers;
+
+    private final Map<String, String> keys;
+
+    private final AtomicInteger hits;
+
+    private final AtomicInteger misses;
+
+    private final AtomicInteger stored;
+
+    private final AtomicLong evicted;
+
+    /**
+     * Constructor with all data.
+     *
+     * @param dir
+     *            Directory for the cache files - Cannot be NULL.
+     * @param maxSize
+     *            Maximum size of all cache files in bytes.
+     * @param rawConfig
+     *            Configuration that lists the inputs and outputs of parsers and generators - Cannot be NULL.
+     * @param salt
+     *            Additional data for the keys like the versions of the plugin and its dependencies - Cannot be NULL.
+     */
+    public BuildCache(final File dir, final long maxSize, final RawConfig rawConfig, final String salt) {
+        super();
+        this.dir = dir;
+        this.maxSize = maxSize;
+        this.salt = salt;
+        this.rootDir = rawConfig.getRootDir().toPath();
+        this.generators = new HashMap<>();
+        this.parsers = new HashMap<>();
+        this.keys = new HashMap<>();
+        this.hits = new AtomicInteger();
+        this.misses = new AtomicInteger();
+        this.stored = new AtomicInteger();
+        this.evicted = new AtomicLong();
+        for (final RawConfig.ParserEntry entry : rawConfig.getParsers()) {
+            if (entry.isResolved() && !entry.getInputs().isEmpty()) {
+                parsers.put(entry.getName(), entry);
+            }
+        }
+        final Map<File, Integer> writers = new HashMap<>();
+        for (final RawConfig.GeneratorEntry entry : rawConfig.getGenerators()) {
+            for (final File outputDir : entry.getOutputDirs()) {
+                writers.merge(outputDir, 1, Integer::sum);
+            }
+        }
+        for (final RawConfig.GeneratorEntry entry : rawConfig.getGenerators()) {
+            if (entry.isResolved() && parsers.containsKey(entry.getParser()) && !entry.getOutputDirs().isEmpty()
+                    && entry.getOutputDirs().stream().allMatch(outputDir -> writers.get(outputDir) == 1)) {
+                generators.put(entry.getName(), entry);
+            } else {
+                LOG.debug("Inputs or outputs of generator '{}' are not exclusive or unknown - Not cached", entry.getName());
+            }
+        }
+    }
+
+    @Override
+    public boolean restore(final GeneratorConfig generatorConfig) {
+        final RawConfig.GeneratorEntry entry = generators.get(generatorConfig.getName());
+        if (entry == null) {
+            return false;
+        }
+        final String key = key(entry);
+        if (key == null) {
+            return false;
+        }
+        final File file = new File(dir, key + SUFFIX);
+        if (!file.isFile()) {
+            misses.incrementAndGet();
+            return false;
+        }
+        try {
+            for (final File outputDir : entry.getOutputDirs()) {
+                clear(outputDir.toPath());
+            }
+            final int count = extract(file, entry.getOutputDirs());
+            Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            LOG.info("Output of generator '{}' restored from build cache ({} files)", entry.getName(), count);
+            return true;
+        } catch (final IOException | RuntimeException ex) {
+            LOG.warn("Error restoring generator '{}' from build cache: {}", entry.getName(), file, ex);
+            misses.incrementAndGet();
+            return false;
+        }
+    }
+
+    @Override
+    public void store(final GeneratorConfig generatorConfig, final long startMillis) {
+        final RawConfig.GeneratorEntry entry = generators.get(generatorConfig.getName());
+        if (entry == null) {
+            return;
+        }
+        final String key;
+        synchronized (keys) {
+            key = keys.get(entry.getName());
+        }
+        if (key == null) {
+            return;
+        }
+        final File file = new File(dir, key + SUFFIX);
+        Path tmp = null;
+        try {
+            Files.createDirectories(dir.toPath());
+            tmp = Files.createTempFile(dir.toPath(), key + "-", ".tmp");
+            try (final ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                final List<File> outputDirs = entry.getOutputDirs();
+                for (int i = 0; i < outputDirs.size(); i++) {
+                    final Path outputDir = outputDirs.get(i).toPath();
+                    // Files left untouched by the generator are part of the output as well
+                    for (final Path generated : files(outputDir)) {
+                        final String name = outputDir.relativize(generated).toString().replace(File.separatorChar, '/');
+                        out.putNextEntry(new ZipEntry(i + "/" + name));
+                        Files.copy(generated, out);
+                        out.closeEntry();
+                    }
+                }
+            }
+            Files.move(tmp, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            stored.incrementAndGet();
+            evict();
+        } catch (final IOException ex) {
+            LOG.warn("Error storing generator '{}' in build cache: {}", entry.getName(), file, ex);
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (final IOException ex2) {
+                    LOG.debug("Error deleting: {}", tmp, ex2);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a summary of the cache usage of this instance.
+     *
+     * @return Hits, misses, stored entries and evicted bytes.
+     */
+    public String getStatistics() {
+        return hits.get() + " hits, " + misses.get() + " misses, " + stored.get() + " stored, " + evicted.get() + " bytes evicted";
+    }
+
+    /**
+     * Returns the number of generators restored from the cache.
+     *
+     * @return Number of hits.
+     */
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of cacheable generators that had to be executed.
+     *
+     * @return Number of misses.
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+
+    private String key(final RawConfig.GeneratorEntry entry) {
+        try {
+            final RawConfig.ParserEntry parser = parsers.get(entry.getParser());
+            final Fingerprint fingerprint = new Fingerprint();
+            fingerprint.add("salt", salt);
+            fingerprint.add("generator", relative(entry.getDefinition()));
+            for (final File outputDir : entry.getOutputDirs()) {
+                fingerprint.add("output", relative(outputDir.getPath()));
+            }
+            for (final InputRoot input : entry.getInputs()) {
+                fingerprint.addContents(input, rootDir);
+            }
+            fingerprint.add("parser", relative(parser.getDefinition()));
+            for (final InputRoot input : parser.getInputs()) {
+                fingerprint.addContents(input, rootDir);
+            }
+            final String key = fingerprint.toHex();
+            synchronized (keys) {
+                keys.put(entry.getName(), key);
+            }
+            return key;
+        } catch (final IOException ex) {
+            LOG.debug("Error reading inputs of generator '{}' - Not cached", entry.getName(), ex);
+            return null;
+        }
+    }
+
+    private String relative(final String definition) {
+        return definition.replace(rootDir.toString(), "${rootDir}");
+    }
+
+    private static List<Path> files(final Path dir) throws IOException {
+        final List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return files;
+        }
+        try (final Stream<Path> stream = Files.walk(dir)) {
+            stream.filter(Files::isRegularFile).sorted().forEach(files::add);
+        }
+        return files;
+    }
+
+    private static void clear(final Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        final List<Path> paths = new ArrayList<>();
+        try (final Stream<Path> stream = Files.walk(dir)) {
+            stream.filter(path -> !path.equals(dir)).forEach(paths::add);
+        }
+        // Children before their parent directories
+        paths.sort(Comparator.reverseOrder());
+        for (final Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static int extract(final File file, final List<File> outputDirs) throws IOException {
+        int count = 0;
+        try (final ZipInputStream in = new ZipInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            ZipEntry zipEntry;
+            while ((zipEntry = in.getNextEntry()) != null) {
+                final String name = zipEntry.getName();
+                final int slash = name.indexOf('/');
+                final Path outputDir = outputDirs.get(Integer.parseInt(name.substring(0, slash))).toPath();
+                final Path target = outputDir.resolve(name.substring(slash + 1)).normalize();
+                if (!target.startsWith(outputDir)) {
+                    throw new IOException("Invalid entry in build cache: " + name);
+                }
+                Files.createDirectories(target.getParent());
+                try (final OutputStream out = Files.newOutputStream(target)) {
+                    copy(in, out);
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void copy(final InputStream in, final OutputStream out) throws IOException {
+        final byte[] buf = new byte[8192];
+        int count;
+        while ((count = in.read(buf)) > 0) {
+            out.write(buf, 0, count);
+        }
+    }
+
+    private void evict() throws IOException {
+        final List<Path> files = new ArrayList<>();
+        try (final Stream<Path> stream = Files.list(dir.toPath())) {
+            stream.filter(path -> path.toString().endsWith(SUFFIX)).forEach(files::add);
+        }
+        long size = 0;
+        final Map<Path, Long> times = new HashMap<>();
+        final Map<Path, Long> sizes = new HashMap<>();
+        for (final Path file : files) {
+            try {
+                sizes.put(file, Files.size(file));
+                times.put(file, Files.getLastModifiedTime(file).toMillis());
+                size += sizes.get(file);
+            } catch (final NoSuchFileException ex) {
+                // Deleted by another build sharing the cache
+                continue;
+            }
+        }
+        files.retainAll(sizes.keySet());
+        if (size <= maxSize) {
+            return;
+        }
+        files.sort((a, b) -> Long.compare(times.get(a), times.get(b)));
+        for (final Path file : files) {
+            if (size <= maxSize) {
+                break;
+            }
+            size -= sizes.get(file);
+            if (Files.deleteIfExists(file)) {
+                evicted.addAndGet(sizes.get(file));
+                LOG.debug("Evicted from build cache: {}", file);
+            }
+        }
+    }
+
+}
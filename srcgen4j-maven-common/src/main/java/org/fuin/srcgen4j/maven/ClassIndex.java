@@ -0,0 +1,197 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the packages contained in the jar files of a classpath. A package is the directory of any entry, so resources like
+ * 'jaxb.index' are found as well. The packages of every jar are stored in a file named after the hash of the jar's path. The first line
+ * holds the size and last modification time of the jar, so a changed jar is indexed again. Directories on the classpath change during a
+ * build and are never indexed. The class is immutable and thread-safe.
+ */
+public final class ClassIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClassIndex.class);
+
+    private static final String SUFFIX = ".idx";
+
+    private final Map<String, List<File>> packages;
+
+    private final List<File> directories;
+
+    private final int reused;
+
+    private final int indexed;
+
+    private ClassIndex(final Map<String, List<File>> packages, final List<File> directories, final int reused, final int indexed) {
+        super();
+        this.packages = packages;
+        this.directories = directories;
+        this.reused = reused;
+        this.indexed = indexed;
+    }
+
+    /**
+     * Loads the index for a classpath. Jar files without a valid index file are read and their index file is written.
+     *
+     * @param dir
+     *            Directory for the index files - Cannot be NULL.
+     * @param classpath
+     *            Normalized classpath, see {@link ContextCache#normalize(List)} - Cannot be NULL.
+     *
+     * @return Index with the jar files in classpath order for every package.
+     */
+    public static ClassIndex load(final File dir, final List<File> classpath) {
+        final Map<String, List<File>> packages = new HashMap<>();
+        final List<File> directories = new ArrayList<>();
+        int reused = 0;
+        int indexed = 0;
+        for (final File entry : classpath) {
+            if (entry.isDirectory()) {
+                directories.add(entry);
+                continue;
+            }
+            final String stamp = entry.length() + "|" + entry.lastModified();
+            final File file = new File(dir, new Fingerprint().add("jar", entry.getPath()).toHex() + SUFFIX);
+            List<String> names = read(file, stamp);
+            if (names == null) {
+                try {
+                    names = scan(entry);
+                } catch (final IOException ex) {
+                    LOG.warn("Error indexing classpath entry - Ignored: {}", entry, ex);
+                    continue;
+                }
+                write(file, stamp, names);
+                indexed++;
+            } else {
+                reused++;
+            }
+            for (final String name : names) {
+                packages.computeIfAbsent(name, key -> new ArrayList<>(1)).add(entry);
+            }
+        }
+        return new ClassIndex(packages, Collections.unmodifiableList(directories), reused, indexed);
+    }
+
+    /**
+     * Returns the jar files that contain a package.
+     *
+     * @param packagePath
+     *            Package as path with slashes like 'org/fuin/srcgen4j' or an empty string for the root package - Cannot be NULL.
+     *
+     * @return Jar files in classpath order - Empty if no jar contains the package.
+     */
+    public List<File> getJars(final String packagePath) {
+        final List<File> jars = packages.get(packagePath);
+        if (jars == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(jars);
+    }
+
+    /**
+     * Returns the directories of the classpath.
+     *
+     * @return Directories that are not indexed.
+     */
+    public List<File> getDirectories() {
+        return directories;
+    }
+
+    /**
+     * Returns a summary of the index usage.
+     *
+     * @return Number of packages and of jars read from index files and newly indexed.
+     */
+    public String getStatistics() {
+        return packages.size() + " packages, " + reused + " jars reused, " + indexed + " jars indexed";
+    }
+
+    private static List<String> read(final File file, final String stamp) {
+        try {
+            final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !lines.get(0).equals(stamp)) {
+                return null;
+            }
+            return lines.subList(1, lines.size());
+        } catch (final NoSuchFileException ex) {
+            return null;
+        } catch (final IOException ex) {
+            LOG.debug("Error reading class index: {}", file, ex);
+            return null;
+        }
+    }
+
+    private static List<String> scan(final File jar) throws IOException {
+        final TreeSet<String> names = new TreeSet<>();
+        try (final JarFile jarFile = new JarFile(jar, false)) {
+            final Enumeration<? extends ZipEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                if (!entry.isDirectory()) {
+                    final int slash = entry.getName().lastIndexOf('/');
+                    names.add(slash < 0 ? "" : entry.getName().substring(0, slash));
+                }
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    private static void write(final File file, final String stamp, final List<String> names) {
+        final List<String> lines = new ArrayList<>(names.size() + 1);
+        lines.add(stamp);
+        lines.addAll(names);
+        // The directory is shared by concurrent builds: Use a unique temporary file and replace the index atomically
+        Path tmp = null;
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            tmp = Files.createTempFile(file.getParentFile().toPath(), file.getName() + "-", ".tmp");
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException ex) {
+            LOG.warn("Error writing class index: {}", file, ex);
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (final IOException ex2) {
+                    LOG.debug("Error deleting: {}", tmp, ex2);
+                }
+            }
+        }
+    }
+
+}
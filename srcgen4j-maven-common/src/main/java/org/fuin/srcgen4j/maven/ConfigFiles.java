@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.fuin.utils4j.Utils4J;
+
+/**
+ * Resolves the configuration files of an execution. An entry is either the path of a file or a glob pattern like
+ * <code>src/main/srcgen4j/*.xml</code> or <code>**&#47;srcgen4j-config.xml</code>. Relative entries are resolved against a base
+ * directory. Only the directory before the first wildcard of a pattern is searched, and only as deep as the pattern reaches unless it
+ * contains <code>**</code>.
+ */
+public final class ConfigFiles {
+
+    private ConfigFiles() {
+        throw new UnsupportedOperationException("It is not allowed to create an instance of a utility class");
+    }
+
+    /**
+     * Returns the configuration files for a list of paths and patterns.
+     *
+     * @param baseDir
+     *            Directory relative entries are resolved against - Cannot be NULL.
+     * @param entries
+     *            File paths or glob patterns - Cannot be NULL.
+     *
+     * @return Canonical files sorted by path without duplicates. Paths without wildcards are returned even if the file does not
+     *         exist.
+     *
+     * @throws IOException
+     *             Error searching a directory.
+     */
+    public static List<File> resolve(final File baseDir, final Collection<String> entries) throws IOException {
+        final TreeSet<File> files = new TreeSet<>();
+        for (final String entry : entries) {
+            final String pattern = entry.trim().replace('\\', '/');
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            final int wildcard = firstWildcard(pattern);
+            if (wildcard < 0) {
+                files.add(Utils4J.getCanonicalFile(absolute(baseDir, pattern)));
+                continue;
+            }
+            final int slash = pattern.lastIndexOf('/', wildcard);
+            final File root = Utils4J.getCanonicalFile(slash < 0 ? baseDir : absolute(baseDir, pattern.substring(0, slash + 1)));
+            if (!root.isDirectory()) {
+                continue;
+            }
+            final String glob = pattern.substring(slash + 1);
+            final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+            final Path rootPath = root.toPath();
+            try (final Stream<Path> stream = Files.walk(rootPath, maxDepth(glob))) {
+                stream.filter(Files::isRegularFile).filter(path -> matcher.matches(rootPath.relativize(path)))
+                        .forEach(path -> files.add(Utils4J.getCanonicalFile(path.toFile())));
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    private static File absolute(final File baseDir, final String path) {
+        final File file = new File(path);
+        return file.isAbsolute() ? file : new File(baseDir, path);
+    }
+
+    /**
+     * Returns the depth of the files a glob can match. Every slash adds a directory level, only '**' crosses any number of them.
+     */
+    private static int maxDepth(final String glob) {
+        if (glob.contains("**")) {
+            return Integer.MAX_VALUE;
+        }
+        int depth = 1;
+        for (int i = 0; i < glob.length(); i++) {
+            if (glob.charAt(i) == '/') {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+    private static int firstWildcard(final String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            final char ch = pattern.charAt(i);
+            if (ch == '*' || ch == '?' || ch == '[' || ch == '{') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
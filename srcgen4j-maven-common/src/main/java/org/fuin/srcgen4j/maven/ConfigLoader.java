@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+
+import org.fuin.srcgen4j.commons.SrcGen4JConfig;
+import org.fuin.srcgen4j.commons.SrcGen4JContext;
+import org.fuin.utils4j.Utils4J;
+import org.fuin.utils4j.jaxb.JaxbUtils;
+import org.fuin.utils4j.jaxb.UnmarshallerBuilder;
+
+/**
+ * Reads and initializes SrcGen4J configurations the same way for the Maven plugin, its worker JVMs and the application. The JAXB context
+ * binds the configuration class, the classes listed in the {@link JaxbIndex} and the additional classes. Parsers and generators that
+ * are not selected are removed before the configuration is unmarshalled. The class is immutable and thread-safe.
+ */
+public final class ConfigLoader {
+
+    private final List<String> jaxbClassesToBeBound;
+
+    private final ConfigSelection selection;
+
+    private final GenerationReport report;
+
+    /**
+     * Constructor with all data.
+     *
+     * @param jaxbClassesToBeBound
+     *            Names of additional classes to bind to the JAXB context - May be NULL.
+     * @param selection
+     *            Parsers and generators to keep - Cannot be NULL.
+     * @param report
+     *            Report that receives the phases 'jaxbContext', 'unmarshal' and 'init' - May be NULL.
+     */
+    public ConfigLoader(final String[] jaxbClassesToBeBound, final ConfigSelection selection, final GenerationReport report) {
+        super();
+        if (jaxbClassesToBeBound == null) {
+            this.jaxbClassesToBeBound = Collections.emptyList();
+        } else {
+            this.jaxbClassesToBeBound = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(jaxbClassesToBeBound)));
+        }
+        this.selection = selection;
+        this.report = report;
+    }
+
+    /**
+     * Returns the parsers and generators to keep.
+     *
+     * @return Selection - Never NULL.
+     */
+    public ConfigSelection getSelection() {
+        return selection;
+    }
+
+    /**
+     * Returns the classes to bind to the JAXB context used for reading a configuration.
+     *
+     * @param classLoader
+     *            Class loader to use - Cannot be NULL.
+     *
+     * @return The configuration class, the classes listed in the {@link JaxbIndex} and all additional classes.
+     *
+     * @throws ClassNotFoundException
+     *             An additional or indexed class was not found.
+     * @throws IOException
+     *             The index could not be read.
+     */
+    public Class<?>[] getJaxbContextClasses(final ClassLoader classLoader) throws ClassNotFoundException, IOException {
+        final Set<Class<?>> classes = new HashSet<Class<?>>();
+        classes.add(SrcGen4JConfig.class);
+        for (final Map.Entry<String, URL> entry : JaxbIndex.read(classLoader).entrySet()) {
+            try {
+                classes.add(classLoader.loadClass(entry.getKey()));
+            } catch (final ClassNotFoundException ex) {
+                throw new ClassNotFoundException("Class listed in " + entry.getValue() + " not found: " + entry.getKey(), ex);
+            }
+        }
+        for (final String name : jaxbClassesToBeBound) {
+            try {
+                classes.add(classLoader.loadClass(name));
+            } catch (final ClassNotFoundException ex) {
+                throw new ClassNotFoundException("Class to add to JAXB context not found: " + name, ex);
+            }
+        }
+        return classes.toArray(new Class<?>[classes.size()]);
+    }
+
+    /**
+     * Reads a configuration file and initializes the configuration.
+     *
+     * @param context
+     *            Context with the class loader of the project - Cannot be NULL.
+     * @param configFile
+     *            Configuration file to read - Cannot be NULL.
+     *
+     * @return New initialized configuration.
+     *
+     * @throws ClassNotFoundException
+     *             An additional or indexed class was not found.
+     * @throws IOException
+     *             The index or the configuration could not be read.
+     * @throws JAXBException
+     *             The JAXB context could not be created.
+     */
+    public SrcGen4JConfig load(final SrcGen4JContext context, final File configFile)
+            throws ClassNotFoundException, IOException, JAXBException {
+        long start = System.nanoTime();
+        final Class<?>[] classes = getJaxbContextClasses(context.getClassLoader());
+        final JAXBContext jaxbContext = JaxbContextCache.getOrCreate(context.getClassLoader(), classes);
+        start = phase("jaxbContext", start);
+        final GenerationEvents.ConfigLoad event = new GenerationEvents.ConfigLoad();
+        event.begin();
+        final Unmarshaller unmarshaller = new UnmarshallerBuilder().withContext(jaxbContext).build();
+        final SrcGen4JConfig config;
+        if (selection.isAll()) {
+            config = JaxbUtils.unmarshal(unmarshaller, configFile);
+        } else {
+            config = JaxbUtils.unmarshal(unmarshaller, new StringReader(selection.filter(configFile)));
+        }
+        start = phase("unmarshal", start);
+        config.init(context, Utils4J.getCanonicalFile(configFile.getParentFile()));
+        phase("init", start);
+        event.configFile = configFile.getPath();
+        event.commit();
+        return config;
+    }
+
+    private long phase(final String name, final long start) {
+        final long end = System.nanoTime();
+        if (report != null) {
+            report.phase(name, end - start);
+        }
+        return end;
+    }
+
+}
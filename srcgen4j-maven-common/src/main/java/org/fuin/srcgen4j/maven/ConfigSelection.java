@@ -0,0 +1,280 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.XMLEvent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parsers and generators selected for a run. The unselected ones are removed from the XML of a configuration before it is unmarshalled,
+ * so they are never instantiated or initialized. A generator is selected if its name is in the list of generators (or the list is
+ * empty) and its parser is in the list of parsers (or the list is empty). A parser is kept if it is in the list of parsers (or the list
+ * is empty) and, if generators are selected, at least one selected generator uses it. Folders that no selected generator writes to
+ * are removed as well, so they are not cleaned. The class is immutable and thread-safe.
+ */
+public final class ConfigSelection {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConfigSelection.class);
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    private final Set<String> generators;
+
+    private final Set<String> parsers;
+
+    /**
+     * Constructor with comma separated lists of names.
+     *
+     * @param generators
+     *            Names of the generators to execute or NULL/empty for all generators.
+     * @param parsers
+     *            Names of the parsers to execute or NULL/empty for all parsers.
+     */
+    public ConfigSelection(final String generators, final String parsers) {
+        super();
+        this.generators = split(generators);
+        this.parsers = split(parsers);
+    }
+
+    /**
+     * Returns if all parsers and generators are selected.
+     *
+     * @return TRUE if nothing is filtered.
+     */
+    public boolean isAll() {
+        return generators.isEmpty() && parsers.isEmpty();
+    }
+
+    /**
+     * Reads a configuration file and removes the parsers, generators and folders that are not selected.
+     *
+     * @param configFile
+     *            XML configuration file - Cannot be NULL.
+     *
+     * @return XML of the configuration with the selected parsers and generators only.
+     *
+     * @throws IOException
+     *             Error reading the file.
+     */
+    public String filter(final File configFile) throws IOException {
+        final List<Entry> entries = generatorEntries(configFile);
+        final Set<String> keptGenerators = new HashSet<>();
+        final Set<String> keptParsers = new HashSet<>();
+        final Set<String> keptFolders = new HashSet<>();
+        boolean allFolders = false;
+        for (final Entry entry : entries) {
+            if (selected(generators, entry.name) && selected(parsers, entry.parser)) {
+                keptGenerators.add(entry.name);
+                keptParsers.add(entry.parser);
+                if (entry.folders.contains(null)) {
+                    allFolders = true;
+                }
+                keptFolders.addAll(entry.folders);
+            }
+        }
+        if (keptGenerators.isEmpty()) {
+            LOG.warn("No generator of {} matches the selection {}", configFile, this);
+        }
+        final boolean pruneFolders = !allFolders;
+        final Set<String> parserFilter = generators.isEmpty() ? null : keptParsers;
+        final StringWriter writer = new StringWriter();
+        try (final InputStream in = new BufferedInputStream(Files.newInputStream(configFile.toPath()))) {
+            final XMLEventReader reader = INPUT_FACTORY.createXMLEventReader(in);
+            final XMLEventWriter out = OUTPUT_FACTORY.createXMLEventWriter(writer);
+            final List<String> path = new ArrayList<>();
+            String project = null;
+            int skip = 0;
+            while (reader.hasNext()) {
+                final XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    final String name = event.asStartElement().getName().getLocalPart();
+                    path.add(name);
+                    if (skip > 0) {
+                        skip++;
+                        continue;
+                    }
+                    final String nameAttr = attribute(event, "name");
+                    if (path.size() == 3 && path.get(1).equals("projects") && name.equals("project")) {
+                        project = nameAttr;
+                    }
+                    if (removed(path, nameAttr, project, keptGenerators, parserFilter, pruneFolders ? keptFolders : null)) {
+                        skip = 1;
+                        continue;
+                    }
+                } else if (event.isEndElement()) {
+                    path.remove(path.size() - 1);
+                    if (skip > 0) {
+                        skip--;
+                        continue;
+                    }
+                } else if (skip > 0) {
+                    continue;
+                }
+                out.add(event);
+            }
+            out.flush();
+            out.close();
+            reader.close();
+        } catch (final XMLStreamException ex) {
+            throw new IOException("Error filtering configuration: " + configFile, ex);
+        }
+        return writer.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "generators=" + generators + ", parsers=" + parsers;
+    }
+
+    private boolean removed(final List<String> path, final String name, final String project, final Set<String> keptGenerators,
+            final Set<String> parserFilter, final Set<String> keptFolders) {
+        if (path.size() == 3 && path.get(1).equals("generators") && path.get(2).equals("generator")) {
+            return !keptGenerators.contains(name);
+        }
+        if (path.size() == 3 && path.get(1).equals("parsers") && path.get(2).equals("parser")) {
+            return !selected(parsers, name) || (parserFilter != null && !parserFilter.contains(name));
+        }
+        if (keptFolders != null && path.size() == 4 && path.get(1).equals("projects") && path.get(3).equals("folder")) {
+            return !keptFolders.contains(project + "/" + name);
+        }
+        return false;
+    }
+
+    private static List<Entry> generatorEntries(final File configFile) throws IOException {
+        final List<Entry> entries = new ArrayList<>();
+        try (final InputStream in = new BufferedInputStream(Files.newInputStream(configFile.toPath()))) {
+            final XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(in);
+            int depth = 0;
+            String section = null;
+            Entry current = null;
+            while (reader.hasNext()) {
+                final int type = reader.next();
+                if (type == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    final String name = reader.getLocalName();
+                    if (depth == 2) {
+                        section = name;
+                    } else if (depth == 3 && "generators".equals(section) && name.equals("generator")) {
+                        current = new Entry(reader.getAttributeValue(null, "name"), reader.getAttributeValue(null, "parser"),
+                                reader.getAttributeValue(null, "project"), reader.getAttributeValue(null, "folder"));
+                        entries.add(current);
+                    } else if (depth == 4 && current != null && name.equals("artifact")) {
+                        current.addArtifact(reader.getAttributeValue(null, "project"), reader.getAttributeValue(null, "folder"));
+                    }
+                } else if (type == XMLStreamConstants.END_ELEMENT) {
+                    if (depth == 3) {
+                        current = null;
+                    }
+                    depth--;
+                }
+            }
+            reader.close();
+        } catch (final XMLStreamException ex) {
+            throw new IOException("Error reading configuration: " + configFile, ex);
+        }
+        return entries;
+    }
+
+    private static String attribute(final XMLEvent event, final String name) {
+        final Attribute attribute = event.asStartElement().getAttributeByName(new QName(name));
+        return attribute == null ? null : attribute.getValue();
+    }
+
+    private static boolean selected(final Set<String> names, final String name) {
+        return names.isEmpty() || names.contains(name);
+    }
+
+    private static Set<String> split(final String names) {
+        if (names == null || names.trim().isEmpty()) {
+            return Collections.emptySet();
+        }
+        final Set<String> set = new LinkedHashSet<>();
+        for (final String name : names.split(",")) {
+            if (!name.trim().isEmpty()) {
+                set.add(name.trim());
+            }
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Generator read from the XML.
+     */
+    private static final class Entry {
+
+        private final String name;
+
+        private final String parser;
+
+        private final String project;
+
+        private final String folder;
+
+        /** Folders written to as 'project/folder' - Contains NULL if a folder is unknown. */
+        private final Set<String> folders;
+
+        Entry(final String name, final String parser, final String project, final String folder) {
+            this.name = name;
+            this.parser = parser;
+            this.project = project;
+            this.folder = folder;
+            this.folders = new HashSet<>();
+        }
+
+        void addArtifact(final String artifactProject, final String artifactFolder) {
+            final String p = artifactProject == null ? project : artifactProject;
+            final String f = artifactFolder == null ? folder : artifactFolder;
+            folders.add(p == null || f == null ? null : p + "/" + f);
+        }
+
+    }
+
+}
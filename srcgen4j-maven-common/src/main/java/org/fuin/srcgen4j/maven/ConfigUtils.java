@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.fuin.srcgen4j.commons.Artifact;
+import org.fuin.srcgen4j.commons.Folder;
+import org.fuin.srcgen4j.commons.GeneratorConfig;
+import org.fuin.srcgen4j.commons.Project;
+import org.fuin.srcgen4j.commons.SrcGen4JConfig;
+
+/**
+ * Utility methods for an initialized SrcGen4J configuration.
+ */
+public final class ConfigUtils {
+
+    private ConfigUtils() {
+        throw new UnsupportedOperationException("It is not allowed to create an instance of a utility class");
+    }
+
+    /**
+     * Returns the directory of a folder.
+     *
+     * @param config
+     *            Initialized configuration.
+     * @param projectName
+     *            Name of the project.
+     * @param folderName
+     *            Name of the folder within the project.
+     *
+     * @return Canonical directory or NULL if the folder is unknown.
+     */
+    public static File findFolderDir(final SrcGen4JConfig config, final String projectName, final String folderName) {
+        final Folder folder = findFolder(config, projectName, folderName);
+        if (folder == null) {
+            return null;
+        }
+        return folder.getCanonicalDir();
+    }
+
+    /**
+     * Returns a folder.
+     *
+     * @param config
+     *            Initialized configuration.
+     * @param projectName
+     *            Name of the project.
+     * @param folderName
+     *            Name of the folder within the project.
+     *
+     * @return Folder or NULL if the folder is unknown.
+     */
+    public static Folder findFolder(final SrcGen4JConfig config, final String projectName, final String folderName) {
+        if (config.getProjects() == null) {
+            return null;
+        }
+        for (final Project project : config.getProjects()) {
+            if (project.getName().equals(projectName) && project.getFolders() != null) {
+                for (final Folder folder : project.getFolders()) {
+                    if (folder.getName().equals(folderName)) {
+                        return folder;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the directories a generator writes to.
+     *
+     * @param config
+     *            Initialized configuration.
+     * @param generatorConfig
+     *            Generator.
+     *
+     * @return List of directories without duplicates.
+     */
+    public static List<File> outputDirs(final SrcGen4JConfig config, final GeneratorConfig generatorConfig) {
+        final List<File> dirs = new ArrayList<>();
+        if (generatorConfig.getArtifacts() == null) {
+            return dirs;
+        }
+        for (final Artifact artifact : generatorConfig.getArtifacts()) {
+            final File dir = findFolderDir(config, generatorConfig.getProject(), artifact.getFolder());
+            if (dir != null && !dirs.contains(dir)) {
+                dirs.add(dir);
+            }
+        }
+        return dirs;
+    }
+
+    /**
+     * Returns the directories of all folders of all projects.
+     *
+     * @param config
+     *            Initialized configuration.
+     *
+     * @return List of directories without duplicates.
+     */
+    public static List<File> folderDirs(final SrcGen4JConfig config) {
+        final List<File> dirs = new ArrayList<>();
+        if (config.getProjects() == null) {
+            return dirs;
+        }
+        for (final Project project : config.getProjects()) {
+            if (project.getFolders() != null) {
+                for (final Folder folder : project.getFolders()) {
+                    final File dir = folder.getCanonicalDir();
+                    if (dir != null && !dirs.contains(dir)) {
+                        dirs.add(dir);
+                    }
+                }
+            }
+        }
+        return dirs;
+    }
+
+    /**
+     * Returns the directories all generators write to.
+     *
+     * @param config
+     *            Initialized configuration.
+     *
+     * @return List of directories without duplicates.
+     */
+    public static List<File> outputDirs(final SrcGen4JConfig config) {
+        final List<File> dirs = new ArrayList<>();
+        if (config.getGenerators() == null || config.getGenerators().getList() == null) {
+            return dirs;
+        }
+        for (final GeneratorConfig generatorConfig : config.getGenerators().getList()) {
+            for (final File dir : outputDirs(config, generatorConfig)) {
+                if (!dirs.contains(dir)) {
+                    dirs.add(dir);
+                }
+            }
+        }
+        return dirs;
+    }
+
+    /**
+     * Returns the files below a directory that were modified since a point in time. As file systems with a resolution of one second
+     * truncate the timestamp, files modified in the same second as the start are included.
+     *
+     * @param dir
+     *            Directory to scan.
+     * @param startMillis
+     *            Start in milliseconds since the epoch.
+     *
+     * @return Files sorted by path with their attributes - Empty if the directory does not exist.
+     *
+     * @throws IOException
+     *             Error walking the directory tree.
+     */
+    public static Map<Path, BasicFileAttributes> modifiedSince(final File dir, final long startMillis) throws IOException {
+        final long since = startMillis - (startMillis % 1000);
+        final Map<Path, BasicFileAttributes> files = new TreeMap<>();
+        if (!dir.isDirectory()) {
+            return files;
+        }
+        Files.walkFileTree(dir.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && attrs.lastModifiedTime().toMillis() >= since) {
+                    files.put(file, attrs);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files;
+    }
+
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.fuin.srcgen4j.commons.DefaultContext;
+import org.fuin.utils4j.Utils4J;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JVM wide cache for generation contexts. Loading the class index and opening the jars for an {@link IndexedClassLoader} is expensive,
+ * so modules with the same classpath share one context, which lives as long as the class loader of the plugin. With a Maven daemon this
+ * spans several builds. A context without an index only wraps the given class loader, but it is cached the same way, so modules with the
+ * same classpath get the same instance. The key contains the path, size and last modification time of every jar and a stamp of the
+ * content of every directory, so a rebuilt jar or recompiled classes result in a new context. The class loader of an evicted context
+ * is closed and its JAXB contexts are removed from the {@link JaxbContextCache}. Class loaders are referenced weakly and contexts softly.
+ */
+public final class ContextCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ContextCache.class);
+
+    private static final int MAX_ENTRIES_PER_CLASS_LOADER = 32;
+
+    private static final Map<ClassLoader, Map<String, SoftReference<DefaultContext>>> CACHE = new WeakHashMap<>();
+
+    private static final AtomicLong HITS = new AtomicLong();
+
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    private ContextCache() {
+        throw new UnsupportedOperationException("It is not allowed to create an instance of a utility class");
+    }
+
+    /**
+     * Converts the entries to canonical files and removes duplicates and entries that do not exist. The order is kept.
+     *
+     * @param entries
+     *            Classpath entries - Cannot be NULL.
+     *
+     * @return Normalized classpath.
+     */
+    public static List<File> normalize(final List<File> entries) {
+        final Set<File> files = new LinkedHashSet<>();
+        for (final File entry : entries) {
+            final File file = Utils4J.getCanonicalFile(entry);
+            if (file.exists()) {
+                files.add(file);
+            } else {
+                LOG.debug("Ignored missing classpath entry: {}", file);
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<>(files));
+    }
+
+    /**
+     * Returns a cached context for the classpath. If an index directory is given, the context uses an {@link IndexedClassLoader} for
+     * the classpath with the given class loader as parent. Otherwise the context uses the given class loader.
+     *
+     * @param classLoader
+     *            Class loader of the context - Cannot be NULL.
+     * @param classpath
+     *            Normalized classpath, see {@link #normalize(List)} - Cannot be NULL.
+     * @param indexDir
+     *            Directory of the {@link ClassIndex} files or NULL to use only the given class loader.
+     *
+     * @return Context.
+     */
+    public static DefaultContext getOrCreate(final ClassLoader classLoader, final List<File> classpath, final File indexDir) {
+        final String key = (indexDir == null ? "" : indexDir.getPath()) + File.pathSeparatorChar + key(classpath);
+        synchronized (CACHE) {
+            final Map<String, SoftReference<DefaultContext>> contexts = CACHE.computeIfAbsent(classLoader, cl -> lru());
+            final SoftReference<DefaultContext> ref = contexts.get(key);
+            final DefaultContext cached = ref == null ? null : ref.get();
+            if (cached != null) {
+                LOG.debug("Context cache hit (hits={}, misses={})", HITS.incrementAndGet(), MISSES.get());
+                return cached;
+            }
+            final DefaultContext created;
+            if (indexDir == null) {
+                created = new DefaultContext(classLoader, classpath);
+            } else {
+                final ClassIndex index = ClassIndex.load(indexDir, classpath);
+                LOG.info("Class index: {}", index.getStatistics());
+                created = new DefaultContext(new IndexedClassLoader(classLoader, index), classpath);
+            }
+            contexts.put(key, new SoftReference<>(created));
+            LOG.debug("Context cache miss (hits={}, misses={})", HITS.get(), MISSES.incrementAndGet());
+            return created;
+        }
+    }
+
+    /**
+     * Removes all entries from the cache and closes the jar files of their class loaders.
+     */
+    public static void clear() {
+        synchronized (CACHE) {
+            for (final Map<String, SoftReference<DefaultContext>> contexts : CACHE.values()) {
+                for (final SoftReference<DefaultContext> ref : contexts.values()) {
+                    close(ref.get());
+                }
+            }
+            CACHE.clear();
+        }
+    }
+
+    private static String key(final List<File> classpath) {
+        final StringBuilder sb = new StringBuilder();
+        for (final File file : classpath) {
+            sb.append(file.getPath());
+            if (file.isFile()) {
+                sb.append('|').append(file.length()).append('|').append(file.lastModified());
+            } else if (file.isDirectory()) {
+                sb.append('|').append(directoryStamp(file));
+            }
+            sb.append(File.pathSeparatorChar);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the number of files, their total size and the latest modification time of all files and directories below a directory.
+     * Adding, changing or deleting a class changes the stamp, so a class loader never serves outdated classes of the project.
+     */
+    private static String directoryStamp(final File dir) {
+        final long[] stamp = new long[3];
+        try {
+            Files.walkFileTree(dir.toPath(), new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(final Path path, final BasicFileAttributes attrs) {
+                    stamp[2] = Math.max(stamp[2], attrs.lastModifiedTime().toMillis());
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(final Path path, final BasicFileAttributes attrs) {
+                    stamp[0]++;
+                    stamp[1] += attrs.size();
+                    stamp[2] = Math.max(stamp[2], attrs.lastModifiedTime().toMillis());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (final IOException ex) {
+            LOG.debug("Error reading classpath directory - Not cached: {}", dir, ex);
+            // Unique value that never matches an existing entry
+            return "?" + MISSES.get() + "|" + System.nanoTime();
+        }
+        return stamp[0] + "|" + stamp[1] + "|" + stamp[2];
+    }
+
+    private static Map<String, SoftReference<DefaultContext>> lru() {
+        return new LinkedHashMap<String, SoftReference<DefaultContext>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, SoftReference<DefaultContext>> eldest) {
+                if (size() <= MAX_ENTRIES_PER_CLASS_LOADER) {
+                    return false;
+                }
+                close(eldest.getValue().get());
+                return true;
+            }
+        };
+    }
+
+    private static void close(final DefaultContext context) {
+        if (context != null && context.getClassLoader() instanceof IndexedClassLoader) {
+            JaxbContextCache.remove(context.getClassLoader());
+            ((IndexedClassLoader) context.getClassLoader()).close();
+        }
+    }
+
+}
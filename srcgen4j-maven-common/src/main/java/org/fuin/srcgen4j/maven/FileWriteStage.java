@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes files asynchronously, so threads rendering content do not wait for the file system. At most 'capacity' files are pending and
+ * {@link #write(Path, byte[])} blocks if the limit is reached. Files are written by virtual threads if the JVM supports them (Java 21+)
+ * and by a fixed pool otherwise. Every directory is only created once. The first error is reported by the next call to
+ * {@link #write(Path, byte[])} or by {@link #close()}. Every file is reported as {@link GenerationEvents.GeneratedFile} to JFR. Existing
+ * files are only replaced if the target folder allows overriding them. The class is thread-safe.
+ */
+public final class FileWriteStage implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileWriteStage.class);
+
+    private final String name;
+
+    private final int capacity;
+
+    private final Semaphore permits;
+
+    private final ExecutorService executor;
+
+    private final Set<Path> createdDirs;
+
+    private final AtomicReference<IOException> failure;
+
+    private final boolean override;
+
+    private final AtomicLong skipped;
+
+    /**
+     * Constructor with all data.
+     *
+     * @param name
+     *            Name of the generator the files belong to - Cannot be NULL.
+     * @param capacity
+     *            Maximum number of files waiting to be written.
+     * @param poolSize
+     *            Number of threads used if the JVM does not support virtual threads.
+     * @param override
+     *            TRUE if existing files are replaced, FALSE if they are kept (like a folder with 'override=false').
+     */
+    public FileWriteStage(final String name, final int capacity, final int poolSize, final boolean override) {
+        super();
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be greater than zero, but was: " + capacity);
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.permits = new Semaphore(capacity);
+        this.executor = createExecutor(Math.max(1, poolSize));
+        this.createdDirs = ConcurrentHashMap.newKeySet();
+        this.failure = new AtomicReference<>();
+        this.override = override;
+        this.skipped = new AtomicLong();
+    }
+
+    /**
+     * Schedules a file to be written. Blocks while the maximum number of files is pending.
+     *
+     * @param file
+     *            File to write - Cannot be NULL.
+     * @param content
+     *            Content of the file - Cannot be NULL.
+     *
+     * @throws IOException
+     *             Writing this or a previous file failed.
+     * @throws InterruptedException
+     *             Interrupted while waiting for a free slot.
+     */
+    public void write(final Path file, final byte[] content) throws IOException, InterruptedException {
+        rethrow();
+        permits.acquire();
+        try {
+            executor.execute(() -> {
+                final GenerationEvents.GeneratedFile event = new GenerationEvents.GeneratedFile();
+                event.begin();
+                try {
+                    createDir(file.getParent());
+                    if (override) {
+                        Files.write(file, content);
+                    } else {
+                        Files.write(file, content, StandardOpenOption.CREATE_NEW);
+                    }
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.generator = name;
+                        event.path = file.toString();
+                        event.bytes = content.length;
+                        event.commit();
+                    }
+                } catch (final FileAlreadyExistsException ex) {
+                    LOG.debug("Existing file kept: {}", file);
+                    skipped.incrementAndGet();
+                } catch (final IOException ex) {
+                    failure.compareAndSet(null, ex);
+                } catch (final RuntimeException ex) {
+                    failure.compareAndSet(null, new IOException("Error writing: " + file, ex));
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (final RejectedExecutionException ex) {
+            permits.release();
+            throw new IOException("Write stage is already closed", ex);
+        }
+    }
+
+    /**
+     * Waits until all pending files are written and releases the threads.
+     *
+     * @throws IOException
+     *             Writing a file failed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            permits.acquire(capacity);
+            permits.release(capacity);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, new IOException("Interrupted while waiting for pending files", ex));
+        } finally {
+            executor.shutdownNow();
+        }
+        rethrow();
+    }
+
+    /**
+     * Returns the number of files that were not written because they already existed and overriding is not allowed.
+     *
+     * @return Number of kept files.
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    private void createDir(final Path dir) throws IOException {
+        if (dir != null && !createdDirs.contains(dir)) {
+            Files.createDirectories(dir);
+            createdDirs.add(dir);
+        }
+    }
+
+    private void rethrow() throws IOException {
+        final IOException ex = failure.get();
+        if (ex != null) {
+            throw ex;
+        }
+    }
+
+    private static ExecutorService createExecutor(final int poolSize) {
+        try {
+            final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            final ExecutorService executor = (ExecutorService) method.invoke(null);
+            LOG.debug("Writing files with virtual threads");
+            return executor;
+        } catch (final ReflectiveOperationException | RuntimeException ex) {
+            LOG.debug("Virtual threads not available - Writing files with {} threads", poolSize);
+            return Executors.newFixedThreadPool(poolSize, new WriterThreadFactory());
+        }
+    }
+
+    /**
+     * Creates named daemon threads for the fallback pool.
+     */
+    private static final class WriterThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "srcgen4j-io-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
@@ -0,0 +1,238 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Creates a SHA-256 hash over strings, file meta data and file contents.
+ */
+public final class Fingerprint {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final MessageDigest digest;
+
+    /**
+     * Default constructor.
+     */
+    public Fingerprint() {
+        super();
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    /**
+     * Adds a named value.
+     *
+     * @param key
+     *            Name of the value.
+     * @param value
+     *            Value or NULL.
+     *
+     * @return This instance.
+     */
+    public Fingerprint add(final String key, final String value) {
+        update(key);
+        update(String.valueOf(value));
+        return this;
+    }
+
+    /**
+     * Adds path, size and last modification time of a file. The content is not read.
+     *
+     * @param file
+     *            File to add.
+     *
+     * @return This instance.
+     *
+     * @throws IOException
+     *             Error reading the file attributes.
+     */
+    public Fingerprint addFileInfo(final Path file) throws IOException {
+        final BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        update(file.toString());
+        update(Long.toString(attrs.size()));
+        update(Long.toString(attrs.lastModifiedTime().toMillis()));
+        return this;
+    }
+
+    /**
+     * Adds path, size and last modification time of all files below an input.
+     *
+     * @param input
+     *            Input to add.
+     *
+     * @return This instance.
+     *
+     * @throws IOException
+     *             Error reading the files.
+     */
+    public Fingerprint addFileInfos(final InputRoot input) throws IOException {
+        update(input.toString());
+        for (final Path file : input.listFiles()) {
+            addFileInfo(file);
+        }
+        return this;
+    }
+
+    /**
+     * Adds the content of all files below an input together with their paths relative to a base directory. Paths outside the base
+     * directory are added as they are. The result does not change if the base directory is moved together with the input.
+     *
+     * @param input
+     *            Input to add.
+     * @param baseDir
+     *            Directory the paths are relative to.
+     *
+     * @return This instance.
+     *
+     * @throws IOException
+     *             Error reading the files.
+     */
+    public Fingerprint addContents(final InputRoot input, final Path baseDir) throws IOException {
+        update(relative(input.getDir().toPath(), baseDir) + "|" + input.getFilter());
+        for (final Path file : input.listFiles()) {
+            update(relative(file, baseDir));
+            try (final InputStream in = Files.newInputStream(file)) {
+                update(in);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds path and content of all files below an input.
+     *
+     * @param input
+     *            Input to add.
+     *
+     * @return This instance.
+     *
+     * @throws IOException
+     *             Error reading the files.
+     */
+    public Fingerprint addContents(final InputRoot input) throws IOException {
+        update(input.toString());
+        for (final Path file : input.listFiles()) {
+            update(file.toString());
+            try (final InputStream in = Files.newInputStream(file)) {
+                update(in);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds the content of a file.
+     *
+     * @param file
+     *            File to read.
+     *
+     * @return This instance.
+     *
+     * @throws IOException
+     *             Error reading the file.
+     */
+    public Fingerprint addContent(final File file) throws IOException {
+        update(file.getPath());
+        try (final InputStream in = Files.newInputStream(file.toPath())) {
+            update(in);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the SHA-256 hash of a file's content.
+     *
+     * @param file
+     *            File to read.
+     *
+     * @return Hex encoded hash.
+     *
+     * @throws IOException
+     *             Error reading the file.
+     */
+    public static String contentHash(final Path file) throws IOException {
+        final Fingerprint fingerprint = new Fingerprint();
+        try (final InputStream in = Files.newInputStream(file)) {
+            fingerprint.update(in);
+        }
+        return fingerprint.toHex();
+    }
+
+    /**
+     * Returns the hash and resets the instance.
+     *
+     * @return Hex encoded hash.
+     */
+    public String toHex() {
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Returns the hex representation of a byte array.
+     *
+     * @param bytes
+     *            Bytes to convert.
+     *
+     * @return Lower case hex string.
+     */
+    public static String toHex(final byte[] bytes) {
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    private static String relative(final Path path, final Path baseDir) {
+        if (path.startsWith(baseDir)) {
+            return baseDir.relativize(path).toString().replace(File.separatorChar, '/');
+        }
+        return path.toString();
+    }
+
+    private void update(final InputStream in) throws IOException {
+        final byte[] buf = new byte[BUFFER_SIZE];
+        int count;
+        while ((count = in.read(buf)) > 0) {
+            digest.update(buf, 0, count);
+        }
+    }
+
+    private void update(final String str) {
+        digest.update(str.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+}
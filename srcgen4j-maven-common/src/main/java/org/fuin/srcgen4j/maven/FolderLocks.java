@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.fuin.utils4j.Utils4J;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JVM wide locks for output folders. Executions that run in parallel (for example modules of a 'mvn -T' build) and write to the same
+ * folder are serialized, while executions with distinct folders run concurrently. Locks are always acquired in the order of the canonical
+ * paths, so two executions cannot deadlock.
+ */
+public final class FolderLocks {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FolderLocks.class);
+
+    private static final ConcurrentMap<String, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+
+    private FolderLocks() {
+        throw new UnsupportedOperationException("It is not allowed to create an instance of a utility class");
+    }
+
+    /**
+     * Acquires the locks for all directories. Blocks until all locks are available.
+     *
+     * @param dirs
+     *            Directories to lock - Cannot be NULL.
+     *
+     * @return Handle that releases the locks when closed.
+     *
+     * @throws InterruptedException
+     *             The thread was interrupted while waiting.
+     */
+    public static Handle lock(final Collection<File> dirs) throws InterruptedException {
+        final TreeSet<String> paths = new TreeSet<>();
+        for (final File dir : dirs) {
+            paths.add(Utils4J.getCanonicalFile(dir).getPath());
+        }
+        final List<ReentrantLock> acquired = new ArrayList<>();
+        try {
+            for (final String path : paths) {
+                final ReentrantLock lock = LOCKS.computeIfAbsent(path, p -> new ReentrantLock());
+                if (!lock.tryLock()) {
+                    LOG.debug("Waiting for folder used by another execution: {}", path);
+                    lock.lockInterruptibly();
+                }
+                acquired.add(lock);
+            }
+        } catch (final InterruptedException ex) {
+            unlock(acquired);
+            throw ex;
+        }
+        return new Handle(acquired);
+    }
+
+    private static void unlock(final List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    /**
+     * Releases the acquired locks.
+     */
+    public static final class Handle implements AutoCloseable {
+
+        private final List<ReentrantLock> locks;
+
+        private Handle(final List<ReentrantLock> locks) {
+            this.locks = locks;
+        }
+
+        @Override
+        public void close() {
+            unlock(locks);
+        }
+
+    }
+
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events of a generation run. Events are only committed if a recording enables them, so without a recording
+ * creating an event is all that happens. {@link GeneratedFile} produces one event per file and is therefore disabled by default. It has
+ * to be enabled explicitly, for example with a JFC file or <code>jfr configure</code>.
+ */
+public final class GenerationEvents {
+
+    private static final String CATEGORY = "SrcGen4J";
+
+    private GenerationEvents() {
+        throw new UnsupportedOperationException("It is not allowed to create an instance of a utility class");
+    }
+
+    /**
+     * Reading and initializing a configuration file.
+     */
+    @Name("org.fuin.srcgen4j.ConfigLoad")
+    @Label("Config Load")
+    @Category(CATEGORY)
+    @Description("Unmarshalling and initializing a SrcGen4J configuration file")
+    public static final class ConfigLoad extends Event {
+
+        /** Configuration file. */
+        @Label("Config File")
+        public String configFile;
+
+    }
+
+    /**
+     * Creating a JAXB context. Contexts taken from the {@link JaxbContextCache} do not create an event.
+     */
+    @Name("org.fuin.srcgen4j.JaxbContext")
+    @Label("JAXB Context")
+    @Category(CATEGORY)
+    @Description("Creating a JAXB context for the configuration classes")
+    public static final class JaxbContext extends Event {
+
+        /** Names of the classes bound to the context. */
+        @Label("Classes")
+        public String classes;
+
+    }
+
+    /**
+     * Execution of a parser.
+     */
+    @Name("org.fuin.srcgen4j.Parser")
+    @Label("Parser")
+    @Category(CATEGORY)
+    @Description("Execution of a parser or loading its model from a cache")
+    public static final class Parser extends Event {
+
+        /** Name of the parser. */
+        @Label("Name")
+        public String name;
+
+        /** Class of the parser. */
+        @Label("Class")
+        public String className;
+
+        /** TRUE if a model was returned. */
+        @Label("Success")
+        public boolean success;
+
+    }
+
+    /**
+     * Execution of a generator.
+     */
+    @Name("org.fuin.srcgen4j.Generator")
+    @Label("Generator")
+    @Category(CATEGORY)
+    @Description("Execution of a generator")
+    public static final class Generator extends Event {
+
+        /** Name of the generator. */
+        @Label("Name")
+        public String name;
+
+        /** Class of the generator. */
+        @Label("Class")
+        public String className;
+
+        /** TRUE if the generator finished normally. */
+        @Label("Success")
+        public boolean success;
+
+    }
+
+    /**
+     * A generated file. For files written by the plugin the duration is the time needed for writing. Files written by generators
+     * of srcgen4j-core are determined after the generator finished and have no duration.
+     */
+    @Name("org.fuin.srcgen4j.GeneratedFile")
+    @Label("Generated File")
+    @Category(CATEGORY)
+    @Description("A file written by a generator")
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class GeneratedFile extends Event {
+
+        /** Name of the generator or NULL if unknown. */
+        @Label("Generator")
+        public String generator;
+
+        /** Path of the file. */
+        @Label("Path")
+        public String path;
+
+        /** Size of the file. */
+        @Label("Size")
+        @DataAmount
+        public long bytes;
+
+    }
+
+}
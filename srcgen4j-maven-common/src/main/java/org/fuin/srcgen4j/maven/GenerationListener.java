@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+
+import org.fuin.srcgen4j.commons.GeneratorConfig;
+import org.fuin.srcgen4j.commons.ParserConfig;
+
+/**
+ * Gets informed about the parsers and generators executed by {@link ParallelSrcGen4J}. Methods may be called concurrently from
+ * different worker threads.
+ */
+public interface GenerationListener {
+
+    /**
+     * The content of a folder marked with 'clean' was deleted.
+     *
+     * @param dir
+     *            Cleaned directory.
+     * @param nanos
+     *            Wall time the deletion took in nanoseconds.
+     */
+    default void folderCleaned(final File dir, final long nanos) {
+        // Do nothing
+    }
+
+    /**
+     * A parser is about to start.
+     *
+     * @param parserConfig
+     *            Parser.
+     */
+    default void parserStarted(final ParserConfig parserConfig) {
+        // Do nothing
+    }
+
+    /**
+     * A parser has finished.
+     *
+     * @param parserConfig
+     *            Parser.
+     * @param nanos
+     *            Wall time the parser took in nanoseconds.
+     * @param success
+     *            TRUE if the parser returned a model or FALSE if it failed.
+     */
+    default void parserFinished(final ParserConfig parserConfig, final long nanos, final boolean success) {
+        // Do nothing
+    }
+
+    /**
+     * A generator is about to start.
+     *
+     * @param generatorConfig
+     *            Generator.
+     */
+    default void generatorStarted(final GeneratorConfig generatorConfig) {
+        // Do nothing
+    }
+
+    /**
+     * A generator has finished.
+     *
+     * @param generatorConfig
+     *            Generator.
+     * @param nanos
+     *            Wall time the generator took in nanoseconds.
+     * @param success
+     *            TRUE if the generator finished normally or FALSE if it failed.
+     */
+    default void generatorFinished(final GeneratorConfig generatorConfig, final long nanos, final boolean success) {
+        // Do nothing
+    }
+
+}
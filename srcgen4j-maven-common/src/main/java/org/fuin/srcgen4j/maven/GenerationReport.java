@@ -0,0 +1,303 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.fuin.srcgen4j.commons.GeneratorConfig;
+import org.fuin.srcgen4j.commons.ParserConfig;
+import org.fuin.srcgen4j.commons.SrcGen4JConfig;
+
+/**
+ * Collects the wall time of the phases of a generation run and of every parser and generator. Files and bytes written by a generator
+ * are determined from the files in its output folders that were modified while it was running. The folders are scanned once when the
+ * report is finished, no matter how many generators write to them. If several generators write to the same folder at the same time,
+ * their numbers overlap.
+ */
+public final class GenerationReport implements GenerationListener {
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    private final String name;
+
+    private final long startNanos;
+
+    private final Map<String, Long> phases;
+
+    private final Map<String, Long> parsers;
+
+    private final Map<String, GeneratorStats> generators;
+
+    private final Map<String, Long> generatorStarts;
+
+    private SrcGen4JConfig config;
+
+    private long totalNanos;
+
+    /**
+     * Constructor with name. The total time starts with the creation of the instance.
+     *
+     * @param name
+     *            Name of the report, for example the configuration file.
+     */
+    public GenerationReport(final String name) {
+        super();
+        this.name = name;
+        this.startNanos = System.nanoTime();
+        this.phases = new LinkedHashMap<>();
+        this.parsers = new LinkedHashMap<>();
+        this.generators = new LinkedHashMap<>();
+        this.generatorStarts = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Sets the configuration used for determining the output folders of the generators.
+     *
+     * @param config
+     *            Initialized configuration.
+     */
+    public void setConfig(final SrcGen4JConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Adds time to a phase.
+     *
+     * @param phase
+     *            Name of the phase.
+     * @param nanos
+     *            Time in nanoseconds.
+     */
+    public synchronized void phase(final String phase, final long nanos) {
+        final Long current = phases.get(phase);
+        phases.put(phase, current == null ? nanos : current + nanos);
+    }
+
+    /**
+     * Stops the total time and counts the files written by every generator.
+     */
+    public synchronized void finish() {
+        totalNanos = System.nanoTime() - startNanos;
+        countFiles();
+    }
+
+    private void countFiles() {
+        if (config == null) {
+            return;
+        }
+        final Map<File, List<GeneratorStats>> writers = new LinkedHashMap<>();
+        for (final GeneratorStats stats : generators.values()) {
+            for (final File dir : stats.dirs) {
+                writers.computeIfAbsent(dir, key -> new ArrayList<>()).add(stats);
+            }
+        }
+        for (final Map.Entry<File, List<GeneratorStats>> entry : writers.entrySet()) {
+            long since = Long.MAX_VALUE;
+            for (final GeneratorStats stats : entry.getValue()) {
+                since = Math.min(since, stats.startMillis);
+            }
+            try {
+                for (final BasicFileAttributes attrs : ConfigUtils.modifiedSince(entry.getKey(), since).values()) {
+                    final long modified = attrs.lastModifiedTime().toMillis();
+                    for (final GeneratorStats stats : entry.getValue()) {
+                        if (stats.wrote(modified)) {
+                            stats.files++;
+                            stats.bytes += attrs.size();
+                        }
+                    }
+                }
+            } catch (final IOException ex) {
+                // Statistics are not essential
+                for (final GeneratorStats stats : entry.getValue()) {
+                    stats.files = -1;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void folderCleaned(final File dir, final long nanos) {
+        phase("clean", nanos);
+    }
+
+    @Override
+    public synchronized void parserFinished(final ParserConfig parserConfig, final long nanos, final boolean success) {
+        parsers.put(parserConfig.getName(), nanos);
+    }
+
+    @Override
+    public void generatorStarted(final GeneratorConfig generatorConfig) {
+        generatorStarts.put(generatorConfig.getName(), System.currentTimeMillis());
+    }
+
+    @Override
+    public void generatorFinished(final GeneratorConfig generatorConfig, final long nanos, final boolean success) {
+        final Long started = generatorStarts.remove(generatorConfig.getName());
+        final GeneratorStats stats = new GeneratorStats(nanos, started == null ? System.currentTimeMillis() : started,
+                System.currentTimeMillis());
+        if (config != null && started != null) {
+            // The folders are scanned by finish()
+            stats.dirs.addAll(ConfigUtils.outputDirs(config, generatorConfig));
+        }
+        synchronized (this) {
+            generators.put(generatorConfig.getName(), stats);
+        }
+    }
+
+    /**
+     * Returns a human readable table with all numbers.
+     *
+     * @return Lines of the table.
+     */
+    public synchronized List<String> toTable() {
+        final List<String> lines = new ArrayList<>();
+        lines.add("SrcGen4J report: " + name);
+        lines.add(String.format(Locale.ROOT, "  %-40s %10s %8s %12s %10s", "Step", "Time [ms]", "Files", "Bytes", "Files/s"));
+        for (final Map.Entry<String, Long> entry : phases.entrySet()) {
+            lines.add(String.format(Locale.ROOT, "  %-40s %10.1f", entry.getKey(), millis(entry.getValue())));
+        }
+        for (final Map.Entry<String, Long> entry : parsers.entrySet()) {
+            lines.add(String.format(Locale.ROOT, "  %-40s %10.1f", "parser " + entry.getKey(), millis(entry.getValue())));
+        }
+        for (final Map.Entry<String, GeneratorStats> entry : generators.entrySet()) {
+            final GeneratorStats stats = entry.getValue();
+            lines.add(String.format(Locale.ROOT, "  %-40s %10.1f %8d %12d %10.1f", "generator " + entry.getKey(), millis(stats.nanos),
+                    stats.files, stats.bytes, stats.filesPerSecond()));
+        }
+        lines.add(String.format(Locale.ROOT, "  %-40s %10.1f", "total", millis(totalNanos)));
+        return lines;
+    }
+
+    /**
+     * Writes the report in JSON format.
+     *
+     * @param file
+     *            File to write.
+     *
+     * @throws IOException
+     *             Error writing the file.
+     */
+    public synchronized void writeJson(final File file) throws IOException {
+        Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        try (final Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("{\n");
+            writer.write("  \"name\": " + quote(name) + ",\n");
+            writer.write("  \"totalMillis\": " + format(millis(totalNanos)) + ",\n");
+            writer.write("  \"phases\": [");
+            String sep = "\n";
+            for (final Map.Entry<String, Long> entry : phases.entrySet()) {
+                writer.write(sep + "    { \"name\": " + quote(entry.getKey()) + ", \"millis\": " + format(millis(entry.getValue())) + " }");
+                sep = ",\n";
+            }
+            writer.write("\n  ],\n");
+            writer.write("  \"parsers\": [");
+            sep = "\n";
+            for (final Map.Entry<String, Long> entry : parsers.entrySet()) {
+                writer.write(sep + "    { \"name\": " + quote(entry.getKey()) + ", \"millis\": " + format(millis(entry.getValue())) + " }");
+                sep = ",\n";
+            }
+            writer.write("\n  ],\n");
+            writer.write("  \"generators\": [");
+            sep = "\n";
+            for (final Map.Entry<String, GeneratorStats> entry : generators.entrySet()) {
+                final GeneratorStats stats = entry.getValue();
+                writer.write(sep + "    { \"name\": " + quote(entry.getKey()) + ", \"millis\": " + format(millis(stats.nanos))
+                        + ", \"files\": " + stats.files + ", \"bytes\": " + stats.bytes + ", \"filesPerSecond\": "
+                        + format(stats.filesPerSecond()) + " }");
+                sep = ",\n";
+            }
+            writer.write("\n  ]\n");
+            writer.write("}\n");
+        }
+    }
+
+    private static double millis(final long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+
+    private static String format(final double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String quote(final String str) {
+        final StringBuilder sb = new StringBuilder("\"");
+        for (final char ch : String.valueOf(str).toCharArray()) {
+            if (ch == '"' || ch == '\\') {
+                sb.append('\\').append(ch);
+            } else if (ch < ' ') {
+                sb.append(String.format(Locale.ROOT, "\\u%04x", (int) ch));
+            } else {
+                sb.append(ch);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Numbers for a single generator.
+     */
+    private static final class GeneratorStats {
+
+        private final long nanos;
+
+        private final long startMillis;
+
+        private final long endMillis;
+
+        private final List<File> dirs;
+
+        private long files;
+
+        private long bytes;
+
+        GeneratorStats(final long nanos, final long startMillis, final long endMillis) {
+            this.nanos = nanos;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.dirs = new ArrayList<>();
+        }
+
+        boolean wrote(final long modifiedMillis) {
+            // File systems with a resolution of one second truncate the timestamp
+            return modifiedMillis >= startMillis - (startMillis % 1000) && modifiedMillis <= endMillis;
+        }
+
+        double filesPerSecond() {
+            final double millis = millis(nanos);
+            if (files <= 0 || millis <= 0) {
+                return 0.0;
+            }
+            return files * MILLIS_PER_SECOND / millis;
+        }
+
+    }
+
+}
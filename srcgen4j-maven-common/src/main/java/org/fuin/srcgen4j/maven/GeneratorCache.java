@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import org.fuin.srcgen4j.commons.GeneratorConfig;
+
+/**
+ * Stores the output of generators and restores it instead of executing the generator again. Used by {@link ParallelSrcGen4J}.
+ */
+public interface GeneratorCache {
+
+    /** Cache that never contains anything. */
+    GeneratorCache NONE = new GeneratorCache() {
+        @Override
+        public boolean restore(final GeneratorConfig generatorConfig) {
+            return false;
+        }
+
+        @Override
+        public void store(final GeneratorConfig generatorConfig, final long startMillis) {
+            // Nothing to store
+        }
+    };
+
+    /**
+     * Restores the output of a generator if the cache contains it for the current inputs. Called before any parser is executed.
+     *
+     * @param generatorConfig
+     *            Configuration of the generator - Cannot be NULL.
+     *
+     * @return TRUE if the output was restored and the generator does not need to run.
+     */
+    boolean restore(GeneratorConfig generatorConfig);
+
+    /**
+     * Stores the output of a generator that finished successfully. May be called concurrently.
+     *
+     * @param generatorConfig
+     *            Configuration of the generator - Cannot be NULL.
+     * @param startMillis
+     *            Time the generator started, see {@link System#currentTimeMillis()}.
+     */
+    void store(GeneratorConfig generatorConfig, long startMillis);
+
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+/**
+ * Class loader for the classpath of a project that uses a {@link ClassIndex} to find the jar files of a class or resource. A lookup
+ * opens only the jars that contain the package, and a class or resource of an unknown package is rejected without opening any jar.
+ * Loading is delegated to the parent first. The directories of the classpath are searched before the jars, as Maven puts the output
+ * directory of the project first. Jar files are opened on first use and stay open until {@link #close()} is called.
+ */
+public final class IndexedClassLoader extends ClassLoader implements Closeable {
+
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    private final ClassIndex index;
+
+    private final Map<File, JarFile> jarFiles;
+
+    private final Map<File, ProtectionDomain> protectionDomains;
+
+    /**
+     * Constructor with all data.
+     *
+     * @param parent
+     *            Parent class loader - Cannot be NULL.
+     * @param index
+     *            Index of the classpath - Cannot be NULL.
+     */
+    public IndexedClassLoader(final ClassLoader parent, final ClassIndex index) {
+        super(parent);
+        this.index = index;
+        this.jarFiles = new ConcurrentHashMap<>();
+        this.protectionDomains = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    protected Class<?> findClass(final String name) throws ClassNotFoundException {
+        final String path = name.replace('.', '/') + ".class";
+        try {
+            for (final File entry : candidates(path)) {
+                final byte[] bytes = read(entry, path);
+                if (bytes != null) {
+                    definePackage(name);
+                    return defineClass(name, bytes, 0, bytes.length, protectionDomain(entry));
+                }
+            }
+        } catch (final IOException ex) {
+            throw new ClassNotFoundException(name, ex);
+        }
+        throw new ClassNotFoundException(name);
+    }
+
+    @Override
+    protected URL findResource(final String name) {
+        final List<URL> urls = urls(name, true);
+        if (urls.isEmpty()) {
+            return null;
+        }
+        return urls.get(0);
+    }
+
+    @Override
+    protected Enumeration<URL> findResources(final String name) {
+        return Collections.enumeration(urls(name, false));
+    }
+
+    /**
+     * Closes all jar files opened so far. A jar file that is needed again afterwards is opened again.
+     */
+    @Override
+    public void close() {
+        for (final File jar : new ArrayList<>(jarFiles.keySet())) {
+            final JarFile jarFile = jarFiles.remove(jar);
+            if (jarFile != null) {
+                try {
+                    jarFile.close();
+                } catch (final IOException ex) {
+                    // Nothing more to release
+                    continue;
+                }
+            }
+        }
+    }
+
+    private List<File> candidates(final String path) {
+        final int slash = path.lastIndexOf('/');
+        final List<File> jars = index.getJars(slash < 0 ? "" : path.substring(0, slash));
+        if (index.getDirectories().isEmpty()) {
+            return jars;
+        }
+        final List<File> candidates = new ArrayList<>(index.getDirectories());
+        candidates.addAll(jars);
+        return candidates;
+    }
+
+    private List<URL> urls(final String name, final boolean first) {
+        final List<URL> urls = new ArrayList<>();
+        for (final File entry : candidates(name)) {
+            try {
+                if (entry.isDirectory()) {
+                    final File file = new File(entry, name);
+                    if (file.isFile()) {
+                        urls.add(file.toURI().toURL());
+                    }
+                } else if (jarFile(entry).getEntry(name) != null) {
+                    urls.add(new URL("jar:" + entry.toURI() + "!/" + name));
+                }
+            } catch (final IOException ex) {
+                // Like URLClassLoader, an unreadable entry does not contain the resource
+                continue;
+            }
+            if (first && !urls.isEmpty()) {
+                break;
+            }
+        }
+        return urls;
+    }
+
+    private byte[] read(final File entry, final String path) throws IOException {
+        if (entry.isDirectory()) {
+            final File file = new File(entry, path);
+            if (!file.isFile()) {
+                return null;
+            }
+            return Files.readAllBytes(file.toPath());
+        }
+        final JarFile jarFile = jarFile(entry);
+        final ZipEntry zipEntry = jarFile.getEntry(path);
+        if (zipEntry == null) {
+            return null;
+        }
+        try (final InputStream in = jarFile.getInputStream(zipEntry)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private JarFile jarFile(final File jar) throws IOException {
+        final JarFile jarFile = jarFiles.get(jar);
+        if (jarFile != null) {
+            return jarFile;
+        }
+        final JarFile opened = new JarFile(jar, false);
+        final JarFile existing = jarFiles.putIfAbsent(jar, opened);
+        if (existing != null) {
+            opened.close();
+            return existing;
+        }
+        return opened;
+    }
+
+    private ProtectionDomain protectionDomain(final File entry) {
+        return protectionDomains.computeIfAbsent(entry,
+                file -> new ProtectionDomain(new CodeSource(url(file), (Certificate[]) null), null, this, null));
+    }
+
+    private static URL url(final File file) {
+        try {
+            return file.toURI().toURL();
+        } catch (final MalformedURLException ex) {
+            throw new IllegalStateException("Cannot convert to URL: " + file, ex);
+        }
+    }
+
+    private void definePackage(final String className) {
+        final int dot = className.lastIndexOf('.');
+        if (dot < 0) {
+            return;
+        }
+        final String packageName = className.substring(0, dot);
+        if (getDefinedPackage(packageName) == null) {
+            try {
+                definePackage(packageName, null, null, null, null, null, null, null);
+            } catch (final IllegalArgumentException ex) {
+                // Defined concurrently by another thread
+                return;
+            }
+        }
+    }
+
+}
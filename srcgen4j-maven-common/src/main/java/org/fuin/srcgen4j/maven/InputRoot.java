@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A file or directory read by a parser or generator, optionally restricted by a regular expression filter.
+ */
+public final class InputRoot {
+
+    private final File dir;
+
+    private final Pattern filter;
+
+    /**
+     * Constructor with all data.
+     *
+     * @param dir
+     *            File or directory - Cannot be NULL.
+     * @param filter
+     *            Regular expression a file must match to be included or NULL to include all files.
+     */
+    public InputRoot(final File dir, final Pattern filter) {
+        super();
+        this.dir = dir;
+        this.filter = filter;
+    }
+
+    /**
+     * Returns the file or directory.
+     *
+     * @return File or directory.
+     */
+    public File getDir() {
+        return dir;
+    }
+
+    /**
+     * Returns the filter.
+     *
+     * @return Regular expression or NULL if all files are included.
+     */
+    public Pattern getFilter() {
+        return filter;
+    }
+
+    /**
+     * Determines if a file is matched by the filter. The name, the path relative to the root and the absolute path are tested, so a
+     * filter matches if any of them matches.
+     *
+     * @param file
+     *            File to test.
+     *
+     * @return TRUE if the file is included.
+     */
+    public boolean accepts(final Path file) {
+        if (filter == null) {
+            return true;
+        }
+        final String relative = dir.toPath().relativize(file).toString().replace(File.separatorChar, '/');
+        return filter.matcher(file.getFileName().toString()).matches() || filter.matcher(relative).matches()
+                || filter.matcher(file.toString()).matches();
+    }
+
+    /**
+     * Determines if a file is located below the root and is accepted by the filter.
+     *
+     * @param file
+     *            File to test.
+     *
+     * @return TRUE if the file belongs to this input.
+     */
+    public boolean contains(final Path file) {
+        final Path root = dir.toPath();
+        if (file.equals(root)) {
+            return true;
+        }
+        return file.startsWith(root) && accepts(file);
+    }
+
+    /**
+     * Returns all files below the root that are accepted by the filter, sorted by path.
+     *
+     * @return Sorted list of files - Never NULL.
+     *
+     * @throws IOException
+     *             Error walking the directory tree.
+     */
+    public List<Path> listFiles() throws IOException {
+        final Path root = dir.toPath();
+        if (!Files.exists(root)) {
+            return Collections.emptyList();
+        }
+        if (Files.isRegularFile(root)) {
+            return Collections.singletonList(root);
+        }
+        final List<Path> files = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && accepts(file)) {
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(files);
+        return files;
+    }
+
+    @Override
+    public String toString() {
+        return filter == null ? dir.toString() : dir + " [" + filter + "]";
+    }
+
+}
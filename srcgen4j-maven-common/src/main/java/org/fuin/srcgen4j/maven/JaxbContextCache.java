@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JVM wide cache for JAXB contexts. The key is the class loader used to load the classes plus the names of the classes bound to the
+ * context. Class loaders and contexts are referenced weakly: A context references its classes and therefore their class loader, so a
+ * softly referenced context would keep a plugin realm alive until the memory runs low. A context is shared as long as it is in use, for
+ * example by modules that are built in parallel, and the entries of a class loader are removed when {@link ContextCache} closes it.
+ */
+public final class JaxbContextCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JaxbContextCache.class);
+
+    private static final Map<ClassLoader, Map<Set<String>, WeakReference<JAXBContext>>> CACHE = new WeakHashMap<>();
+
+    private static final AtomicLong HITS = new AtomicLong();
+
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    private JaxbContextCache() {
+        throw new UnsupportedOperationException("It is not allowed to create an instance of a utility class");
+    }
+
+    /**
+     * Returns a cached JAXB context or creates a new one if there is no context for the classes.
+     *
+     * @param classLoader
+     *            Class loader that was used to load the classes - Cannot be NULL.
+     * @param classes
+     *            Classes to be bound to the context - Cannot be NULL.
+     *
+     * @return JAXB context.
+     *
+     * @throws JAXBException
+     *             Error creating the context.
+     */
+    public static JAXBContext getOrCreate(final ClassLoader classLoader, final Class<?>[] classes) throws JAXBException {
+        final Set<String> key = new TreeSet<>();
+        for (final Class<?> clasz : classes) {
+            key.add(clasz.getName());
+        }
+
+        final Map<Set<String>, WeakReference<JAXBContext>> contexts;
+        synchronized (CACHE) {
+            contexts = CACHE.computeIfAbsent(classLoader, cl -> new ConcurrentHashMap<>());
+        }
+        final WeakReference<JAXBContext> ref = contexts.get(key);
+        final JAXBContext cached = ref == null ? null : ref.get();
+        if (cached != null) {
+            LOG.debug("JAXB context cache hit (hits={}, misses={}): {}", HITS.incrementAndGet(), MISSES.get(), key);
+            return cached;
+        }
+
+        // Concurrent callers with the same class loader wait instead of creating the same context again
+        synchronized (contexts) {
+            final WeakReference<JAXBContext> current = contexts.get(key);
+            final JAXBContext other = current == null ? null : current.get();
+            if (other != null) {
+                LOG.debug("JAXB context cache hit (hits={}, misses={}): {}", HITS.incrementAndGet(), MISSES.get(), key);
+                return other;
+            }
+            final GenerationEvents.JaxbContext event = new GenerationEvents.JaxbContext();
+            event.begin();
+            final JAXBContext created = JAXBContext.newInstance(classes);
+            event.end();
+            if (event.shouldCommit()) {
+                event.classes = key.toString();
+                event.commit();
+            }
+            contexts.put(key, new WeakReference<>(created));
+            LOG.debug("JAXB context cache miss (hits={}, misses={}): {}", HITS.get(), MISSES.incrementAndGet(), key);
+            return created;
+        }
+    }
+
+    /**
+     * Removes the contexts created for a class loader.
+     *
+     * @param classLoader
+     *            Class loader that is no longer used - Cannot be NULL.
+     */
+    static void remove(final ClassLoader classLoader) {
+        synchronized (CACHE) {
+            CACHE.remove(classLoader);
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+}
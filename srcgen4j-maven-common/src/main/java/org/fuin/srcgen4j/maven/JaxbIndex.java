@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Index of the JAXB classes that jar files publish for the SrcGen4J configuration. Every jar may contain a resource
+ * {@link #RESOURCE} with one fully qualified class name per line. Empty lines and lines starting with '#' are ignored. The resource is
+ * usually created at build time by the <code>JaxbIndexProcessor</code> of the 'srcgen4j-maven-jaxb-index' artifact, so no classpath
+ * scanning is necessary at runtime.
+ */
+public final class JaxbIndex {
+
+    /** Name of the index resource. */
+    public static final String RESOURCE = "META-INF/srcgen4j/jaxb.index";
+
+    private JaxbIndex() {
+        throw new UnsupportedOperationException("It is not allowed to create an instance of a utility class");
+    }
+
+    /**
+     * Reads all index resources visible to a class loader.
+     *
+     * @param classLoader
+     *            Class loader to use - Cannot be NULL.
+     *
+     * @return Class names in classpath order mapped to the index resource that lists them.
+     *
+     * @throws IOException
+     *             Error reading an index resource.
+     */
+    public static Map<String, URL> read(final ClassLoader classLoader) throws IOException {
+        final Map<String, URL> names = new LinkedHashMap<>();
+        final Enumeration<URL> urls = classLoader.getResources(RESOURCE);
+        while (urls.hasMoreElements()) {
+            final URL url = urls.nextElement();
+            try (final BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    final String name = line.trim();
+                    if (!name.isEmpty() && !name.startsWith("#")) {
+                        names.putIfAbsent(name, url);
+                    }
+                }
+            }
+        }
+        return names;
+    }
+
+}
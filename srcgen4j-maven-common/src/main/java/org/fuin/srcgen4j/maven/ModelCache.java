@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.fuin.srcgen4j.commons.ParseException;
+import org.fuin.srcgen4j.commons.ParserConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores the models created by parsers on disk. The key of a model is the resolved parser definition, the path and content of all input
+ * files of the parser and a salt provided by the caller (for example the plugin version and the classpath). If the key is unchanged, the
+ * model is deserialized instead of parsed. Only parsers with known inputs (see {@link RawConfig}) and models that are
+ * {@link java.io.Serializable} are cached. Any problem reading the cache results in a normal parser run.
+ */
+public final class ModelCache implements ModelProvider {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ModelCache.class);
+
+    private final File dir;
+
+    private final String salt;
+
+    private final ClassLoader classLoader;
+
+    private final Map<String, RawConfig.ParserEntry> entries;
+
+    private final String configId;
+
+    /**
+     * Constructor with all data.
+     *
+     * @param dir
+     *            Directory for the cache files - Cannot be NULL.
+     * @param rawConfig
+     *            Configuration that lists the inputs of the parsers - Cannot be NULL.
+     * @param salt
+     *            Additional data for the key - Cannot be NULL.
+     * @param classLoader
+     *            Class loader used to load the model classes - Cannot be NULL.
+     */
+    public ModelCache(final File dir, final RawConfig rawConfig, final String salt, final ClassLoader classLoader) {
+        super();
+        this.dir = dir;
+        this.salt = salt;
+        this.classLoader = classLoader;
+        this.entries = new HashMap<>();
+        for (final RawConfig.ParserEntry entry : rawConfig.getParsers()) {
+            if (entry.isResolved() && !entry.getInputs().isEmpty()) {
+                entries.put(entry.getName(), entry);
+            }
+        }
+        this.configId = new Fingerprint().add("configFile", rawConfig.getFile().getPath()).toHex().substring(0, 16);
+    }
+
+    @Override
+    public Object getModel(final ParserConfig parserConfig) throws ParseException {
+        final RawConfig.ParserEntry entry = entries.get(parserConfig.getName());
+        if (entry == null) {
+            LOG.debug("Inputs of parser '{}' are unknown - Not cached", parserConfig.getName());
+            return parserConfig.getParser().parse();
+        }
+        final File file = new File(dir, configId + "-" + new Fingerprint().add("parser", entry.getName()).toHex().substring(0, 16)
+                + ".ser.gz");
+        final String key;
+        try {
+            key = key(entry);
+        } catch (final IOException ex) {
+            LOG.debug("Error reading inputs of parser '{}' - Not cached", parserConfig.getName(), ex);
+            return parserConfig.getParser().parse();
+        }
+
+        final Object cached = read(file, key);
+        if (cached != null) {
+            LOG.info("Model of parser '{}' loaded from cache", parserConfig.getName());
+            return cached;
+        }
+
+        final Object model = parserConfig.getParser().parse();
+        write(file, key, model);
+        return model;
+    }
+
+    private String key(final RawConfig.ParserEntry entry) throws IOException {
+        final Fingerprint fingerprint = new Fingerprint();
+        fingerprint.add("salt", salt);
+        fingerprint.add("definition", entry.getDefinition());
+        for (final InputRoot input : entry.getInputs()) {
+            fingerprint.addContents(input);
+        }
+        return fingerprint.toHex();
+    }
+
+    private Object read(final File file, final String key) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (final ObjectInputStream in = new ClassLoaderObjectInputStream(
+                new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()))), classLoader)) {
+            if (!key.equals(in.readUTF())) {
+                LOG.debug("Model cache is outdated: {}", file);
+                return null;
+            }
+            return in.readObject();
+        } catch (final IOException | ClassNotFoundException | RuntimeException ex) {
+            LOG.debug("Error reading model cache: {}", file, ex);
+            return null;
+        }
+    }
+
+    private void write(final File file, final String key, final Object model) {
+        final Path tmp = new File(dir, file.getName() + ".tmp").toPath();
+        try {
+            Files.createDirectories(dir.toPath());
+            try (final ObjectOutputStream out = new ObjectOutputStream(
+                    new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp))))) {
+                out.writeUTF(key);
+                out.writeObject(model);
+            }
+            Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (final NotSerializableException ex) {
+            LOG.debug("Model is not serializable - Not cached: {}", ex.getMessage());
+            delete(tmp);
+        } catch (final IOException ex) {
+            LOG.warn("Error writing model cache: {}", file, ex);
+            delete(tmp);
+        }
+    }
+
+    private static void delete(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (final IOException ex) {
+            LOG.debug("Error deleting: {}", file, ex);
+        }
+    }
+
+    /**
+     * Resolves classes with a given class loader instead of the caller's one.
+     */
+    private static final class ClassLoaderObjectInputStream extends ObjectInputStream {
+
+        private final ClassLoader classLoader;
+
+        ClassLoaderObjectInputStream(final InputStream in, final ClassLoader classLoader) throws IOException {
+            super(in);
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(desc.getName(), false, classLoader);
+            } catch (final ClassNotFoundException ex) {
+                return super.resolveClass(desc);
+            }
+        }
+
+    }
+
+}
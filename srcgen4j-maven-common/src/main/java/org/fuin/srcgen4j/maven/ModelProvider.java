@@ -0,0 +1,45 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import org.fuin.srcgen4j.commons.ParseException;
+import org.fuin.srcgen4j.commons.ParserConfig;
+
+/**
+ * Provides the model of a parser. The default implementation simply calls the parser, others may return a model that was already parsed.
+ */
+@FunctionalInterface
+public interface ModelProvider {
+
+    /** Provider that always executes the parser. */
+    ModelProvider PARSE = parserConfig -> parserConfig.getParser().parse();
+
+    /**
+     * Returns the model of a parser. May be called concurrently.
+     *
+     * @param parserConfig
+     *            Configuration of the parser - Cannot be NULL.
+     *
+     * @return Model.
+     *
+     * @throws ParseException
+     *             Error parsing the model.
+     */
+    Object getModel(ParserConfig parserConfig) throws ParseException;
+
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.fuin.utils4j.Utils4J;
+
+/**
+ * Output folders claimed by the configuration files of a single execution. Two configurations must neither write to the same folder nor
+ * to a folder below the folder of another one, because they run concurrently and clean their folders. A configuration may claim the
+ * same folder several times. The class is thread-safe.
+ */
+public final class OutputDirClaims {
+
+    private final Map<Path, File> claims;
+
+    /**
+     * Default constructor.
+     */
+    public OutputDirClaims() {
+        super();
+        this.claims = new LinkedHashMap<>();
+    }
+
+    /**
+     * Claims output folders for a configuration. No folder is claimed if one of them overlaps with a folder of another configuration.
+     *
+     * @param configFile
+     *            Configuration file that writes to the folders - Cannot be NULL.
+     * @param dirs
+     *            Output folders - Cannot be NULL.
+     *
+     * @return Description of the first overlap or NULL if all folders were claimed.
+     */
+    public synchronized String claim(final File configFile, final Collection<File> dirs) {
+        final File owner = Utils4J.getCanonicalFile(configFile);
+        for (final File dir : dirs) {
+            final Path path = Utils4J.getCanonicalFile(dir).toPath();
+            for (final Map.Entry<Path, File> entry : claims.entrySet()) {
+                if (!entry.getValue().equals(owner) && (path.startsWith(entry.getKey()) || entry.getKey().startsWith(path))) {
+                    return "Output folder '" + path + "' of " + owner + " overlaps with '" + entry.getKey() + "' of " + entry.getValue();
+                }
+            }
+        }
+        for (final File dir : dirs) {
+            claims.putIfAbsent(Utils4J.getCanonicalFile(dir).toPath(), owner);
+        }
+        return null;
+    }
+
+}
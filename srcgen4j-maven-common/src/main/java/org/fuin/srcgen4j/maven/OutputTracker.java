@@ -0,0 +1,250 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the last modification time of generated files whose content did not change. Generators always rewrite their files, which makes
+ * compilers and IDEs treat them as modified. A snapshot of all files in the output folders is taken before the generation. Afterwards
+ * each file is compared by SHA-256 hash with the snapshot and the old timestamp is restored if the content is identical. The hashes are
+ * stored in a manifest, so the next snapshot only needs to hash files that were modified outside the generator.
+ */
+public final class OutputTracker {
+
+    private static final String SEPARATOR = "\t";
+
+    private final File manifestFile;
+
+    private final List<File> dirs;
+
+    private Map<Path, Entry> before;
+
+    /**
+     * Constructor with all data.
+     *
+     * @param manifestFile
+     *            File used to store the hashes between runs - Cannot be NULL.
+     * @param dirs
+     *            Output directories to track - Cannot be NULL.
+     */
+    public OutputTracker(final File manifestFile, final List<File> dirs) {
+        super();
+        this.manifestFile = manifestFile;
+        this.dirs = dirs;
+    }
+
+    /**
+     * Takes a snapshot of all files in the output directories. Must be called before the generation starts.
+     *
+     * @throws IOException
+     *             Error reading the manifest or the files.
+     */
+    public void before() throws IOException {
+        final Map<Path, Entry> manifest = readManifest();
+        before = new HashMap<>();
+        for (final Path file : listFiles()) {
+            final BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            final Entry known = manifest.get(file);
+            if (known != null && known.matches(attrs)) {
+                before.put(file, known);
+            } else {
+                before.put(file, new Entry(attrs.size(), attrs.lastModifiedTime().toMillis(), Fingerprint.contentHash(file)));
+            }
+        }
+    }
+
+    /**
+     * Compares all files in the output directories with the snapshot, restores the timestamps of unchanged files and updates the
+     * manifest. Must be called after the generation finished.
+     *
+     * @return Result of the comparison.
+     *
+     * @throws IOException
+     *             Error reading or updating the files.
+     */
+    public Result after() throws IOException {
+        if (before == null) {
+            throw new IllegalStateException("Method 'before()' was not called");
+        }
+        final Map<Path, Entry> after = new TreeMap<>();
+        int written = 0;
+        int unchanged = 0;
+        for (final Path file : listFiles()) {
+            final BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            final Entry old = before.remove(file);
+            if (old != null && old.matches(attrs)) {
+                after.put(file, old);
+                unchanged++;
+                continue;
+            }
+            final String hash = Fingerprint.contentHash(file);
+            if (old != null && old.hash.equals(hash)) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(old.lastModified));
+                after.put(file, old);
+                unchanged++;
+            } else {
+                after.put(file, new Entry(attrs.size(), attrs.lastModifiedTime().toMillis(), hash));
+                written++;
+            }
+        }
+        final int deleted = before.size();
+        before = null;
+        writeManifest(after);
+        return new Result(written, unchanged, deleted);
+    }
+
+    private List<Path> listFiles() throws IOException {
+        final List<Path> files = new ArrayList<>();
+        for (final File dir : dirs) {
+            files.addAll(new InputRoot(dir, null).listFiles());
+        }
+        return files;
+    }
+
+    private Map<Path, Entry> readManifest() throws IOException {
+        final Map<Path, Entry> manifest = new HashMap<>();
+        if (!manifestFile.exists()) {
+            return manifest;
+        }
+        try (final BufferedReader reader = Files.newBufferedReader(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] parts = line.split(SEPARATOR);
+                if (parts.length == 4) {
+                    manifest.put(Paths.get(parts[3]), new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2]));
+                }
+            }
+        } catch (final NumberFormatException ex) {
+            // Corrupt manifest - All files will be hashed again
+            manifest.clear();
+        }
+        return manifest;
+    }
+
+    private void writeManifest(final Map<Path, Entry> entries) throws IOException {
+        Files.createDirectories(manifestFile.getParentFile().toPath());
+        try (final BufferedWriter writer = Files.newBufferedWriter(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+            for (final Map.Entry<Path, Entry> entry : entries.entrySet()) {
+                final Entry value = entry.getValue();
+                writer.write(value.size + SEPARATOR + value.lastModified + SEPARATOR + value.hash + SEPARATOR + entry.getKey());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Size, timestamp and content hash of a file.
+     */
+    private static final class Entry {
+
+        private final long size;
+
+        private final long lastModified;
+
+        private final String hash;
+
+        Entry(final long size, final long lastModified, final String hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        boolean matches(final BasicFileAttributes attrs) {
+            return size == attrs.size() && lastModified == attrs.lastModifiedTime().toMillis();
+        }
+
+    }
+
+    /**
+     * Number of written, unchanged and deleted files.
+     */
+    public static final class Result {
+
+        private final int written;
+
+        private final int unchanged;
+
+        private final int deleted;
+
+        /**
+         * Constructor with all data.
+         *
+         * @param written
+         *            Number of new or modified files.
+         * @param unchanged
+         *            Number of files with unchanged content.
+         * @param deleted
+         *            Number of files that no longer exist.
+         */
+        public Result(final int written, final int unchanged, final int deleted) {
+            super();
+            this.written = written;
+            this.unchanged = unchanged;
+            this.deleted = deleted;
+        }
+
+        /**
+         * Returns the number of new or modified files.
+         *
+         * @return Number of files.
+         */
+        public int getWritten() {
+            return written;
+        }
+
+        /**
+         * Returns the number of files with unchanged content.
+         *
+         * @return Number of files.
+         */
+        public int getUnchanged() {
+            return unchanged;
+        }
+
+        /**
+         * Returns the number of files that no longer exist.
+         *
+         * @return Number of files.
+         */
+        public int getDeleted() {
+            return deleted;
+        }
+
+        @Override
+        public String toString() {
+            return written + " written, " + unchanged + " unchanged, " + deleted + " deleted";
+        }
+
+    }
+
+}
@@ -0,0 +1,548 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import org.fuin.srcgen4j.commons.Folder;
+import org.fuin.srcgen4j.commons.GenerateException;
+import org.fuin.srcgen4j.commons.GeneratorConfig;
+import org.fuin.srcgen4j.commons.ParseException;
+import org.fuin.srcgen4j.commons.ParserConfig;
+import org.fuin.srcgen4j.commons.Project;
+import org.fuin.srcgen4j.commons.SrcGen4JConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the parsers and generators of a configuration concurrently. All parsers are started at once and every generator starts as
+ * soon as the parser it depends on has finished. The first failure cancels all other workers. With only one thread everything runs
+ * sequentially on the calling thread in the same order as {@link org.fuin.srcgen4j.commons.SrcGen4J#execute()}. Registered
+ * {@link GenerationListener}s are informed about every parser and generator run.
+ */
+public final class ParallelSrcGen4J {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelSrcGen4J.class);
+
+    private final SrcGen4JConfig config;
+
+    private final int threads;
+
+    private final List<GenerationListener> listeners;
+
+    private ModelProvider modelProvider;
+
+    private Predicate<ParserConfig> parserFilter;
+
+    private Predicate<GeneratorConfig> generatorFilter;
+
+    private boolean folderCleaning;
+
+    private GeneratorCache generatorCache;
+
+    private UnaryOperator<Runnable> taskDecorator;
+
+    private final Set<String> restored;
+
+    /**
+     * Constructor with all data.
+     *
+     * @param config
+     *            Initialized configuration - Cannot be NULL.
+     * @param threads
+     *            Maximum number of parsers and generators running at the same time.
+     */
+    public ParallelSrcGen4J(final SrcGen4JConfig config, final int threads) {
+        super();
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be greater than zero, but was: " + threads);
+        }
+        this.config = config;
+        this.threads = threads;
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.modelProvider = ModelProvider.PARSE;
+        this.parserFilter = parserConfig -> true;
+        this.generatorFilter = generatorConfig -> true;
+        this.folderCleaning = true;
+        this.generatorCache = GeneratorCache.NONE;
+        this.taskDecorator = UnaryOperator.identity();
+        this.restored = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Sets a cache for the output of the generators. Generators whose output is restored from the cache are not executed and a parser
+     * is skipped if all of its generators were restored.
+     *
+     * @param generatorCache
+     *            Cache to use - Cannot be NULL.
+     *
+     * @return This instance.
+     */
+    public ParallelSrcGen4J withGeneratorCache(final GeneratorCache generatorCache) {
+        if (generatorCache == null) {
+            throw new IllegalArgumentException("generatorCache == null");
+        }
+        this.generatorCache = generatorCache;
+        return this;
+    }
+
+    /**
+     * Determines if the folders marked with 'clean' are deleted before the generation. Disable this if the folders are cleaned
+     * otherwise, for example by a {@link StaleOutputCleaner}.
+     *
+     * @param cleanFolders
+     *            TRUE (default) to delete the content of the folders.
+     *
+     * @return This instance.
+     */
+    public ParallelSrcGen4J withCleanFolders(final boolean cleanFolders) {
+        this.folderCleaning = cleanFolders;
+        return this;
+    }
+
+    /**
+     * Restricts the parsers to execute. The generators of a parser that is not accepted are skipped as well.
+     *
+     * @param parserFilter
+     *            Returns TRUE for parsers to execute - Cannot be NULL.
+     *
+     * @return This instance.
+     */
+    public ParallelSrcGen4J withParserFilter(final Predicate<ParserConfig> parserFilter) {
+        if (parserFilter == null) {
+            throw new IllegalArgumentException("parserFilter == null");
+        }
+        this.parserFilter = parserFilter;
+        return this;
+    }
+
+    /**
+     * Restricts the generators to execute. A parser is skipped if none of its generators is accepted.
+     *
+     * @param generatorFilter
+     *            Returns TRUE for generators to execute - Cannot be NULL.
+     *
+     * @return This instance.
+     */
+    public ParallelSrcGen4J withGeneratorFilter(final Predicate<GeneratorConfig> generatorFilter) {
+        if (generatorFilter == null) {
+            throw new IllegalArgumentException("generatorFilter == null");
+        }
+        this.generatorFilter = generatorFilter;
+        return this;
+    }
+
+    /**
+     * Sets the source of the models. By default every parser is executed.
+     *
+     * @param modelProvider
+     *            Provider to use - Cannot be NULL.
+     *
+     * @return This instance.
+     */
+    public ParallelSrcGen4J withModelProvider(final ModelProvider modelProvider) {
+        if (modelProvider == null) {
+            throw new IllegalArgumentException("modelProvider == null");
+        }
+        this.modelProvider = modelProvider;
+        return this;
+    }
+
+    /**
+     * Wraps every parser and generator task before it is handed to a worker thread. The decorator is called on the thread that
+     * submits the task, for example to pass a log bound to that thread on to the worker.
+     *
+     * @param taskDecorator
+     *            Returns the task to run on the worker - Cannot be NULL.
+     *
+     * @return This instance.
+     */
+    public ParallelSrcGen4J withTaskDecorator(final UnaryOperator<Runnable> taskDecorator) {
+        if (taskDecorator == null) {
+            throw new IllegalArgumentException("taskDecorator == null");
+        }
+        this.taskDecorator = taskDecorator;
+        return this;
+    }
+
+    /**
+     * Adds a listener.
+     *
+     * @param listener
+     *            Listener to add - Cannot be NULL.
+     *
+     * @return This instance.
+     */
+    public ParallelSrcGen4J addListener(final GenerationListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Cleans the folders marked with 'clean' (if enabled) and executes all parsers and generators.
+     *
+     * @throws ParseException
+     *             Error parsing the models.
+     * @throws GenerateException
+     *             Error generating the artifacts.
+     */
+    public void execute() throws ParseException, GenerateException {
+        if (folderCleaning) {
+            clean();
+        }
+
+        restoreFromCache();
+        final List<ParserConfig> parsers = parsers();
+        if (parsers.isEmpty()) {
+            if (restored.isEmpty()) {
+                LOG.warn("No parsers configured");
+            } else {
+                LOG.debug("Output of all generators restored from cache");
+            }
+            return;
+        }
+
+        if (threads == 1) {
+            executeSequential(parsers);
+            return;
+        }
+
+        final ExecutorService pool = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+        final Executor workers = task -> pool.execute(taskDecorator.apply(task));
+        final List<CompletableFuture<?>> futures = Collections.synchronizedList(new ArrayList<>());
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        try {
+            for (final ParserConfig parserConfig : parsers) {
+                if (failure.get() != null) {
+                    break;
+                }
+                final CompletableFuture<Object> model = CompletableFuture.supplyAsync(() -> parse(parserConfig), workers);
+                register(futures, failure, model);
+                for (final GeneratorConfig generatorConfig : generators(parserConfig)) {
+                    register(futures, failure, model.thenAcceptAsync(m -> generate(generatorConfig, m), workers));
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+        } catch (final CompletionException | CancellationException ex) {
+            rethrow(failure.get() == null ? ex : failure.get());
+        } finally {
+            shutdown(pool);
+        }
+    }
+
+    private void restoreFromCache() {
+        restored.clear();
+        if (generatorCache == GeneratorCache.NONE || config.getParsers() == null || config.getParsers().getList() == null) {
+            return;
+        }
+        for (final ParserConfig parserConfig : config.getParsers().getList()) {
+            if (parserFilter.test(parserConfig)) {
+                for (final GeneratorConfig generatorConfig : generators(parserConfig)) {
+                    if (generatorCache.restore(generatorConfig)) {
+                        restored.add(generatorConfig.getName());
+                    }
+                }
+            }
+        }
+    }
+
+    private void executeSequential(final List<ParserConfig> parsers) throws ParseException, GenerateException {
+        try {
+            for (final ParserConfig parserConfig : parsers) {
+                final Object model = parse(parserConfig);
+                for (final GeneratorConfig generatorConfig : generators(parserConfig)) {
+                    generate(generatorConfig, model);
+                }
+            }
+        } catch (final CompletionException ex) {
+            rethrow(ex);
+        }
+    }
+
+    private void register(final List<CompletableFuture<?>> futures, final AtomicReference<Throwable> failure,
+            final CompletableFuture<?> future) {
+        futures.add(future);
+        future.whenComplete((result, ex) -> {
+            if (ex != null && failure.compareAndSet(null, unwrap(ex))) {
+                synchronized (futures) {
+                    for (final CompletableFuture<?> other : futures) {
+                        other.cancel(true);
+                    }
+                }
+            }
+        });
+    }
+
+    private Object parse(final ParserConfig parserConfig) {
+        LOG.debug("Parse: {}", parserConfig.getName());
+        for (final GenerationListener listener : listeners) {
+            listener.parserStarted(parserConfig);
+        }
+        final GenerationEvents.Parser event = new GenerationEvents.Parser();
+        event.begin();
+        final long start = System.nanoTime();
+        boolean success = false;
+        try {
+            final Object model = modelProvider.getModel(parserConfig);
+            success = true;
+            return model;
+        } catch (final ParseException ex) {
+            throw new CompletionException(ex);
+        } finally {
+            final long nanos = System.nanoTime() - start;
+            event.end();
+            if (event.shouldCommit()) {
+                event.name = parserConfig.getName();
+                event.className = parserConfig.getClassName();
+                event.success = success;
+                event.commit();
+            }
+            LOG.trace("Parser finished: {} (success={}, {} ms)", parserConfig.getName(), success, nanos / 1000000L);
+            for (final GenerationListener listener : listeners) {
+                listener.parserFinished(parserConfig, nanos, success);
+            }
+        }
+    }
+
+    private void generate(final GeneratorConfig generatorConfig, final Object model) {
+        LOG.debug("Generate: {}", generatorConfig.getName());
+        for (final GenerationListener listener : listeners) {
+            listener.generatorStarted(generatorConfig);
+        }
+        final GenerationEvents.Generator event = new GenerationEvents.Generator();
+        event.begin();
+        final long start = System.nanoTime();
+        final long startMillis = System.currentTimeMillis();
+        boolean success = false;
+        try {
+            generatorConfig.getGenerator().generate(model, false);
+            success = true;
+            generatorCache.store(generatorConfig, startMillis);
+        } catch (final GenerateException ex) {
+            throw new CompletionException(ex);
+        } finally {
+            final long nanos = System.nanoTime() - start;
+            event.end();
+            if (event.shouldCommit()) {
+                event.name = generatorConfig.getName();
+                event.className = generatorConfig.getClassName();
+                event.success = success;
+                event.commit();
+            }
+            if (success) {
+                generatedFileEvents(generatorConfig, startMillis);
+            }
+            LOG.trace("Generator finished: {} (success={}, {} ms)", generatorConfig.getName(), success, nanos / 1000000L);
+            for (final GenerationListener listener : listeners) {
+                listener.generatorFinished(generatorConfig, nanos, success);
+            }
+        }
+    }
+
+    /**
+     * Emits a JFR event for every file in the output folders of the generator that was modified since it started. The folders are only
+     * scanned if a recording enables the event.
+     */
+    private void generatedFileEvents(final GeneratorConfig generatorConfig, final long startMillis) {
+        if (!new GenerationEvents.GeneratedFile().isEnabled()) {
+            return;
+        }
+        for (final File dir : ConfigUtils.outputDirs(config, generatorConfig)) {
+            try {
+                for (final Map.Entry<Path, BasicFileAttributes> file : ConfigUtils.modifiedSince(dir, startMillis).entrySet()) {
+                    final GenerationEvents.GeneratedFile event = new GenerationEvents.GeneratedFile();
+                    event.generator = generatorConfig.getName();
+                    event.path = file.getKey().toString();
+                    event.bytes = file.getValue().size();
+                    event.commit();
+                }
+            } catch (final IOException ex) {
+                LOG.debug("Error listing generated files: {}", dir, ex);
+            }
+        }
+    }
+
+    private List<ParserConfig> parsers() {
+        if (config.getParsers() == null || config.getParsers().getList() == null) {
+            return Collections.emptyList();
+        }
+        final List<ParserConfig> parsers = new ArrayList<>();
+        for (final ParserConfig parserConfig : config.getParsers().getList()) {
+            if (!parserFilter.test(parserConfig)) {
+                LOG.debug("Skipped parser: {}", parserConfig.getName());
+                continue;
+            }
+            final List<GeneratorConfig> all = config.findGeneratorsForParser(parserConfig.getName());
+            if (all == null || all.isEmpty() || !generators(parserConfig).isEmpty()) {
+                parsers.add(parserConfig);
+            } else {
+                LOG.debug("Skipped parser without selected generators: {}", parserConfig.getName());
+            }
+        }
+        return parsers;
+    }
+
+    private List<GeneratorConfig> generators(final ParserConfig parserConfig) {
+        final List<GeneratorConfig> generators = config.findGeneratorsForParser(parserConfig.getName());
+        if (generators == null) {
+            return Collections.emptyList();
+        }
+        final List<GeneratorConfig> selected = new ArrayList<>();
+        for (final GeneratorConfig generatorConfig : generators) {
+            if (generatorFilter.test(generatorConfig) && !restored.contains(generatorConfig.getName())) {
+                selected.add(generatorConfig);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Deletes the content of all folders marked with 'clean'.
+     *
+     * @throws GenerateException
+     *             Error deleting a file.
+     */
+    public void clean() throws GenerateException {
+        if (config.getProjects() == null) {
+            return;
+        }
+        for (final Project project : config.getProjects()) {
+            if (project.getFolders() == null) {
+                continue;
+            }
+            for (final Folder folder : project.getFolders()) {
+                if (folder.isClean()) {
+                    final File dir = folder.getCanonicalDir();
+                    LOG.debug("Clean: {}", dir);
+                    final long start = System.nanoTime();
+                    try {
+                        deleteContent(dir.toPath());
+                    } catch (final IOException ex) {
+                        throw new GenerateException("Error cleaning folder: " + dir, ex);
+                    }
+                    final long nanos = System.nanoTime() - start;
+                    for (final GenerationListener listener : listeners) {
+                        listener.folderCleaned(dir, nanos);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void deleteContent(final Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path subDir, final IOException ex) throws IOException {
+                if (ex != null) {
+                    throw ex;
+                }
+                if (!subDir.equals(dir)) {
+                    Files.delete(subDir);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void shutdown(final ExecutorService pool) {
+        pool.shutdownNow();
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                LOG.debug("Waiting for workers to terminate");
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Throwable unwrap(final Throwable ex) {
+        Throwable cause = ex;
+        while ((cause instanceof CompletionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static void rethrow(final Throwable ex) throws ParseException, GenerateException {
+        final Throwable cause = unwrap(ex);
+        if (cause instanceof ParseException) {
+            throw (ParseException) cause;
+        }
+        if (cause instanceof GenerateException) {
+            throw (GenerateException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        throw new IllegalStateException("Worker failed", cause);
+    }
+
+    /**
+     * Creates named daemon threads for the workers.
+     */
+    private static final class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "srcgen4j-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
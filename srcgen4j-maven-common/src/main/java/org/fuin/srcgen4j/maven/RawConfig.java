@@ -0,0 +1,681 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.fuin.utils4j.Utils4J;
+
+/**
+ * Lightweight view of a 'srcgen4j-config.xml' file that is read with StAX, without creating a JAXB context or instantiating any
+ * parser or generator. Variables are resolved and the input/output locations of all parsers and generators are determined. Inputs are
+ * taken from all attributes of a <code>config</code> section that end with 'Path' or 'Dir'. An attribute with the same prefix and the
+ * suffix 'Filter' (regular expression) or 'Ext' (file extension) restricts the files of that input. Any other attribute or text in a
+ * <code>config</code> section may name an input that is not known, so the configuration is then marked as not complete.
+ */
+public final class RawConfig {
+
+    private static final Pattern VARIABLE = Pattern.compile("\\$\\{([^}]+)\\}");
+
+    private static final int MAX_VARIABLE_DEPTH = 10;
+
+    private final File file;
+
+    private final File rootDir;
+
+    private final Map<String, String> variables;
+
+    private final Map<String, File> folders;
+
+    private final List<ParserEntry> parsers;
+
+    private final List<GeneratorEntry> generators;
+
+    private boolean complete;
+
+    private RawConfig(final File file) {
+        super();
+        this.file = Utils4J.getCanonicalFile(file);
+        this.rootDir = this.file.getParentFile();
+        this.variables = new LinkedHashMap<>();
+        this.folders = new HashMap<>();
+        this.parsers = new ArrayList<>();
+        this.generators = new ArrayList<>();
+        this.complete = true;
+    }
+
+    /**
+     * Returns the configuration file.
+     *
+     * @return Canonical file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the directory the configuration file is located in. This is the value of the '${rootDir}' variable.
+     *
+     * @return Canonical directory.
+     */
+    public File getRootDir() {
+        return rootDir;
+    }
+
+    /**
+     * Returns the parsers in the order of the configuration file.
+     *
+     * @return Unmodifiable list.
+     */
+    public List<ParserEntry> getParsers() {
+        return Collections.unmodifiableList(parsers);
+    }
+
+    /**
+     * Returns the generators in the order of the configuration file.
+     *
+     * @return Unmodifiable list.
+     */
+    public List<GeneratorEntry> getGenerators() {
+        return Collections.unmodifiableList(generators);
+    }
+
+    /**
+     * Returns all inputs of all parsers and generators.
+     *
+     * @return List of inputs.
+     */
+    public List<InputRoot> getInputs() {
+        final List<InputRoot> inputs = new ArrayList<>();
+        for (final ParserEntry parser : parsers) {
+            inputs.addAll(parser.getInputs());
+        }
+        for (final GeneratorEntry generator : generators) {
+            inputs.addAll(generator.getInputs());
+        }
+        return inputs;
+    }
+
+    /**
+     * Returns all output directories of all generators without duplicates.
+     *
+     * @return List of directories.
+     */
+    public List<File> getOutputDirs() {
+        final List<File> dirs = new ArrayList<>();
+        for (final GeneratorEntry generator : generators) {
+            for (final File dir : generator.getOutputDirs()) {
+                if (!dirs.contains(dir)) {
+                    dirs.add(dir);
+                }
+            }
+        }
+        return dirs;
+    }
+
+    /**
+     * Determines if all variables, inputs and outputs could be resolved and no configuration contains values that are not known to be
+     * inputs or filters. If this is not the case, the inputs and outputs returned by this instance should not be used for deciding if a
+     * generation is necessary.
+     *
+     * @return TRUE if everything was resolved.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Reads a configuration file.
+     *
+     * @param configFile
+     *            File to read - Cannot be NULL.
+     *
+     * @return New instance.
+     *
+     * @throws IOException
+     *             Error reading the file.
+     */
+    public static RawConfig read(final File configFile) throws IOException {
+        final RawConfig config = new RawConfig(configFile);
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        try (final InputStream in = new FileInputStream(configFile)) {
+            final XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                config.parse(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (final XMLStreamException ex) {
+            throw new IOException("Error reading configuration: " + configFile, ex);
+        }
+        config.resolveOutputs();
+        return config;
+    }
+
+    private void parse(final XMLStreamReader reader) throws XMLStreamException {
+        final List<String> path = new ArrayList<>();
+        String projectName = null;
+        ParserEntry parser = null;
+        GeneratorEntry generator = null;
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                final String name = reader.getLocalName();
+                final String parent = path.isEmpty() ? "" : path.get(path.size() - 1);
+                final Map<String, String> attrs = attributes(reader);
+                path.add(name);
+                if (parser != null) {
+                    parser.resolved &= appendDefinition(parser.definition, name, attrs);
+                    parser.rootIndependent &= rootIndependent(attrs);
+                } else if (generator != null) {
+                    generator.resolved &= appendDefinition(generator.definition, name, attrs);
+                }
+                if (name.equals("variable") && parent.equals("variables")) {
+                    variables.put(attrs.get("name"), attrs.get("value"));
+                } else if (name.equals("project") && parent.equals("projects")) {
+                    projectName = attrs.get("name");
+                    final File dir = resolveFile(rootDir, attrs.get("path"));
+                    folders.put(projectName, dir);
+                } else if (name.equals("folder") && parent.equals("project") && projectName != null) {
+                    final File projectDir = folders.get(projectName);
+                    final File folderDir = projectDir == null ? null : resolveFile(projectDir, attrs.get("path"));
+                    folders.put(projectName + "." + attrs.get("name"), folderDir);
+                } else if (name.equals("parser") && parent.equals("parsers")) {
+                    parser = new ParserEntry(attrs.get("name"), attrs.get("class"));
+                    parser.definition.append(attrs.get("class"));
+                    parsers.add(parser);
+                } else if (name.equals("generator") && parent.equals("generators")) {
+                    generator = new GeneratorEntry(attrs.get("name"), attrs.get("class"), attrs.get("parser"), attrs.get("project"));
+                    generator.definition.append(attrs.get("class")).append(' ').append(attrs.get("project"));
+                    generators.add(generator);
+                } else if (name.equals("artifact") && parent.equals("generator") && generator != null) {
+                    final String project = attrs.containsKey("project") ? attrs.get("project") : generator.getProject();
+                    generator.artifactFolders.add(project + "." + attrs.get("folder"));
+                } else if (path.contains("config")) {
+                    if ((parser != null || generator != null) && !inputAttributes(attrs)) {
+                        // Inputs in other attributes are unknown
+                        complete = false;
+                    }
+                    if (parser != null) {
+                        addInputs(attrs, parser.inputs);
+                        addConfigAttributes(attrs, parser.configAttributes);
+                    } else if (generator != null) {
+                        addInputs(attrs, generator.inputs);
+                        addConfigAttributes(attrs, generator.configAttributes);
+                    }
+                }
+            } else if ((event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) && parser != null) {
+                final String text = reader.getText().trim();
+                if (text.length() > 0) {
+                    // Text may name an input that is unknown
+                    complete = false;
+                    final String value = resolve(text);
+                    parser.resolved &= value != null;
+                    parser.rootIndependent &= !relativePath(value);
+                    parser.definition.append(value);
+                }
+            } else if ((event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) && generator != null) {
+                final String text = reader.getText().trim();
+                if (text.length() > 0) {
+                    complete = false;
+                    final String value = resolve(text);
+                    generator.resolved &= value != null;
+                    generator.definition.append(value);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                final String name = path.remove(path.size() - 1);
+                if (parser != null) {
+                    parser.definition.append("</").append(name).append('>');
+                } else if (generator != null) {
+                    generator.definition.append("</").append(name).append('>');
+                }
+                if (name.equals("project")) {
+                    projectName = null;
+                } else if (name.equals("parser") && !path.contains("config")) {
+                    parser = null;
+                } else if (name.equals("generator") && !path.contains("config")) {
+                    generator = null;
+                }
+            }
+        }
+    }
+
+    private boolean appendDefinition(final StringBuilder definition, final String name, final Map<String, String> attrs) {
+        boolean resolved = true;
+        definition.append('<').append(name);
+        for (final Map.Entry<String, String> entry : new TreeMap<>(attrs).entrySet()) {
+            final String key = entry.getKey();
+            final String value;
+            if (key.endsWith("Path") || key.endsWith("Dir")) {
+                final File dir = resolveFile(rootDir, entry.getValue());
+                value = dir == null ? null : dir.getPath();
+            } else {
+                value = resolve(entry.getValue());
+            }
+            resolved &= value != null;
+            definition.append(' ').append(key).append("=\"").append(value).append('"');
+        }
+        definition.append('>');
+        return resolved;
+    }
+
+    private static boolean inputAttributes(final Map<String, String> attrs) {
+        for (final String key : attrs.keySet()) {
+            if (!key.endsWith("Path") && !key.endsWith("Dir") && !key.endsWith("Filter") && !key.endsWith("Ext")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean rootIndependent(final Map<String, String> attrs) {
+        for (final Map.Entry<String, String> entry : attrs.entrySet()) {
+            final String key = entry.getKey();
+            // Paths are resolved against the root directory and filters are regular expressions or extensions
+            if (!key.endsWith("Path") && !key.endsWith("Dir") && !key.endsWith("Filter") && !key.endsWith("Ext")
+                    && relativePath(resolve(entry.getValue()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean relativePath(final String value) {
+        if (value == null || (value.indexOf('/') < 0 && value.indexOf('\\') < 0)) {
+            return false;
+        }
+        return !new File(value).isAbsolute();
+    }
+
+    private void addConfigAttributes(final Map<String, String> attrs, final Map<String, String> configAttributes) {
+        for (final Map.Entry<String, String> entry : attrs.entrySet()) {
+            final String key = entry.getKey();
+            if (key.endsWith("Path") || key.endsWith("Dir")) {
+                final File dir = resolveFile(rootDir, entry.getValue());
+                configAttributes.put(key, dir == null ? null : dir.getPath());
+            } else {
+                configAttributes.put(key, resolve(entry.getValue()));
+            }
+        }
+    }
+
+    private static Map<String, String> attributes(final XMLStreamReader reader) {
+        final Map<String, String> attrs = new LinkedHashMap<>();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            attrs.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        }
+        return attrs;
+    }
+
+    private void addInputs(final Map<String, String> attrs, final List<InputRoot> inputs) {
+        for (final Map.Entry<String, String> entry : attrs.entrySet()) {
+            final String key = entry.getKey();
+            final String prefix;
+            if (key.length() > 4 && key.endsWith("Path")) {
+                prefix = key.substring(0, key.length() - 4);
+            } else if (key.length() > 3 && key.endsWith("Dir")) {
+                prefix = key.substring(0, key.length() - 3);
+            } else {
+                continue;
+            }
+            final File dir = resolveFile(rootDir, entry.getValue());
+            if (dir != null) {
+                inputs.add(new InputRoot(dir, filter(attrs.get(prefix + "Filter"), attrs.get(prefix + "Ext"))));
+            }
+        }
+    }
+
+    private Pattern filter(final String regExpr, final String ext) {
+        final String filter = resolve(regExpr);
+        if (filter != null) {
+            try {
+                return Pattern.compile(filter);
+            } catch (final PatternSyntaxException ex) {
+                // Including all files is the safe choice
+                return null;
+            }
+        }
+        final String extension = resolve(ext);
+        if (extension != null) {
+            return Pattern.compile(".*\\." + Pattern.quote(extension));
+        }
+        return null;
+    }
+
+    private void resolveOutputs() {
+        for (final GeneratorEntry generator : generators) {
+            for (final String key : generator.artifactFolders) {
+                final File dir = folders.get(key);
+                if (dir == null) {
+                    // Unknown or Maven default folder
+                    complete = false;
+                } else if (!generator.outputDirs.contains(dir)) {
+                    generator.outputDirs.add(dir);
+                }
+            }
+        }
+    }
+
+    private File resolveFile(final File baseDir, final String path) {
+        final String resolved = resolve(path);
+        if (resolved == null) {
+            return null;
+        }
+        final File file = new File(resolved);
+        if (file.isAbsolute()) {
+            return Utils4J.getCanonicalFile(file);
+        }
+        return Utils4J.getCanonicalFile(new File(baseDir, resolved));
+    }
+
+    /**
+     * Replaces all variables in a string.
+     *
+     * @param str
+     *            String with variables or NULL.
+     *
+     * @return String without variables or NULL if the string was NULL or a variable could not be resolved.
+     */
+    public String resolve(final String str) {
+        return resolve(str, 0);
+    }
+
+    private String resolve(final String str, final int depth) {
+        if (str == null) {
+            return null;
+        }
+        if (depth > MAX_VARIABLE_DEPTH) {
+            complete = false;
+            return null;
+        }
+        final Matcher matcher = VARIABLE.matcher(str);
+        final StringBuffer sb = new StringBuffer();
+        while (matcher.find()) {
+            final String value = value(matcher.group(1), depth);
+            if (value == null) {
+                complete = false;
+                return null;
+            }
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    private String value(final String name, final int depth) {
+        if (name.equals("rootDir")) {
+            return rootDir.getPath();
+        }
+        if (variables.containsKey(name)) {
+            return resolve(variables.get(name), depth + 1);
+        }
+        return System.getProperty(name);
+    }
+
+    /**
+     * Parser entry of the configuration.
+     */
+    public static final class ParserEntry {
+
+        private final String name;
+
+        private final String className;
+
+        private final List<InputRoot> inputs;
+
+        private final StringBuilder definition;
+
+        private final Map<String, String> configAttributes;
+
+        private boolean resolved;
+
+        private boolean rootIndependent;
+
+        private ParserEntry(final String name, final String className) {
+            super();
+            this.name = name;
+            this.className = className;
+            this.inputs = new ArrayList<>();
+            this.definition = new StringBuilder();
+            this.configAttributes = new HashMap<>();
+            this.resolved = true;
+            this.rootIndependent = true;
+        }
+
+        /**
+         * Returns the unique name.
+         *
+         * @return Name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the parser class.
+         *
+         * @return Full qualified class name.
+         */
+        public String getClassName() {
+            return className;
+        }
+
+        /**
+         * Returns the inputs read by the parser.
+         *
+         * @return Unmodifiable list.
+         */
+        public List<InputRoot> getInputs() {
+            return Collections.unmodifiableList(inputs);
+        }
+
+        /**
+         * Returns an attribute of the parser's configuration with variables resolved. Attributes ending with 'Path' or 'Dir' are
+         * returned as canonical path.
+         *
+         * @param name
+         *            Name of the attribute.
+         *
+         * @return Value or NULL if the attribute does not exist or could not be resolved.
+         */
+        public String getConfigAttribute(final String name) {
+            return configAttributes.get(name);
+        }
+
+        /**
+         * Returns the class and the configuration of the parser with all variables and paths resolved. The name of the parser is not
+         * included. Two entries with the same definition read the same inputs the same way, even if they come from different configuration
+         * files.
+         *
+         * @return Canonical definition.
+         */
+        public String getDefinition() {
+            return definition.toString();
+        }
+
+        /**
+         * Determines if all variables of the parser configuration could be resolved. Definitions with unresolved variables should not be
+         * compared.
+         *
+         * @return TRUE if the definition is complete.
+         */
+        public boolean isResolved() {
+            return resolved;
+        }
+
+        /**
+         * Determines if the definition means the same in every directory. Only attributes ending with 'Path' or 'Dir' are resolved
+         * against the root directory. Any other value that looks like a relative path (contains a slash or backslash) may be resolved by
+         * the parser against its own base directory, so equal definitions from different directories may read different files.
+         *
+         * @return TRUE if the definition contains no unresolved relative path.
+         */
+        public boolean isRootIndependent() {
+            return rootIndependent;
+        }
+
+    }
+
+    /**
+     * Generator entry of the configuration.
+     */
+    public static final class GeneratorEntry {
+
+        private final String name;
+
+        private final String className;
+
+        private final String parser;
+
+        private final String project;
+
+        private final List<InputRoot> inputs;
+
+        private final List<String> artifactFolders;
+
+        private final List<File> outputDirs;
+
+        private final Map<String, String> configAttributes;
+
+        private final StringBuilder definition;
+
+        private boolean resolved;
+
+        private GeneratorEntry(final String name, final String className, final String parser, final String project) {
+            super();
+            this.name = name;
+            this.className = className;
+            this.parser = parser;
+            this.project = project;
+            this.inputs = new ArrayList<>();
+            this.artifactFolders = new ArrayList<>();
+            this.outputDirs = new ArrayList<>();
+            this.configAttributes = new HashMap<>();
+            this.definition = new StringBuilder();
+            this.resolved = true;
+        }
+
+        /**
+         * Returns the unique name.
+         *
+         * @return Name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the generator class.
+         *
+         * @return Full qualified class name.
+         */
+        public String getClassName() {
+            return className;
+        }
+
+        /**
+         * Returns the name of the parser that provides the model.
+         *
+         * @return Parser name.
+         */
+        public String getParser() {
+            return parser;
+        }
+
+        /**
+         * Returns the name of the default project.
+         *
+         * @return Project name.
+         */
+        public String getProject() {
+            return project;
+        }
+
+        /**
+         * Returns the inputs (like templates) read by the generator.
+         *
+         * @return Unmodifiable list.
+         */
+        public List<InputRoot> getInputs() {
+            return Collections.unmodifiableList(inputs);
+        }
+
+        /**
+         * Returns the directories the generator writes to.
+         *
+         * @return Unmodifiable list.
+         */
+        public List<File> getOutputDirs() {
+            return Collections.unmodifiableList(outputDirs);
+        }
+
+        /**
+         * Returns an attribute of the generator's configuration with variables resolved. Attributes ending with 'Path' or 'Dir' are
+         * returned as canonical path.
+         *
+         * @param name
+         *            Name of the attribute.
+         *
+         * @return Value or NULL if the attribute does not exist or could not be resolved.
+         */
+        public String getConfigAttribute(final String name) {
+            return configAttributes.get(name);
+        }
+
+        /**
+         * Returns the class, the project, the configuration and the artifacts of the generator with all variables and paths resolved. The
+         * name of the generator is not included.
+         *
+         * @return Canonical definition.
+         */
+        public String getDefinition() {
+            return definition.toString();
+        }
+
+        /**
+         * Determines if all variables of the generator configuration could be resolved.
+         *
+         * @return TRUE if the definition is complete.
+         */
+        public boolean isResolved() {
+            return resolved;
+        }
+
+    }
+
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.fuin.srcgen4j.commons.GeneratorConfig;
+
+/**
+ * Collects the render time and output size per template and per target file. Times of a template are counted in a histogram with
+ * logarithmic buckets (about 6% precision), so recording needs neither a lock nor memory per sample. Of the target files only the
+ * slowest ones are kept. Generators that are not rendered by this plugin are recorded as a whole with the name 'generator &lt;name&gt;'
+ * as template. The class is thread-safe.
+ */
+public final class RenderProfiler implements GenerationListener {
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final int top;
+
+    private final Map<String, Histogram> templates;
+
+    private final PriorityQueue<Target> targets;
+
+    /** Time of the fastest target in the queue once it is full - Faster targets are ignored without locking. */
+    private volatile long threshold;
+
+    /**
+     * Constructor with the number of entries to report.
+     *
+     * @param top
+     *            Number of slowest templates and target files to report.
+     */
+    public RenderProfiler(final int top) {
+        super();
+        this.top = Math.max(1, top);
+        this.templates = new ConcurrentHashMap<>();
+        this.targets = new PriorityQueue<>(Comparator.comparingLong((Target target) -> target.nanos));
+        this.threshold = -1;
+    }
+
+    /**
+     * Records a single rendered file.
+     *
+     * @param template
+     *            Name of the template - Cannot be NULL.
+     * @param target
+     *            Target file - Cannot be NULL.
+     * @param nanos
+     *            Time to render the file in nanoseconds.
+     * @param bytes
+     *            Size of the rendered file.
+     */
+    public void record(final String template, final String target, final long nanos, final long bytes) {
+        templates.computeIfAbsent(template, name -> new Histogram()).add(nanos, bytes);
+        if (nanos <= threshold) {
+            return;
+        }
+        synchronized (targets) {
+            targets.add(new Target(target, template, nanos, bytes));
+            if (targets.size() > top) {
+                targets.poll();
+            }
+            if (targets.size() == top) {
+                threshold = targets.peek().nanos;
+            }
+        }
+    }
+
+    @Override
+    public void generatorFinished(final GeneratorConfig generatorConfig, final long nanos, final boolean success) {
+        templates.computeIfAbsent("generator " + generatorConfig.getName(), name -> new Histogram()).add(nanos, 0);
+    }
+
+    /**
+     * Returns a human readable table with the slowest templates (by total time) and target files.
+     *
+     * @return Lines of the table.
+     */
+    public List<String> toTable() {
+        final List<Map.Entry<String, Histogram>> slowest = new ArrayList<>(templates.entrySet());
+        slowest.sort((a, b) -> Long.compare(b.getValue().total.get(), a.getValue().total.get()));
+        final List<String> lines = new ArrayList<>();
+        lines.add("SrcGen4J profile - Slowest templates:");
+        lines.add(String.format(Locale.ROOT, "  %-50s %8s %10s %10s %10s %10s %12s", "Template", "Count", "Total [ms]", "p50 [ms]",
+                "p95 [ms]", "Max [ms]", "Bytes"));
+        for (final Map.Entry<String, Histogram> entry : slowest.subList(0, Math.min(top, slowest.size()))) {
+            final Histogram histogram = entry.getValue();
+            lines.add(String.format(Locale.ROOT, "  %-50s %8d %10.1f %10.1f %10.1f %10.1f %12d", entry.getKey(), histogram.count.get(),
+                    millis(histogram.total.get()), millis(histogram.percentile(0.5)), millis(histogram.percentile(0.95)),
+                    millis(histogram.max.get()), histogram.bytes.get()));
+        }
+        final List<Target> slowestTargets;
+        synchronized (targets) {
+            slowestTargets = new ArrayList<>(targets);
+        }
+        if (!slowestTargets.isEmpty()) {
+            slowestTargets.sort((a, b) -> Long.compare(b.nanos, a.nanos));
+            lines.add("SrcGen4J profile - Slowest target files:");
+            lines.add(String.format(Locale.ROOT, "  %-70s %10s %12s  %s", "Target", "Time [ms]", "Bytes", "Template"));
+            for (final Target target : slowestTargets) {
+                lines.add(String.format(Locale.ROOT, "  %-70s %10.1f %12d  %s", target.name, millis(target.nanos), target.bytes,
+                        target.template));
+            }
+        }
+        return lines;
+    }
+
+    private static double millis(final long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Histogram with 16 buckets per power of two.
+     */
+    private static final class Histogram {
+
+        private static final int SUB_BITS = 4;
+
+        private static final int SUB_COUNT = 1 << SUB_BITS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BITS + 1) * SUB_COUNT);
+
+        private final AtomicLong count = new AtomicLong();
+
+        private final AtomicLong total = new AtomicLong();
+
+        private final AtomicLong max = new AtomicLong();
+
+        private final AtomicLong bytes = new AtomicLong();
+
+        void add(final long nanos, final long size) {
+            final long value = Math.max(0, nanos);
+            buckets.incrementAndGet(index(value));
+            count.incrementAndGet();
+            total.addAndGet(value);
+            max.accumulateAndGet(value, Math::max);
+            bytes.addAndGet(size);
+        }
+
+        long percentile(final double fraction) {
+            final long n = count.get();
+            if (n == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(n * fraction));
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        private static int index(final long value) {
+            if (value < SUB_COUNT) {
+                return (int) value;
+            }
+            final int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BITS - 1;
+            return (shift + 1) * SUB_COUNT + (int) ((value >>> shift) - SUB_COUNT);
+        }
+
+        private static long upperBound(final int index) {
+            if (index < SUB_COUNT) {
+                return index;
+            }
+            final int shift = index / SUB_COUNT - 1;
+            return ((long) (index % SUB_COUNT + SUB_COUNT + 1) << shift) - 1;
+        }
+
+    }
+
+    /**
+     * A single rendered file.
+     */
+    private static final class Target {
+
+        private final String name;
+
+        private final String template;
+
+        private final long nanos;
+
+        private final long bytes;
+
+        Target(final String name, final String template, final long nanos, final long bytes) {
+            this.name = name;
+            this.template = template;
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+
+    }
+
+}
@@ -0,0 +1,346 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.fuin.srcgen4j.commons.Folder;
+import org.fuin.srcgen4j.commons.GeneratorConfig;
+import org.fuin.srcgen4j.commons.Project;
+import org.fuin.srcgen4j.commons.SrcGen4JConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replaces the deletion of folders marked with 'clean' by the removal of stale files. A manifest stores the files every generator
+ * produced. Before the generation the timestamps of all files in the folders are recorded. Afterwards every file that was neither
+ * written by this run nor belongs to a generator that was not executed is deleted, so the result is the same as after cleaning the folder
+ * first. Valid files stay in place and are simply overwritten. Folders that are unknown to the manifest (first run) and folders that do
+ * not allow overriding files are still deleted completely. The generators write their files directly, so the written files are derived
+ * from the changed timestamps. A generator that does not rewrite an unchanged file loses it as stale.
+ */
+public final class StaleOutputCleaner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StaleOutputCleaner.class);
+
+    private static final String SEPARATOR = "\t";
+
+    private static final String FOLDER_PREFIX = "#folder";
+
+    private final File manifestFile;
+
+    private final SrcGen4JConfig config;
+
+    private Map<Path, Long> before;
+
+    private Map<Path, Set<String>> owners;
+
+    private long startMillis;
+
+    /**
+     * Constructor with all data.
+     *
+     * @param manifestFile
+     *            File used to store the generated files between runs - Cannot be NULL.
+     * @param config
+     *            Initialized configuration - Cannot be NULL.
+     */
+    public StaleOutputCleaner(final File manifestFile, final SrcGen4JConfig config) {
+        super();
+        this.manifestFile = manifestFile;
+        this.config = config;
+    }
+
+    /**
+     * Deletes the content of folders that cannot be cleaned incrementally and records the timestamps of the files in all other folders.
+     * Must be called before the generation starts.
+     *
+     * @return Number of deleted files.
+     *
+     * @throws IOException
+     *             Error reading the manifest or deleting files.
+     */
+    public int before() throws IOException {
+        final Set<Path> knownDirs = new HashSet<>();
+        owners = readManifest(knownDirs);
+        before = new HashMap<>();
+        // Timestamps may be truncated to seconds - Files written in the same second as the start count as generated
+        startMillis = (System.currentTimeMillis() / 1000L) * 1000L;
+        int deleted = 0;
+        for (final Folder folder : cleanFolders()) {
+            final File dir = folder.getCanonicalDir();
+            if (folder.isOverride() && knownDirs.contains(dir.toPath())) {
+                for (final Path file : new InputRoot(dir, null).listFiles()) {
+                    before.put(file, Files.getLastModifiedTime(file).toMillis());
+                }
+            } else {
+                LOG.debug("Clean: {}", dir);
+                deleted = deleted + deleteContent(dir.toPath());
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes all files that were not generated by this run and updates the manifest. Must be called after the generation finished
+     * successfully.
+     *
+     * @param executed
+     *            Names of the generators that were executed - Cannot be NULL.
+     *
+     * @return Result of the cleanup.
+     *
+     * @throws IOException
+     *             Error deleting files or writing the manifest.
+     */
+    public Result after(final Collection<String> executed) throws IOException {
+        if (before == null) {
+            throw new IllegalStateException("Method 'before()' was not called");
+        }
+        final Map<Path, Set<String>> produced = new TreeMap<>();
+        int kept = 0;
+        int deleted = 0;
+        for (final Folder folder : cleanFolders()) {
+            final File dir = folder.getCanonicalDir();
+            final List<GeneratorConfig> writers = writers(dir);
+            for (final Path file : new InputRoot(dir, null).listFiles()) {
+                final Set<String> names = new TreeSet<>();
+                if (isGenerated(file)) {
+                    for (final GeneratorConfig writer : writers) {
+                        if (executed.contains(writer.getName())) {
+                            names.add(writer.getName());
+                        }
+                    }
+                }
+                final Set<String> previous = owners.get(file);
+                if (previous != null) {
+                    for (final String name : previous) {
+                        if (!executed.contains(name)) {
+                            names.add(name);
+                        }
+                    }
+                }
+                if (names.isEmpty()) {
+                    LOG.debug("Delete stale file: {}", file);
+                    Files.delete(file);
+                    deleteEmptyParents(file.getParent(), dir.toPath());
+                    deleted++;
+                } else {
+                    produced.put(file, names);
+                    if (before.containsKey(file)) {
+                        kept++;
+                    }
+                }
+            }
+        }
+        writeManifest(produced);
+        before = null;
+        owners = null;
+        return new Result(kept, deleted);
+    }
+
+    private boolean isGenerated(final Path file) throws IOException {
+        final Long old = before.get(file);
+        if (old == null) {
+            return true;
+        }
+        final long lastModified = Files.getLastModifiedTime(file).toMillis();
+        return lastModified != old.longValue() || lastModified >= startMillis;
+    }
+
+    private List<GeneratorConfig> writers(final File dir) {
+        final List<GeneratorConfig> writers = new ArrayList<>();
+        if (config.getGenerators() == null || config.getGenerators().getList() == null) {
+            return writers;
+        }
+        for (final GeneratorConfig generatorConfig : config.getGenerators().getList()) {
+            if (ConfigUtils.outputDirs(config, generatorConfig).contains(dir)) {
+                writers.add(generatorConfig);
+            }
+        }
+        return writers;
+    }
+
+    private List<Folder> cleanFolders() {
+        final List<Folder> folders = new ArrayList<>();
+        final Set<File> seen = new HashSet<>();
+        if (config.getProjects() == null) {
+            return folders;
+        }
+        for (final Project project : config.getProjects()) {
+            if (project.getFolders() == null) {
+                continue;
+            }
+            for (final Folder folder : project.getFolders()) {
+                if (folder.isClean() && folder.getCanonicalDir() != null && seen.add(folder.getCanonicalDir())) {
+                    folders.add(folder);
+                }
+            }
+        }
+        return folders;
+    }
+
+    private Map<Path, Set<String>> readManifest(final Set<Path> knownDirs) throws IOException {
+        final Map<Path, Set<String>> manifest = new HashMap<>();
+        if (!manifestFile.exists()) {
+            return manifest;
+        }
+        try (final BufferedReader reader = Files.newBufferedReader(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] parts = line.split(SEPARATOR);
+                if (parts.length != 2) {
+                    continue;
+                }
+                if (parts[0].equals(FOLDER_PREFIX)) {
+                    knownDirs.add(Paths.get(parts[1]));
+                } else {
+                    final Set<String> names = new TreeSet<>();
+                    for (final String name : parts[0].split(",")) {
+                        names.add(name);
+                    }
+                    manifest.put(Paths.get(parts[1]), names);
+                }
+            }
+        }
+        return manifest;
+    }
+
+    private void writeManifest(final Map<Path, Set<String>> produced) throws IOException {
+        Files.createDirectories(manifestFile.getParentFile().toPath());
+        try (final BufferedWriter writer = Files.newBufferedWriter(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+            for (final Folder folder : cleanFolders()) {
+                writer.write(FOLDER_PREFIX + SEPARATOR + folder.getCanonicalDir());
+                writer.newLine();
+            }
+            for (final Map.Entry<Path, Set<String>> entry : produced.entrySet()) {
+                writer.write(String.join(",", entry.getValue()) + SEPARATOR + entry.getKey());
+                writer.newLine();
+            }
+        }
+    }
+
+    private static void deleteEmptyParents(final Path dir, final Path root) throws IOException {
+        Path current = dir;
+        while (current != null && !current.equals(root) && current.startsWith(root)) {
+            try (final Stream<Path> content = Files.list(current)) {
+                if (content.findAny().isPresent()) {
+                    return;
+                }
+            }
+            Files.delete(current);
+            current = current.getParent();
+        }
+    }
+
+    private static int deleteContent(final Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        final int[] count = new int[1];
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                count[0]++;
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path subDir, final IOException ex) throws IOException {
+                if (ex != null) {
+                    throw ex;
+                }
+                if (!subDir.equals(dir)) {
+                    Files.delete(subDir);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * Number of kept and deleted files.
+     */
+    public static final class Result {
+
+        private final int kept;
+
+        private final int deleted;
+
+        /**
+         * Constructor with all data.
+         *
+         * @param kept
+         *            Number of files that existed before and were generated again.
+         * @param deleted
+         *            Number of stale files that were deleted.
+         */
+        public Result(final int kept, final int deleted) {
+            super();
+            this.kept = kept;
+            this.deleted = deleted;
+        }
+
+        /**
+         * Returns the number of files that existed before and were generated again.
+         *
+         * @return Number of files.
+         */
+        public int getKept() {
+            return kept;
+        }
+
+        /**
+         * Returns the number of stale files that were deleted.
+         *
+         * @return Number of files.
+         */
+        public int getDeleted() {
+            return deleted;
+        }
+
+        @Override
+        public String toString() {
+            return kept + " kept, " + deleted + " stale deleted";
+        }
+
+    }
+
+}
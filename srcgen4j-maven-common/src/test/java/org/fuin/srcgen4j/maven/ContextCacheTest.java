@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.fuin.srcgen4j.commons.DefaultContext;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test for {@link ContextCache}.
+ */
+public class ContextCacheTest {
+
+    // CHECKSTYLE:OFF Test
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @After
+    public void teardown() {
+        ContextCache.clear();
+    }
+
+    @Test
+    public void testGetOrCreateWithoutIndex() throws IOException {
+
+        // PREPARE
+        final ClassLoader classLoader = getClass().getClassLoader();
+        final List<File> classpath = ContextCache.normalize(Arrays.asList(tmp.newFolder("classes")));
+
+        // TEST
+        final DefaultContext first = ContextCache.getOrCreate(classLoader, classpath, null);
+        final DefaultContext second = ContextCache.getOrCreate(classLoader, classpath, null);
+
+        // VERIFY
+        assertThat(first.getClassLoader()).isSameAs(classLoader);
+        assertThat(second).isSameAs(first);
+
+    }
+
+    @Test
+    public void testGetOrCreateWithIndex() throws IOException {
+
+        // PREPARE
+        final ClassLoader classLoader = getClass().getClassLoader();
+        final List<File> classpath = ContextCache.normalize(Arrays.asList(tmp.newFolder("classes")));
+        final File indexDir = tmp.newFolder("index");
+
+        // TEST
+        final DefaultContext first = ContextCache.getOrCreate(classLoader, classpath, indexDir);
+        final DefaultContext second = ContextCache.getOrCreate(classLoader, classpath, indexDir);
+
+        // VERIFY
+        assertThat(first.getClassLoader()).isInstanceOf(IndexedClassLoader.class);
+        assertThat(first.getClassLoader().getParent()).isSameAs(classLoader);
+        assertThat(second).isSameAs(first);
+
+    }
+
+    @Test
+    public void testGetOrCreateChangedDirectory() throws IOException {
+
+        // PREPARE
+        final ClassLoader classLoader = getClass().getClassLoader();
+        final File classes = tmp.newFolder("classes");
+        final List<File> classpath = ContextCache.normalize(Arrays.asList(classes));
+        final File indexDir = tmp.newFolder("index");
+        final DefaultContext first = ContextCache.getOrCreate(classLoader, classpath, indexDir);
+
+        // TEST
+        Files.write(new File(classes, "test.properties").toPath(), "a=b".getBytes(StandardCharsets.UTF_8));
+        final DefaultContext second = ContextCache.getOrCreate(classLoader, classpath, indexDir);
+
+        // VERIFY
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getClassLoader().getResource("test.properties")).isNotNull();
+
+    }
+
+    // CHECKSTYLE:ON
+
+}
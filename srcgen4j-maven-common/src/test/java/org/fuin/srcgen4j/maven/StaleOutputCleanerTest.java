@@ -0,0 +1,172 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.xml.bind.JAXBContext;
+
+import org.fuin.srcgen4j.commons.DefaultContext;
+import org.fuin.srcgen4j.commons.SrcGen4JConfig;
+import org.fuin.utils4j.jaxb.JaxbUtils;
+import org.fuin.utils4j.jaxb.UnmarshallerBuilder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test for {@link StaleOutputCleaner}.
+ */
+public class StaleOutputCleanerTest {
+
+    // CHECKSTYLE:OFF Test
+
+    private static final String CONFIG = "<srcgen4j-config xmlns=\"http://www.fuin.org/srcgen4j/commons/0.4.3\">"
+            + "<projects><project name=\"example\" path=\"${rootDir}\" maven=\"false\">"
+            + "<folder name=\"gen\" path=\"gen\" create=\"true\" override=\"true\" clean=\"true\" /></project></projects>"
+            + "<parsers><parser name=\"parse1\" class=\"org.fuin.srcgen4j.core.velocity.ParameterizedTemplateParser\" /></parsers>"
+            + "<generators>"
+            + "<generator name=\"genA\" class=\"org.fuin.srcgen4j.core.velocity.ParameterizedTemplateGenerator\" parser=\"parse1\""
+            + " project=\"example\"><artifact name=\"a\" folder=\"gen\" /></generator>"
+            + "<generator name=\"genB\" class=\"org.fuin.srcgen4j.core.velocity.ParameterizedTemplateGenerator\" parser=\"parse1\""
+            + " project=\"example\"><artifact name=\"b\" folder=\"gen\" /></generator></generators></srcgen4j-config>";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File genDir;
+
+    private File fileA;
+
+    private File fileB;
+
+    private StaleOutputCleaner testee;
+
+    @Before
+    public void setup() throws Exception {
+        final File rootDir = tmp.newFolder("root");
+        final File configFile = new File(rootDir, "srcgen4j-config.xml");
+        Files.write(configFile.toPath(), CONFIG.getBytes(StandardCharsets.UTF_8));
+        final ClassLoader classLoader = getClass().getClassLoader();
+        final JAXBContext jaxbContext = JaxbContextCache.getOrCreate(classLoader, new Class<?>[] { SrcGen4JConfig.class });
+        final SrcGen4JConfig config = JaxbUtils.unmarshal(new UnmarshallerBuilder().withContext(jaxbContext).build(), configFile);
+        config.init(new DefaultContext(classLoader, Collections.emptyList()), rootDir.getCanonicalFile());
+        genDir = new File(rootDir, "gen");
+        fileA = new File(genDir, "a/A.java");
+        fileB = new File(genDir, "b/B.java");
+        testee = new StaleOutputCleaner(new File(tmp.getRoot(), "state/manifest.txt"), config);
+    }
+
+    @Test
+    public void testFirstRun() throws IOException {
+
+        // PREPARE
+        final File unknown = new File(genDir, "x/Unknown.java");
+        write(unknown);
+
+        // TEST
+        final int cleaned = testee.before();
+        write(fileA);
+        write(fileB);
+        final StaleOutputCleaner.Result result = testee.after(Arrays.asList("genA", "genB"));
+
+        // VERIFY
+        assertThat(cleaned).isEqualTo(1);
+        assertThat(unknown).doesNotExist();
+        assertThat(result.getKept()).isEqualTo(0);
+        assertThat(result.getDeleted()).isEqualTo(0);
+        assertThat(fileA).exists();
+        assertThat(fileB).exists();
+
+    }
+
+    @Test
+    public void testGeneratorNotExecuted() throws IOException {
+
+        // PREPARE
+        firstRun();
+
+        // TEST
+        final int cleaned = testee.before();
+        write(fileA);
+        final StaleOutputCleaner.Result result = testee.after(Collections.singletonList("genA"));
+
+        // VERIFY
+        assertThat(cleaned).isEqualTo(0);
+        assertThat(result.getKept()).isEqualTo(2);
+        assertThat(result.getDeleted()).isEqualTo(0);
+        assertThat(fileA).exists();
+        assertThat(fileB).exists();
+
+    }
+
+    @Test
+    public void testStaleFilesDeleted() throws IOException {
+
+        // PREPARE
+        firstRun();
+        final File stale = new File(genDir, "x/Stale.java");
+        write(stale);
+        makeOld(stale);
+
+        // TEST
+        testee.before();
+        write(fileA);
+        final StaleOutputCleaner.Result result = testee.after(Arrays.asList("genA", "genB"));
+
+        // VERIFY
+        assertThat(result.getKept()).isEqualTo(1);
+        assertThat(result.getDeleted()).isEqualTo(2);
+        assertThat(fileA).exists();
+        assertThat(fileB).doesNotExist();
+        assertThat(stale).doesNotExist();
+        assertThat(stale.getParentFile()).doesNotExist();
+
+    }
+
+    private void firstRun() throws IOException {
+        testee.before();
+        write(fileA);
+        write(fileB);
+        testee.after(Arrays.asList("genA", "genB"));
+        // Files that are not written again must look older than the next run
+        makeOld(fileA);
+        makeOld(fileB);
+    }
+
+    private static void write(final File file) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), ("// " + file.getName()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void makeOld(final File file) throws IOException {
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(System.currentTimeMillis() - 3600000L));
+    }
+
+    // CHECKSTYLE:ON
+
+}
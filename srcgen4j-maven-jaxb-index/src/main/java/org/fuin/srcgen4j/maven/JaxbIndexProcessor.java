@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor that writes the JAXB index of a jar, which is read by <code>JaxbIndex</code> at runtime. All public, non
+ * abstract top level or static nested classes annotated with <code>XmlRootElement</code> are listed. The option
+ * <code>-Asrcgen4j.jaxbIndex.packages=a.b,c.d</code> restricts the index to classes in or below the given packages, so the JAXB context
+ * only gets the configuration classes. To use it, add this artifact to the <code>annotationProcessorPaths</code> of the compiler plugin
+ * of the module that contains parser or generator configuration classes. The artifact is only needed at build time. An index written by
+ * a previous compilation is merged, so an incremental compilation of some classes keeps the others. Previously indexed classes are
+ * dropped if they no longer exist or were compiled again without the annotation.
+ */
+@SupportedAnnotationTypes(JaxbIndexProcessor.XML_ROOT_ELEMENT)
+@SupportedOptions(JaxbIndexProcessor.PACKAGES_OPTION)
+public final class JaxbIndexProcessor extends AbstractProcessor {
+
+    /** Annotation of the indexed classes. */
+    static final String XML_ROOT_ELEMENT = "javax.xml.bind.annotation.XmlRootElement";
+
+    /** Name of the index resource - Same as <code>JaxbIndex.RESOURCE</code>. */
+    static final String RESOURCE = "META-INF/srcgen4j/jaxb.index";
+
+    /** Option with a comma separated list of packages to index. */
+    static final String PACKAGES_OPTION = "srcgen4j.jaxbIndex.packages";
+
+    private final Set<String> names = new TreeSet<>();
+
+    private final Set<String> compiled = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (final Element element : roundEnv.getRootElements()) {
+            addCompiled(element);
+        }
+        for (final TypeElement annotation : annotations) {
+            for (final Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (indexed(element)) {
+                    final String name = processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString();
+                    if (included(name)) {
+                        names.add(name);
+                    }
+                }
+            }
+        }
+        if (roundEnv.processingOver()) {
+            final Set<String> previous = readPrevious();
+            if (previous != null) {
+                names.addAll(previous);
+            }
+            if (previous != null || !names.isEmpty()) {
+                write();
+            }
+        }
+        return false;
+    }
+
+    private void addCompiled(final Element element) {
+        if (element instanceof TypeElement) {
+            compiled.add(processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString());
+            for (final Element enclosed : element.getEnclosedElements()) {
+                addCompiled(enclosed);
+            }
+        }
+    }
+
+    /**
+     * Returns the still valid classes of the index written by a previous compilation.
+     *
+     * @return Class names or NULL if there is no previous index.
+     */
+    private Set<String> readPrevious() {
+        final Set<String> previous = new TreeSet<>();
+        try {
+            final FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", RESOURCE);
+            try (final BufferedReader reader = new BufferedReader(new InputStreamReader(file.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    final String name = line.trim();
+                    // Classes compiled in this run were already checked for the annotation
+                    if (!name.isEmpty() && !name.startsWith("#") && !compiled.contains(name) && included(name)
+                            && processingEnv.getElementUtils().getTypeElement(name.replace('$', '.')) != null) {
+                        previous.add(name);
+                    }
+                }
+            }
+        } catch (final IOException ex) {
+            // Nothing compiled before
+            return null;
+        }
+        return previous;
+    }
+
+    private static boolean indexed(final Element element) {
+        if (element.getKind() != ElementKind.CLASS || !element.getModifiers().contains(Modifier.PUBLIC)
+                || element.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        final NestingKind nesting = ((TypeElement) element).getNestingKind();
+        return nesting == NestingKind.TOP_LEVEL || (nesting == NestingKind.MEMBER && element.getModifiers().contains(Modifier.STATIC));
+    }
+
+    private boolean included(final String name) {
+        final String packages = processingEnv.getOptions().get(PACKAGES_OPTION);
+        if (packages == null || packages.trim().isEmpty()) {
+            return true;
+        }
+        for (final String pkg : packages.split(",")) {
+            if (name.startsWith(pkg.trim() + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void write() {
+        try {
+            final FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", RESOURCE);
+            try (final Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write("# Generated by " + JaxbIndexProcessor.class.getName() + "\n");
+                for (final String name : names) {
+                    writer.write(name);
+                    writer.write('\n');
+                }
+            }
+        } catch (final IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Error writing " + RESOURCE + ": " + ex);
+        }
+    }
+
+}
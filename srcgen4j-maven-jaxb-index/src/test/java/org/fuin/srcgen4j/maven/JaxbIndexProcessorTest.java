@@ -0,0 +1,172 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test for {@link JaxbIndexProcessor}.
+ */
+public class JaxbIndexProcessorTest {
+
+    // CHECKSTYLE:OFF Test
+
+    private static final String HEADER = "# Generated by " + JaxbIndexProcessor.class.getName();
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File srcDir;
+
+    private File outDir;
+
+    @Before
+    public void setup() throws IOException {
+        srcDir = tmp.newFolder("src");
+        outDir = tmp.newFolder("out");
+        // The processor only knows the name of the annotation, so no JAXB API is needed
+        write("javax/xml/bind/annotation/XmlRootElement.java", "package javax.xml.bind.annotation;\n"
+                + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                + "public @interface XmlRootElement { }\n");
+        write("a/Root.java", "package a; @javax.xml.bind.annotation.XmlRootElement public class Root { }");
+        write("a/AbstractRoot.java", "package a; @javax.xml.bind.annotation.XmlRootElement public abstract class AbstractRoot { }");
+        write("a/Hidden.java", "package a; @javax.xml.bind.annotation.XmlRootElement class Hidden { }");
+        write("a/Plain.java", "package a; public class Plain { }");
+        write("a/Outer.java", "package a; public class Outer {\n"
+                + "  @javax.xml.bind.annotation.XmlRootElement public static class Nested { }\n"
+                + "  @javax.xml.bind.annotation.XmlRootElement public class Inner { }\n}");
+        write("a/b/Sub.java", "package a.b; @javax.xml.bind.annotation.XmlRootElement public class Sub { }");
+        write("ab/Other.java", "package ab; @javax.xml.bind.annotation.XmlRootElement public class Other { }");
+    }
+
+    @Test
+    public void testIndex() throws IOException {
+
+        // TEST
+        final boolean success = compile();
+
+        // VERIFY
+        assertThat(success).isTrue();
+        assertThat(readIndex()).containsExactly(HEADER, "a.Outer$Nested", "a.Root", "a.b.Sub", "ab.Other");
+
+    }
+
+    @Test
+    public void testPackageFilter() throws IOException {
+
+        // TEST
+        final boolean success = compile("-A" + JaxbIndexProcessor.PACKAGES_OPTION + "=a, x.y");
+
+        // VERIFY
+        assertThat(success).isTrue();
+        // 'ab' only starts with the name of package 'a'
+        assertThat(readIndex()).containsExactly(HEADER, "a.Outer$Nested", "a.Root", "a.b.Sub");
+
+    }
+
+    @Test
+    public void testNothingIndexed() throws IOException {
+
+        // TEST
+        final boolean success = compile("-A" + JaxbIndexProcessor.PACKAGES_OPTION + "=x.y");
+
+        // VERIFY
+        assertThat(success).isTrue();
+        assertThat(new File(outDir, JaxbIndexProcessor.RESOURCE)).doesNotExist();
+
+    }
+
+    @Test
+    public void testIncrementalCompile() throws IOException {
+
+        // PREPARE
+        assertThat(compile(allSources())).isTrue();
+        write("a/Root.java", "package a; public class Root { }");
+        write("c/Added.java", "package c; @javax.xml.bind.annotation.XmlRootElement public class Added { }");
+        Files.delete(new File(outDir, "ab/Other.class").toPath());
+
+        // TEST
+        final boolean success = compile(Arrays.asList(new File(srcDir, "a/Root.java"), new File(srcDir, "c/Added.java")), "-cp",
+                outDir.getPath());
+
+        // VERIFY
+        assertThat(success).isTrue();
+        // Unchanged classes are kept, the deleted class and the one without annotation are removed
+        assertThat(readIndex()).containsExactly(HEADER, "a.Outer$Nested", "a.b.Sub", "c.Added");
+
+    }
+
+    private boolean compile(final String... extraOptions) throws IOException {
+        final List<String> options = new ArrayList<>(Collections.singletonList("-proc:only"));
+        options.addAll(Arrays.asList(extraOptions));
+        return compile(allSources(), options.toArray(new String[options.size()]));
+    }
+
+    private boolean compile(final List<File> sources, final String... extraOptions) throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (final StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            final Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(sources);
+            final List<String> options = new ArrayList<>(Arrays.asList("-d", outDir.getPath()));
+            options.addAll(Arrays.asList(extraOptions));
+            final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, units);
+            task.setProcessors(Collections.singletonList(new JaxbIndexProcessor()));
+            return task.call();
+        }
+    }
+
+    private List<File> allSources() throws IOException {
+        try (final Stream<Path> paths = Files.walk(srcDir.toPath())) {
+            return paths.filter(Files::isRegularFile).map(Path::toFile).collect(Collectors.toList());
+        }
+    }
+
+    private List<String> readIndex() throws IOException {
+        return Files.readAllLines(new File(outDir, JaxbIndexProcessor.RESOURCE).toPath(), StandardCharsets.UTF_8);
+    }
+
+    private void write(final String path, final String content) throws IOException {
+        final File file = new File(srcDir, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // CHECKSTYLE:ON
+
+}
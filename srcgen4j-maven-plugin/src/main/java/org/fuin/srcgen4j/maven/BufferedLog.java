@@ -0,0 +1,219 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Maven log that collects all messages and writes them to another log when {@link #flush()} is called. Used when several executions run
+ * in parallel, so the output of an execution is not interleaved with the output of others. Level checks are delegated, so the SLF4J
+ * bridge does not collect disabled messages. The class is thread-safe.
+ */
+public final class BufferedLog implements Log {
+
+    private static final int DEBUG = 0;
+
+    private static final int INFO = 1;
+
+    private static final int WARN = 2;
+
+    private static final int ERROR = 3;
+
+    private final Log delegate;
+
+    private final List<Entry> entries;
+
+    /**
+     * Constructor with log to write to.
+     *
+     * @param delegate
+     *            Log that receives the messages on flush - Cannot be NULL.
+     */
+    public BufferedLog(final Log delegate) {
+        super();
+        this.delegate = delegate;
+        this.entries = new ArrayList<Entry>();
+    }
+
+    /**
+     * Writes all collected messages to the delegate in the order they were logged and clears the buffer.
+     */
+    public void flush() {
+        final List<Entry> copy;
+        synchronized (entries) {
+            copy = new ArrayList<Entry>(entries);
+            entries.clear();
+        }
+        // Maven's log is shared by all threads - Keep the output together
+        synchronized (delegate) {
+            for (final Entry entry : copy) {
+                entry.writeTo(delegate);
+            }
+        }
+    }
+
+    private void add(final int level, final CharSequence content, final Throwable error) {
+        synchronized (entries) {
+            entries.add(new Entry(level, content == null ? null : content.toString(), error));
+        }
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return delegate.isDebugEnabled();
+    }
+
+    @Override
+    public void debug(final CharSequence content) {
+        add(DEBUG, content, null);
+    }
+
+    @Override
+    public void debug(final CharSequence content, final Throwable error) {
+        add(DEBUG, content, error);
+    }
+
+    @Override
+    public void debug(final Throwable error) {
+        add(DEBUG, null, error);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return delegate.isInfoEnabled();
+    }
+
+    @Override
+    public void info(final CharSequence content) {
+        add(INFO, content, null);
+    }
+
+    @Override
+    public void info(final CharSequence content, final Throwable error) {
+        add(INFO, content, error);
+    }
+
+    @Override
+    public void info(final Throwable error) {
+        add(INFO, null, error);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return delegate.isWarnEnabled();
+    }
+
+    @Override
+    public void warn(final CharSequence content) {
+        add(WARN, content, null);
+    }
+
+    @Override
+    public void warn(final CharSequence content, final Throwable error) {
+        add(WARN, content, error);
+    }
+
+    @Override
+    public void warn(final Throwable error) {
+        add(WARN, null, error);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return delegate.isErrorEnabled();
+    }
+
+    @Override
+    public void error(final CharSequence content) {
+        add(ERROR, content, null);
+    }
+
+    @Override
+    public void error(final CharSequence content, final Throwable error) {
+        add(ERROR, content, error);
+    }
+
+    @Override
+    public void error(final Throwable error) {
+        add(ERROR, null, error);
+    }
+
+    /**
+     * A single log message.
+     */
+    private static final class Entry {
+
+        private final int level;
+
+        private final CharSequence content;
+
+        private final Throwable error;
+
+        Entry(final int level, final CharSequence content, final Throwable error) {
+            this.level = level;
+            this.content = content;
+            this.error = error;
+        }
+
+        void writeTo(final Log log) {
+            switch (level) {
+            case DEBUG:
+                if (content == null) {
+                    log.debug(error);
+                } else if (error == null) {
+                    log.debug(content);
+                } else {
+                    log.debug(content, error);
+                }
+                break;
+            case INFO:
+                if (content == null) {
+                    log.info(error);
+                } else if (error == null) {
+                    log.info(content);
+                } else {
+                    log.info(content, error);
+                }
+                break;
+            case WARN:
+                if (content == null) {
+                    log.warn(error);
+                } else if (error == null) {
+                    log.warn(content);
+                } else {
+                    log.warn(content, error);
+                }
+                break;
+            default:
+                if (content == null) {
+                    log.error(error);
+                } else if (error == null) {
+                    log.error(content);
+                } else {
+                    log.error(content, error);
+                }
+                break;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,335 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.fuin.srcgen4j.commons.GeneratorConfig;
+import org.fuin.srcgen4j.commons.ParserConfig;
+import org.fuin.srcgen4j.commons.SrcGen4JConfig;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Distributes the generators of a configuration over several worker JVMs that run {@link ForkedWorker}. Each generator is assigned to
+ * the worker with the lowest load so far, where every generator and every parser a worker has to execute counts as one. The generators
+ * of one parser therefore stay together as long as this does not leave a worker with less work, otherwise the parser runs in several
+ * workers. The output of every worker is collected and written to the Maven log when the worker terminates, so the messages of
+ * different workers are not interleaved. If a worker fails, the others are stopped.
+ */
+final class ForkedGeneration {
+
+    private final Log log;
+
+    private final String java;
+
+    private final List<String> jvmArgs;
+
+    private final File workDir;
+
+    /**
+     * Constructor with all data.
+     *
+     * @param log
+     *            Log for the output of the workers - Cannot be NULL.
+     * @param java
+     *            Java executable - Cannot be NULL.
+     * @param jvmArgs
+     *            Additional arguments for the worker JVMs like heap size or garbage collector - Cannot be NULL.
+     * @param workDir
+     *            Directory for the shard files - Cannot be NULL.
+     */
+    ForkedGeneration(final Log log, final String java, final List<String> jvmArgs, final File workDir) {
+        super();
+        this.log = log;
+        this.java = java;
+        this.jvmArgs = jvmArgs;
+        this.workDir = workDir;
+    }
+
+    /**
+     * Splits the parsers and generators of the configuration into shards.
+     *
+     * @param config
+     *            Initialized configuration - Cannot be NULL.
+     * @param forkCount
+     *            Maximum number of shards.
+     *
+     * @return Shards without empty ones.
+     */
+    static List<Shard> shards(final SrcGen4JConfig config, final int forkCount) {
+        final List<Shard> shards = new ArrayList<>();
+        for (int i = 0; i < forkCount; i++) {
+            shards.add(new Shard());
+        }
+        if (config.getParsers() != null && config.getParsers().getList() != null) {
+            for (final ParserConfig parserConfig : config.getParsers().getList()) {
+                final List<GeneratorConfig> generators = config.findGeneratorsForParser(parserConfig.getName());
+                if (generators == null || generators.isEmpty()) {
+                    cheapest(shards, parserConfig.getName()).add(parserConfig.getName(), null);
+                } else {
+                    for (final GeneratorConfig generatorConfig : generators) {
+                        cheapest(shards, parserConfig.getName()).add(parserConfig.getName(), generatorConfig.getName());
+                    }
+                }
+            }
+        }
+        shards.removeIf(shard -> shard.getParsers().isEmpty());
+        return shards;
+    }
+
+    private static Shard cheapest(final List<Shard> shards, final String parser) {
+        Shard best = null;
+        int bestCost = Integer.MAX_VALUE;
+        for (final Shard shard : shards) {
+            // A worker that does not execute the parser yet has to parse the models first
+            final int cost = shard.weight + (shard.parsers.contains(parser) ? 0 : 1);
+            if (cost < bestCost || (cost == bestCost && shard.parsers.contains(parser))) {
+                best = shard;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Starts one worker per shard and waits until all of them have terminated.
+     *
+     * @param shards
+     *            Shard descriptions, see {@link ForkedWorker} - Cannot be NULL.
+     *
+     * @throws MojoExecutionException
+     *             A worker could not be started or failed.
+     */
+    void execute(final List<Properties> shards) throws MojoExecutionException {
+        final String classpath = workerClasspath();
+        final List<Worker> workers = new ArrayList<>();
+        final BlockingQueue<Worker> finished = new LinkedBlockingQueue<>();
+        try {
+            for (int i = 0; i < shards.size(); i++) {
+                final File shardFile = new File(workDir, "shard-" + (i + 1) + ".properties");
+                ForkedWorker.write(shardFile, shards.get(i));
+                final List<String> command = new ArrayList<>();
+                command.add(java);
+                command.addAll(jvmArgs);
+                command.add("-cp");
+                command.add(classpath);
+                command.add(ForkedWorker.class.getName());
+                command.add(shardFile.getPath());
+                log.debug("Start worker " + (i + 1) + ": " + command);
+                final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+                final Worker worker = new Worker(i + 1, process, finished);
+                worker.start();
+                workers.add(worker);
+            }
+        } catch (final IOException ex) {
+            for (final Worker worker : workers) {
+                worker.process.destroy();
+            }
+            throw new MojoExecutionException("Error starting a worker JVM", ex);
+        }
+
+        final List<String> failed = new ArrayList<>();
+        for (int i = 0; i < workers.size(); i++) {
+            final Worker worker;
+            try {
+                worker = finished.take();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                for (final Worker other : workers) {
+                    other.process.destroy();
+                }
+                throw new MojoExecutionException("Interrupted while waiting for the worker JVMs", ex);
+            }
+            if (worker.exitCode != 0 && !worker.stopped) {
+                failed.add("#" + worker.number + " (exit code " + worker.exitCode + ")");
+                // No need to wait for the others, the generation failed anyway
+                for (final Worker other : workers) {
+                    if (other != worker && !other.stopped) {
+                        other.stopped = true;
+                        other.process.destroy();
+                    }
+                }
+            }
+            synchronized (log) {
+                String level = "info";
+                for (final String line : worker.lines) {
+                    level = forward(line, worker.number, level);
+                }
+            }
+        }
+        if (!failed.isEmpty()) {
+            throw new MojoExecutionException("Generation failed in worker JVM " + String.join(", ", failed));
+        }
+    }
+
+    private String forward(final String line, final int number, final String previous) {
+        String level = previous;
+        String message = line;
+        if (line.startsWith("[") && line.indexOf("] ") > 0) {
+            final String prefix = line.substring(1, line.indexOf("] "));
+            if (prefix.equals("debug") || prefix.equals("info") || prefix.equals("warning") || prefix.equals("error")) {
+                level = prefix;
+                message = line.substring(prefix.length() + 3);
+            }
+        }
+        // Lines without a level belong to the previous multi line message or stack trace
+        final String text = "[worker-" + number + "] " + message;
+        if (level.equals("error")) {
+            log.error(text);
+        } else if (level.equals("warning")) {
+            log.warn(text);
+        } else if (level.equals("debug")) {
+            log.debug(text);
+        } else {
+            log.info(text);
+        }
+        return level;
+    }
+
+    /**
+     * Returns the classpath of the plugin including the Maven logging API and SLF4J, which Maven provides to the plugin.
+     */
+    private static String workerClasspath() throws MojoExecutionException {
+        final Set<String> entries = new LinkedHashSet<>();
+        final ClassLoader classLoader = ForkedGeneration.class.getClassLoader();
+        if (classLoader instanceof URLClassLoader) {
+            for (final URL url : ((URLClassLoader) classLoader).getURLs()) {
+                entries.add(toPath(url));
+            }
+        }
+        entries.add(toPath(ForkedGeneration.class.getProtectionDomain().getCodeSource().getLocation()));
+        entries.add(toPath(Log.class.getProtectionDomain().getCodeSource().getLocation()));
+        entries.add(toPath(LoggerFactory.class.getProtectionDomain().getCodeSource().getLocation()));
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static String toPath(final URL url) throws MojoExecutionException {
+        try {
+            return new File(url.toURI()).getPath();
+        } catch (final URISyntaxException ex) {
+            throw new MojoExecutionException("Invalid classpath entry: " + url, ex);
+        }
+    }
+
+    /**
+     * Parsers and generators executed by one worker JVM.
+     */
+    static final class Shard {
+
+        private final List<String> parsers = new ArrayList<>();
+
+        private final List<String> generators = new ArrayList<>();
+
+        private int weight;
+
+        private void add(final String parser, final String generator) {
+            if (!parsers.contains(parser)) {
+                parsers.add(parser);
+                weight++;
+            }
+            if (generator != null) {
+                generators.add(generator);
+                weight++;
+            }
+        }
+
+        /**
+         * Returns the names of the parsers to execute.
+         *
+         * @return Parser names in configuration order.
+         */
+        List<String> getParsers() {
+            return parsers;
+        }
+
+        /**
+         * Returns the names of the generators to execute.
+         *
+         * @return Generator names in configuration order.
+         */
+        List<String> getGenerators() {
+            return generators;
+        }
+
+    }
+
+    /**
+     * Thread that collects the output of a worker JVM.
+     */
+    private static final class Worker extends Thread {
+
+        private final int number;
+
+        private final Process process;
+
+        private final List<String> lines;
+
+        private final BlockingQueue<Worker> finished;
+
+        private volatile int exitCode;
+
+        private boolean stopped;
+
+        Worker(final int number, final Process process, final BlockingQueue<Worker> finished) {
+            super("srcgen4j-fork-" + number);
+            setDaemon(true);
+            this.number = number;
+            this.process = process;
+            this.lines = new ArrayList<>();
+            this.finished = finished;
+        }
+
+        @Override
+        public void run() {
+            try (final BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), Charset.defaultCharset()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            } catch (final IOException ex) {
+                lines.add("[error] Error reading the output: " + ex);
+            }
+            try {
+                exitCode = process.waitFor();
+            } catch (final InterruptedException ex) {
+                lines.add("[error] Interrupted while waiting for the worker");
+                exitCode = -1;
+            }
+            finished.add(this);
+        }
+
+    }
+
+}
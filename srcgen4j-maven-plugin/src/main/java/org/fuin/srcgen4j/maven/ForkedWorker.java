@@ -0,0 +1,173 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.fuin.srcgen4j.commons.DefaultContext;
+import org.fuin.srcgen4j.commons.SrcGen4JConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.impl.StaticLoggerBinder;
+
+/**
+ * Main class of a worker JVM forked by {@link SrcGen4JMojo}. The only argument is a properties file that describes the shard to generate:
+ * The configuration file, the classes to bind to the JAXB context, the classpath of the project, the names of the parsers and
+ * generators and the number of threads. The worker does not reference Maven classes except the logging API, because only the plugin
+ * jars are on its classpath. Folders are never cleaned by a worker, this is done by the Maven process. Log messages are written to
+ * standard out in the format of {@link SystemStreamLog} and the exit code is zero if, and only if, the generation succeeded.
+ */
+public final class ForkedWorker {
+
+    /** Key for the canonical path of the configuration file. */
+    static final String CONFIG_FILE = "configFile";
+
+    /** Key for the comma separated names of the classes to bind to the JAXB context. */
+    static final String JAXB_CLASSES = "jaxbClassesToBeBound";
+
+    /** Key for the classpath of the project. */
+    static final String CLASSPATH = "classpath";
+
+    /** Key for the comma separated names of the parsers to execute. */
+    static final String PARSERS = "parsers";
+
+    /** Key for the comma separated names of the generators to execute. */
+    static final String GENERATORS = "generators";
+
+    /** Key for the comma separated names of the selected generators or missing if all are selected. */
+    static final String SELECTED_GENERATORS = "selectedGenerators";
+
+    /** Key for the comma separated names of the selected parsers or missing if all are selected. */
+    static final String SELECTED_PARSERS = "selectedParsers";
+
+    /** Key for the number of threads. */
+    static final String THREADS = "threads";
+
+    /** Key for the model cache directory or missing if the model cache is not used. */
+    static final String MODEL_CACHE_DIRECTORY = "modelCacheDirectory";
+
+    /** Key for the salt of the model cache. */
+    static final String MODEL_CACHE_SALT = "modelCacheSalt";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ForkedWorker.class);
+
+    private ForkedWorker() {
+        throw new UnsupportedOperationException("It is not allowed to create an instance of a utility class");
+    }
+
+    /**
+     * Writes the description of a shard to a file.
+     *
+     * @param file
+     *            File to write - Cannot be NULL.
+     * @param shard
+     *            Shard description - Cannot be NULL.
+     *
+     * @throws IOException
+     *             Error writing the file.
+     */
+    static void write(final File file, final Properties shard) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        try (final OutputStream out = Files.newOutputStream(file.toPath())) {
+            shard.store(out, "SrcGen4J worker shard");
+        }
+    }
+
+    /**
+     * Executes the parsers and generators of a shard.
+     *
+     * @param args
+     *            Properties file with the shard description.
+     */
+    public static void main(final String[] args) {
+        StaticLoggerBinder.getSingleton().setMavenLog(new SystemStreamLog());
+        if (args.length != 1) {
+            LOG.error("Expected exactly one argument (shard file), but was: " + Arrays.asList(args));
+            System.exit(2);
+        }
+        try {
+            execute(read(new File(args[0])));
+        } catch (final Exception ex) {
+            LOG.error("Worker failed: " + args[0], ex);
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private static void execute(final Properties shard) throws Exception {
+        final long start = System.nanoTime();
+        final File configFile = new File(shard.getProperty(CONFIG_FILE));
+        final List<File> cp = new ArrayList<>();
+        for (final String entry : shard.getProperty(CLASSPATH, "").split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                cp.add(new File(entry));
+            }
+        }
+        final ClassLoader classLoader = ForkedWorker.class.getClassLoader();
+        final DefaultContext context = new DefaultContext(classLoader, cp);
+
+        final ConfigSelection selection = new ConfigSelection(shard.getProperty(SELECTED_GENERATORS), shard.getProperty(SELECTED_PARSERS));
+        final String[] jaxbClasses = split(shard.getProperty(JAXB_CLASSES, "")).toArray(new String[0]);
+        final SrcGen4JConfig config = new ConfigLoader(jaxbClasses, selection, null).load(context, configFile);
+
+        final Set<String> parsers = split(shard.getProperty(PARSERS, ""));
+        final Set<String> generators = split(shard.getProperty(GENERATORS, ""));
+        final ParallelSrcGen4J srcGen4J = new ParallelSrcGen4J(config, Integer.parseInt(shard.getProperty(THREADS, "1")))
+                .withCleanFolders(false).withParserFilter(parserConfig -> parsers.contains(parserConfig.getName()))
+                .withGeneratorFilter(generatorConfig -> generators.contains(generatorConfig.getName()));
+        final String modelCacheDirectory = shard.getProperty(MODEL_CACHE_DIRECTORY);
+        if (modelCacheDirectory != null) {
+            srcGen4J.withModelProvider(new ModelCache(new File(modelCacheDirectory), RawConfig.read(configFile),
+                    shard.getProperty(MODEL_CACHE_SALT, ""), classLoader));
+        }
+        srcGen4J.execute();
+        LOG.info("Worker finished parsers " + new TreeSet<>(parsers) + " and generators " + new TreeSet<>(generators) + " in "
+                + ((System.nanoTime() - start) / 1000000L) + " ms");
+    }
+
+    private static Properties read(final File file) throws IOException {
+        final Properties props = new Properties();
+        try (final InputStream in = Files.newInputStream(file.toPath())) {
+            props.load(in);
+        }
+        return props;
+    }
+
+    private static Set<String> split(final String value) {
+        final Set<String> result = new HashSet<>();
+        for (final String part : value.split(",")) {
+            if (!part.trim().isEmpty()) {
+                result.add(part.trim());
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import org.fuin.srcgen4j.commons.ParseException;
+import org.fuin.srcgen4j.commons.ParserConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Models shared by the configurations of several modules. Parsers with the same key and the same class loader are executed only once
+ * and all later requests return the same model instance. A model is never handed to a module with another class loader, as its classes
+ * would not be compatible with the generators of that module. Parsers without a registered key are always executed.
+ */
+final class SharedModels implements ModelProvider {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SharedModels.class);
+
+    private final Map<ParserConfig, Key> keys;
+
+    private final Map<Key, CompletableFuture<Object>> models;
+
+    private int parsed;
+
+    private int reused;
+
+    /**
+     * Default constructor.
+     */
+    SharedModels() {
+        super();
+        this.keys = new IdentityHashMap<>();
+        this.models = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Registers the key of a parser. Must be called before the models are requested.
+     *
+     * @param parserConfig
+     *            Parser configuration - Cannot be NULL.
+     * @param classLoader
+     *            Class loader of the context the parser and its generators run in - Cannot be NULL.
+     * @param key
+     *            Key that is equal for parsers that create the same model - Cannot be NULL.
+     */
+    void register(final ParserConfig parserConfig, final ClassLoader classLoader, final String key) {
+        keys.put(parserConfig, new Key(classLoader, key));
+    }
+
+    @Override
+    public Object getModel(final ParserConfig parserConfig) throws ParseException {
+        final Key key = keys.get(parserConfig);
+        if (key == null) {
+            return parserConfig.getParser().parse();
+        }
+        final CompletableFuture<Object> created = new CompletableFuture<>();
+        final CompletableFuture<Object> existing = models.putIfAbsent(key, created);
+        if (existing == null) {
+            try {
+                final Object model = parserConfig.getParser().parse();
+                created.complete(model);
+                count(true);
+                return model;
+            } catch (final ParseException | RuntimeException ex) {
+                created.completeExceptionally(ex);
+                throw ex;
+            }
+        }
+        LOG.debug("Reusing model of parser '{}'", parserConfig.getName());
+        count(false);
+        try {
+            return existing.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ParseException("Interrupted while waiting for the model of parser: " + parserConfig.getName(), ex);
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof ParseException) {
+                throw (ParseException) ex.getCause();
+            }
+            throw new ParseException("Error parsing model of parser: " + parserConfig.getName(), ex.getCause());
+        }
+    }
+
+    private synchronized void count(final boolean parse) {
+        if (parse) {
+            parsed++;
+        } else {
+            reused++;
+        }
+    }
+
+    /**
+     * Parser definition together with the class loader it is used with. Class loaders are compared by identity.
+     */
+    private static final class Key {
+
+        private final ClassLoader classLoader;
+
+        private final String definition;
+
+        Key(final ClassLoader classLoader, final String definition) {
+            super();
+            this.classLoader = classLoader;
+            this.definition = definition;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(classLoader) + definition.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return classLoader == other.classLoader && definition.equals(other.definition);
+        }
+
+    }
+
+    /**
+     * Returns the number of models that were parsed.
+     *
+     * @return Number of parser executions.
+     */
+    synchronized int getParsed() {
+        return parsed;
+    }
+
+    /**
+     * Returns the number of times an already parsed model was returned.
+     *
+     * @return Number of avoided parser executions.
+     */
+    synchronized int getReused() {
+        return reused;
+    }
+
+}
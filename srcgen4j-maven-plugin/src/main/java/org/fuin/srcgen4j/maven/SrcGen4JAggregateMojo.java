@@ -0,0 +1,251 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.bind.JAXBException;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.fuin.srcgen4j.commons.DefaultContext;
+import org.fuin.srcgen4j.commons.GenerateException;
+import org.fuin.srcgen4j.commons.ParseException;
+import org.fuin.srcgen4j.commons.ParserConfig;
+import org.fuin.srcgen4j.commons.SrcGen4JConfig;
+import org.slf4j.impl.StaticLoggerBinder;
+
+/**
+ * Executes the configurations of all modules of the reactor in one step. Parsers with the same class and the same configuration (after
+ * resolving all variables and paths) are executed only once and their model is passed to the generators of all modules. This way the
+ * parse time grows with the number of distinct models and not with the number of modules. Use this goal in the parent project instead of
+ * the 'process-template' goal in the modules. Generators must not modify the model, because it is shared. A parser whose configuration
+ * contains relative values other than the attributes ending with 'Path' or 'Dir' is only shared within its module. Models are only
+ * shared between modules whose contexts use the same class loader, so with 'classIndex' only modules with the same classpath share
+ * them. The output folders of a module are locked while its generators run, and 'generators' and 'parsers' select what runs, like in
+ * the 'process-template' goal. The goal always runs the selected parsers and generators: It does not clean incrementally, does not skip
+ * modules that are up-to-date and does not write a generation report.
+ * 
+ * @aggregator
+ * @requiresDependencyResolution compile
+ * @requiresProject true
+ * @goal process-templates-aggregate
+ * @phase generate-sources
+ */
+public final class SrcGen4JAggregateMojo extends AbstractMojo {
+
+    /**
+     * The projects of the reactor.
+     * 
+     * @parameter default-value="${reactorProjects}"
+     * @required
+     * @readonly
+     */
+    private List<MavenProject> reactorProjects;
+
+    /**
+     * Name of the configuration file in the base directory of each module. Modules without this file are ignored.
+     * 
+     * @parameter property="srcgen4j.configFileName" default-value="srcgen4j-config.xml"
+     * @required
+     */
+    private String configFileName;
+
+    /**
+     * A list of JAXB classes to be bound to the JAXB context.
+     * 
+     * @parameter
+     * @readonly
+     */
+    private String[] jaxbClassesToBeBound;
+
+    /**
+     * Comma separated names of the generators to execute in every module. See the 'process-template' goal.
+     * 
+     * @parameter property="srcgen4j.generators"
+     */
+    private String generators;
+
+    /**
+     * Comma separated names of the parsers to execute in every module. See the 'process-template' goal.
+     * 
+     * @parameter property="srcgen4j.parsers"
+     */
+    private String parsers;
+
+    /**
+     * Maximum number of parsers and generators of a module running concurrently.
+     * 
+     * @parameter property="srcgen4j.threads" default-value="1"
+     */
+    private int threads;
+
+    /**
+     * Loads the 'jaxbClassesToBeBound' and the parsers and generators that are not part of the plugin from the compile classpath of the
+     * module. An index of the packages in every jar is kept in 'classIndexDirectory', so a class or resource is looked up only in the jars
+     * that contain its package. A jar is indexed again if its size or last modification time changes. Each classpath gets its own
+     * class loader, so models are not shared between modules with different classpaths.
+     * 
+     * @parameter property="srcgen4j.classIndex" default-value="false"
+     */
+    private boolean classIndex;
+
+    /**
+     * Directory for the class index files. Can be shared by all projects, as the files are named after the path of the jar.
+     * 
+     * @parameter property="srcgen4j.classIndexDirectory" default-value="${user.home}/.srcgen4j/class-index"
+     */
+    private File classIndexDirectory;
+
+    /**
+     * Log levels for the SLF4J loggers used by the plugin, parsers and generators. See the 'process-template' goal.
+     * 
+     * @parameter
+     */
+    private Map<String, String> logLevels;
+
+    @SuppressWarnings("unchecked")
+    private List<File> createCp(final MavenProject module) throws MojoExecutionException {
+        try {
+            final List<File> entries = new ArrayList<File>();
+            final List<String> cpElements = (List<String>) module.getCompileClasspathElements();
+            for (final String cpElement : cpElements) {
+                entries.add(new File(cpElement));
+            }
+            return ContextCache.normalize(entries);
+        } catch (final DependencyResolutionRequiredException ex) {
+            throw new MojoExecutionException("Error resolving classpath entries of " + module.getId(), ex);
+        }
+    }
+
+    private SrcGen4JConfig createAndInit(final DefaultContext context, final File configFile) throws MojoExecutionException {
+        try {
+            return new ConfigLoader(jaxbClassesToBeBound, new ConfigSelection(generators, parsers), null).load(context, configFile);
+        } catch (final ClassNotFoundException ex) {
+            throw new MojoExecutionException(ex.getMessage(), ex);
+        } catch (final JAXBException ex) {
+            throw new MojoExecutionException("Error creating the JAXB context", ex);
+        } catch (final IOException ex) {
+            throw new MojoExecutionException("Error reading configuration: " + configFile, ex);
+        }
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        StaticLoggerBinder.getSingleton().setMavenLog(getLog());
+        try {
+            StaticLoggerBinder.getSingleton().bind(getLog(), logLevels);
+        } catch (final IllegalArgumentException ex) {
+            throw new MojoExecutionException("Invalid 'logLevels' configuration", ex);
+        }
+        try {
+            generate();
+        } finally {
+            StaticLoggerBinder.getSingleton().unbind();
+        }
+    }
+
+    private void generate() throws MojoExecutionException {
+        final SharedModels models = new SharedModels();
+        final Map<MavenProject, SrcGen4JConfig> configs = new LinkedHashMap<MavenProject, SrcGen4JConfig>();
+        for (final MavenProject module : reactorProjects) {
+            final File configFile = new File(module.getBasedir(), configFileName);
+            if (!configFile.isFile()) {
+                getLog().debug("No configuration found: " + configFile);
+                continue;
+            }
+            final DefaultContext context = ContextCache.getOrCreate(this.getClass().getClassLoader(), createCp(module),
+                    classIndex ? classIndexDirectory : null);
+            final SrcGen4JConfig config = createAndInit(context, configFile);
+            register(models, context.getClassLoader(), config, configFile);
+            configs.put(module, config);
+        }
+
+        for (final Map.Entry<MavenProject, SrcGen4JConfig> entry : configs.entrySet()) {
+            getLog().info("Generating sources for " + entry.getKey().getId());
+            try (final FolderLocks.Handle locks = FolderLocks.lock(ConfigUtils.folderDirs(entry.getValue()))) {
+                new ParallelSrcGen4J(entry.getValue(), threads).withModelProvider(models)
+                        .withTaskDecorator(StaticLoggerBinder.getSingleton()::bound).execute();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted while waiting for the output folders of " + entry.getKey().getId(), ex);
+            } catch (final ParseException ex) {
+                throw new MojoExecutionException("Parsing error in " + entry.getKey().getId(), ex);
+            } catch (final GenerateException ex) {
+                throw new MojoExecutionException("Generation error in " + entry.getKey().getId(), ex);
+            }
+        }
+        getLog().info("Parsed " + models.getParsed() + " models for " + configs.size() + " modules, " + models.getReused()
+                + " reused");
+    }
+
+    /**
+     * Registers the parsers of a configuration with a key that is equal for identical parser definitions.
+     * 
+     * @param models
+     *            Shared models.
+     * @param classLoader
+     *            Class loader of the module's context.
+     * @param config
+     *            Initialized configuration.
+     * @param configFile
+     *            File the configuration was read from.
+     * 
+     * @throws MojoExecutionException
+     *             Error reading the configuration file.
+     */
+    private void register(final SharedModels models, final ClassLoader classLoader, final SrcGen4JConfig config, final File configFile)
+            throws MojoExecutionException {
+        final RawConfig rawConfig;
+        try {
+            rawConfig = RawConfig.read(configFile);
+        } catch (final IOException ex) {
+            throw new MojoExecutionException("Error reading configuration: " + configFile, ex);
+        }
+        if (config.getParsers() == null || config.getParsers().getList() == null) {
+            return;
+        }
+        final Map<String, String> definitions = new HashMap<String, String>();
+        for (final RawConfig.ParserEntry entry : rawConfig.getParsers()) {
+            // Unresolved variables make definitions incomparable
+            if (entry.isResolved()) {
+                if (entry.isRootIndependent()) {
+                    definitions.put(entry.getName(), entry.getDefinition());
+                } else {
+                    // Relative values are only equal within the same module
+                    definitions.put(entry.getName(), rawConfig.getRootDir().getPath() + "|" + entry.getDefinition());
+                }
+            }
+        }
+        for (final ParserConfig parserConfig : config.getParsers().getList()) {
+            final String definition = definitions.get(parserConfig.getName());
+            if (definition != null) {
+                models.register(parserConfig, classLoader, definition);
+            }
+        }
+    }
+
+}
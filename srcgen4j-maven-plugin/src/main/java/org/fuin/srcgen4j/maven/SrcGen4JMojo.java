@@ -18,36 +18,53 @@
 package org.fuin.srcgen4j.maven;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.fuin.srcgen4j.commons.DefaultContext;
 import org.fuin.srcgen4j.commons.GenerateException;
+import org.fuin.srcgen4j.commons.GeneratorConfig;
 import org.fuin.srcgen4j.commons.ParseException;
-import org.fuin.srcgen4j.commons.SrcGen4J;
 import org.fuin.srcgen4j.commons.SrcGen4JConfig;
 import org.fuin.srcgen4j.commons.SrcGen4JContext;
 import org.fuin.utils4j.Utils4J;
-import org.fuin.utils4j.jaxb.JaxbUtils;
-import org.fuin.utils4j.jaxb.UnmarshallerBuilder;
 import org.slf4j.impl.StaticLoggerBinder;
 
 /**
- * A customizable source code generator plugin for maven.
+ * A customizable source code generator plugin for maven. Executions may run in parallel ('mvn -T'). Each execution has its own log and
+ * state, and executions that write to the same folders are serialized.
  * 
  * @requiresDependencyResolution compile
  * @requiresProject true
  * @goal process-template
  * @phase generate-sources
+ * @threadSafe
  */
 public final class SrcGen4JMojo extends AbstractMojo {
 
@@ -61,7 +78,7 @@ public final class SrcGen4JMojo extends AbstractMojo {
     private MavenProject project;
 
     /**
-     * The configuration file.
+     * The configuration file. Ignored if 'configFiles' is set.
      * 
      * @parameter default-value="${basedir}/srcgen4j-config.xml"
      * @required
@@ -70,13 +87,260 @@ public final class SrcGen4JMojo extends AbstractMojo {
     private File configFile;
 
     /**
-     * A list of JAXB classes to be bound to the JAXB context.
+     * A list of JAXB classes to be bound to the JAXB context. Classes listed in a 'META-INF/srcgen4j/jaxb.index' resource on the
+     * classpath, for example created by the JaxbIndexProcessor of 'srcgen4j-maven-jaxb-index', are bound automatically.
      * 
      * @parameter
      * @readonly
      */
     private String[] jaxbClassesToBeBound;
 
+    /**
+     * Skips the generation if the configuration, the models, the templates, the classpath and the plugin are unchanged since the last
+     * successful run and the generated files were not touched in the meantime. Only attributes of a parser or generator configuration
+     * ending with 'Path' or 'Dir' are known as inputs. A configuration with any other attribute or with text content is always executed,
+     * because it may read inputs that are not checked.
+     * 
+     * @parameter property="srcgen4j.skipIfUpToDate" default-value="true"
+     */
+    private boolean skipIfUpToDate;
+
+    /**
+     * Comma separated names of the generators to execute. Only the parsers used by these generators run. Unselected parsers and
+     * generators are removed from the configuration before it is read, so they are never instantiated. The up-to-date check is skipped
+     * if a selection is active. All generators are executed if no name is given.
+     * 
+     * @parameter property="srcgen4j.generators"
+     */
+    private String generators;
+
+    /**
+     * Comma separated names of the parsers to execute. Only the generators of these parsers run. All parsers are executed if no name is
+     * given.
+     * 
+     * @parameter property="srcgen4j.parsers"
+     */
+    private String parsers;
+
+    /**
+     * Maximum number of parsers and generators running concurrently. With the default value of '1' everything runs sequentially on the
+     * Maven thread. With a greater value all parsers start at once and each generator starts as soon as the parser it depends on has
+     * finished. Generators of the same parser share the model, so they must not modify it.
+     * 
+     * @parameter property="srcgen4j.threads" default-value="1"
+     */
+    private int threads;
+
+    /**
+     * Keeps the last modification time of generated files whose content did not change. The content of all files in the output folders
+     * is compared by hash with the state before the generation and the old timestamp is restored for identical files. This way the
+     * compiler and IDEs only see the files that really changed. A summary with the number of written, unchanged and deleted files is
+     * logged.
+     * 
+     * @parameter property="srcgen4j.writeIfChanged" default-value="false"
+     */
+    private boolean writeIfChanged;
+
+    /**
+     * Removes only stale files from the folders marked with 'clean' instead of deleting their content before the generation. The files
+     * produced by every generator are stored in a manifest and files that are no longer produced are deleted after the generation. The
+     * result is the same as with a full clean, but valid files stay in place. The first run and folders that do not allow overriding
+     * files are still cleaned completely. Generators write their files directly, so a file counts as produced if its modification time
+     * changed during the run. This requires generators that rewrite every file they produce: a file that a generator skips because it
+     * is unchanged is deleted as stale. The option is therefore disabled by default and should only be enabled if all generators of the
+     * configuration rewrite their files.
+     * 
+     * @parameter property="srcgen4j.incrementalClean" default-value="false"
+     */
+    private boolean incrementalClean;
+
+    /**
+     * Stores the model of each parser on disk and loads it from there as long as the parser definition, the content of its input files,
+     * the plugin and the classpath are unchanged. Only parsers whose inputs are known (configuration attributes ending with 'Path' or
+     * 'Dir') and models that are serializable are cached.
+     * 
+     * @parameter property="srcgen4j.modelCache" default-value="false"
+     */
+    private boolean modelCache;
+
+    /**
+     * Directory for the model cache.
+     * 
+     * @parameter property="srcgen4j.modelCacheDirectory" default-value="${project.build.directory}/srcgen4j-cache"
+     */
+    private File modelCacheDirectory;
+
+    /**
+     * Restores the output of a generator from a local build cache instead of executing it, as long as the generator definition, the
+     * content of its inputs and the inputs of its parser, the plugin and the classpath are unchanged. Only generators whose inputs are
+     * known and whose output folders are not shared with other generators are cached. Not used with 'forkCount' &gt; 0.
+     * 
+     * @parameter property="srcgen4j.buildCache" default-value="false"
+     */
+    private boolean buildCache;
+
+    /**
+     * Directory for the build cache. Paths below the directory of the configuration file are stored relative, so the directory can be
+     * shared by several workspaces.
+     * 
+     * @parameter property="srcgen4j.buildCacheDirectory" default-value="${user.home}/.srcgen4j/build-cache"
+     */
+    private File buildCacheDirectory;
+
+    /**
+     * Maximum size of the build cache in megabytes. The least recently used entries are deleted if the cache grows beyond this size.
+     * 
+     * @parameter property="srcgen4j.buildCacheMaxSize" default-value="1024"
+     */
+    private long buildCacheMaxSize;
+
+    /**
+     * Loads the 'jaxbClassesToBeBound' and the parsers and generators that are not part of the plugin from the compile classpath of the
+     * project. An index of the packages in every jar is kept in 'classIndexDirectory', so a class or resource is looked up only in the jars
+     * that contain its package. A jar is indexed again if its size or last modification time changes. Forked workers do not use the index.
+     * 
+     * @parameter property="srcgen4j.classIndex" default-value="false"
+     */
+    private boolean classIndex;
+
+    /**
+     * Directory for the class index files. Can be shared by all projects, as the files are named after the path of the jar.
+     * 
+     * @parameter property="srcgen4j.classIndexDirectory" default-value="${user.home}/.srcgen4j/class-index"
+     */
+    private File classIndexDirectory;
+
+    /**
+     * Executes parameterized template parser/generator pairs in streaming mode. The model files are read incrementally and every target
+     * file is handed over to the writer threads ('threads') through a bounded queue, so the model is never completely in memory. Only
+     * models with 'arguments' and 'target-file' elements are supported. Other generators run as usual, and so does a generator whose
+     * models turn out to contain other elements while they are streamed.
+     * 
+     * @parameter property="srcgen4j.streamTemplates" default-value="false"
+     */
+    private boolean streamTemplates;
+
+    /**
+     * Maximum number of target files read ahead in streaming mode.
+     * 
+     * @parameter property="srcgen4j.streamQueueSize" default-value="1000"
+     */
+    private int streamQueueSize;
+
+    /**
+     * Number of worker JVMs to fork for the generation. With the default value of '0' everything runs inside the Maven JVM. With a
+     * greater value the generators are distributed over the workers. The generators of a parser run in one worker unless this leaves
+     * another worker idle, then the parser runs in each worker that executes one of its generators.
+     * Every worker uses 'threads' threads. The Maven JVM only reads the configuration, cleans the folders and collects the output of the
+     * workers. Streaming mode is not supported in workers.
+     * 
+     * @parameter property="srcgen4j.forkCount" default-value="0"
+     */
+    private int forkCount;
+
+    /**
+     * Additional arguments for the worker JVMs, for example heap size and garbage collector ("-Xmx4g -XX:+UseParallelGC").
+     * 
+     * @parameter property="srcgen4j.forkArgLine"
+     */
+    private String forkArgLine;
+
+    /**
+     * Java executable used to start the worker JVMs.
+     * 
+     * @parameter property="srcgen4j.forkJvm" default-value="${java.home}/bin/java"
+     */
+    private String forkJvm;
+
+    /**
+     * Directory used to store the state of the plugin between runs.
+     * 
+     * @parameter default-value="${project.build.directory}/srcgen4j"
+     * @required
+     */
+    private File workDirectory;
+
+    /**
+     * Logs a table with the time spent in each phase and in every parser and generator at INFO level and writes the same numbers to
+     * {@link #reportFile}. For each generator the number of files, bytes and files per second is determined from the files modified in
+     * its output folders while it was running.
+     * 
+     * @parameter property="srcgen4j.report" default-value="true"
+     */
+    private boolean report;
+
+    /**
+     * JSON file the timing report is written to.
+     * 
+     * @parameter property="srcgen4j.reportFile" default-value="${project.build.directory}/srcgen4j-report.json"
+     */
+    private File reportFile;
+
+    /**
+     * Measures the render time and output size per template and per target file and logs the slowest ones with p50, p95 and maximum at
+     * the end. Single files are only measured for generators rendered by the plugin ('streamTemplates'), all other generators are
+     * measured as a whole. Not used with 'forkCount' &gt; 0.
+     * 
+     * @parameter property="srcgen4j.profile" default-value="false"
+     */
+    private boolean profile;
+
+    /**
+     * Number of slowest templates and target files logged by the profiler.
+     * 
+     * @parameter property="srcgen4j.profileTop" default-value="10"
+     */
+    private int profileTop;
+
+    /**
+     * Log levels for the SLF4J loggers used by the plugin, parsers and generators. The element name is a logger name or a prefix of it
+     * and the value one of 'trace', 'debug', 'info', 'warn', 'error' or 'off'. The longest matching prefix wins and 'root' applies to all
+     * other loggers. Messages are only formatted if the level is enabled both here and in Maven.
+     * 
+     * @parameter
+     */
+    private Map<String, String> logLevels;
+
+    /**
+     * Collects all log messages of the execution and writes them at the end in one block. This keeps the output of a module together when
+     * Maven builds several modules in parallel.
+     * 
+     * @parameter property="srcgen4j.bufferLog" default-value="${session.parallel}"
+     */
+    private boolean bufferLog;
+
+    /**
+     * The descriptor of this plugin.
+     * 
+     * @parameter default-value="${plugin}"
+     * @required
+     * @readonly
+     */
+    private PluginDescriptor plugin;
+
+    /**
+     * Configuration files or glob patterns like 'src/main/srcgen4j/*.xml' relative to the project directory. If set, all matching files
+     * are processed by this execution instead of 'configFile'. The classpath, the class loader and the JAXB context are only created
+     * once and the configurations run concurrently ('configThreads'). The execution fails if two configurations write to the same
+     * output folder or to folders nested in each other.
+     * 
+     * @parameter property="srcgen4j.configFiles"
+     */
+    private String[] configFiles;
+
+    /**
+     * Maximum number of configuration files processed concurrently if 'configFiles' is used.
+     * 
+     * @parameter property="srcgen4j.configThreads" default-value="4"
+     */
+    private int configThreads;
+
+    /** Log of the current execution or NULL if messages go directly to Maven. */
+    private BufferedLog bufferedLog;
+
+    /** Profiler of the current execution or NULL if not enabled. */
+    private RenderProfiler renderProfiler;
+
     /**
      * Checks if a variable is not <code>null</code> and throws an <code>IllegalNullArgumentException</code> if this rule is violated.
      * 
@@ -103,26 +367,14 @@ public final class SrcGen4JMojo extends AbstractMojo {
                 final File file = new File(cpElement);
                 entries.add(file);
             }
-            return entries;
+            return ContextCache.normalize(entries);
         } catch (final DependencyResolutionRequiredException ex) {
             throw new MojoExecutionException("Error resolving classpath entries", ex);
         }
     }
 
-    private Class<?>[] getJaxbContextClasses(final ClassLoader classLoader) throws MojoExecutionException {
-        final Set<Class<?>> classes = new HashSet<Class<?>>();
-        classes.add(SrcGen4JConfig.class);
-        if ((jaxbClassesToBeBound != null) && (jaxbClassesToBeBound.length > 0)) {
-            for (final String name : jaxbClassesToBeBound) {
-                try {
-                    final Class<?> clasz = classLoader.loadClass(name);
-                    classes.add(clasz);
-                } catch (final ClassNotFoundException ex) {
-                    throw new MojoExecutionException("Class to add to JAXB context not found: " + name, ex);
-                }
-            }
-        }
-        return classes.toArray(new Class<?>[classes.size()]);
+    private ConfigSelection selection() {
+        return new ConfigSelection(generators, parsers);
     }
 
     /**
@@ -139,43 +391,676 @@ public final class SrcGen4JMojo extends AbstractMojo {
      *             Error reading the configuration.
      */
     public SrcGen4JConfig createAndInit(final SrcGen4JContext context, final File configFile) throws MojoExecutionException {
+        return new ConfigRun(configFile, false, true).createAndInit(context);
+    }
+
+    /**
+     * Returns the configuration files of this execution.
+     * 
+     * @return 'configFiles' resolved or 'configFile'.
+     * 
+     * @throws MojoExecutionException
+     *             No file matches 'configFiles' or a directory could not be searched.
+     */
+    private List<File> configFiles() throws MojoExecutionException {
+        if (configFiles == null || configFiles.length == 0) {
+            checkNotNull("configFile", configFile);
+            return Collections.singletonList(configFile);
+        }
+        final List<File> files;
         try {
-            final Class<?>[] classes = getJaxbContextClasses(context.getClassLoader());
-            final SrcGen4JConfig config = JaxbUtils
-                    .unmarshal(new UnmarshallerBuilder().withContext(JAXBContext.newInstance(classes)).build(), configFile);
-            config.init(context, Utils4J.getCanonicalFile(configFile.getParentFile()));
-            return config;
-        } catch (final JAXBException ex) {
-            throw new MojoExecutionException("Error creating the JAXB context", ex);
+            files = ConfigFiles.resolve(project.getBasedir(), Arrays.asList(configFiles));
+        } catch (final IOException ex) {
+            throw new MojoExecutionException("Error searching the configuration files: " + Arrays.asList(configFiles), ex);
+        }
+        if (files.isEmpty()) {
+            throw new MojoExecutionException("No configuration file found: " + Arrays.asList(configFiles));
+        }
+        return files;
+    }
+
+    /**
+     * Creates a fingerprint of everything that influences the generation result.
+     * 
+     * @param rawConfig
+     *            Configuration that lists the inputs.
+     * @param cp
+     *            Classpath entries.
+     * 
+     * @return Fingerprint or NULL if the inputs cannot be determined.
+     * 
+     * @throws IOException
+     *             Error reading the inputs.
+     */
+    private String inputFingerprint(final RawConfig rawConfig, final List<File> cp) throws IOException {
+        if (!rawConfig.isComplete()) {
+            return null;
+        }
+        final Fingerprint fingerprint = new Fingerprint();
+        addEnvironment(fingerprint, cp);
+        fingerprint.addContent(rawConfig.getFile());
+        for (final InputRoot input : rawConfig.getInputs()) {
+            fingerprint.addFileInfos(input);
+        }
+        return fingerprint.toHex();
+    }
+
+    /**
+     * Adds the plugin, its dependencies, the JAXB classes and the classpath to a fingerprint. Directories on the classpath (like the
+     * output directory of the project) are added with path, size and last modification time of every file below them.
+     * 
+     * @param fingerprint
+     *            Fingerprint to add the data to.
+     * @param cp
+     *            Classpath entries.
+     * 
+     * @throws IOException
+     *             Error reading the classpath entries.
+     */
+    private void addEnvironment(final Fingerprint fingerprint, final List<File> cp) throws IOException {
+        addPlugin(fingerprint);
+        for (final File entry : cp) {
+            if (entry.isFile()) {
+                fingerprint.addFileInfo(entry.toPath());
+            } else if (entry.isDirectory()) {
+                fingerprint.addFileInfos(new InputRoot(entry, null));
+            }
+        }
+    }
+
+    private static Set<String> generatorNames(final SrcGen4JConfig config) {
+        final Set<String> names = new HashSet<>();
+        if (config.getGenerators() != null && config.getGenerators().getList() != null) {
+            for (final GeneratorConfig generatorConfig : config.getGenerators().getList()) {
+                names.add(generatorConfig.getName());
+            }
         }
+        return names;
     }
 
-    private void checkConfigFile() throws MojoExecutionException {
-        checkNotNull("configFile", configFile);
-        if (!configFile.exists()) {
-            throw new MojoExecutionException("The configuration file does not exist: " + configFile);
+    private void addPlugin(final Fingerprint fingerprint) {
+        fingerprint.add("plugin", plugin.getId());
+        for (final Artifact artifact : plugin.getArtifacts()) {
+            fingerprint.add("pluginArtifact", artifact.getId());
+        }
+        if (jaxbClassesToBeBound != null) {
+            fingerprint.add("jaxbClassesToBeBound", new TreeSet<String>(Arrays.asList(jaxbClassesToBeBound)).toString());
         }
-        if (!configFile.isFile()) {
-            throw new MojoExecutionException("The configuration file is not a file: " + configFile);
+    }
+
+    /**
+     * Returns the salt for the model and build cache. Unlike the up-to-date check it does not depend on the location of the project
+     * or the local repository, so cache entries can be shared between workspaces. Released dependencies are identified by their
+     * coordinates, snapshots, other files and the directories of the classpath by their content.
+     * 
+     * @param cp
+     *            Classpath entries.
+     * 
+     * @return Hex encoded salt.
+     * 
+     * @throws MojoExecutionException
+     *             Error reading the classpath entries.
+     */
+    private String cacheSalt(final List<File> cp) throws MojoExecutionException {
+        try {
+            final Fingerprint salt = new Fingerprint();
+            addPlugin(salt);
+            final Map<File, Artifact> artifacts = new HashMap<>();
+            for (final Artifact artifact : project.getArtifacts()) {
+                if (artifact.getFile() != null) {
+                    artifacts.put(Utils4J.getCanonicalFile(artifact.getFile()), artifact);
+                }
+            }
+            for (final File entry : cp) {
+                final Artifact artifact = artifacts.get(entry);
+                if (artifact != null && !artifact.isSnapshot()) {
+                    salt.add("artifact", artifact.getId());
+                } else if (entry.isFile()) {
+                    salt.add("file", Fingerprint.contentHash(entry.toPath()));
+                } else if (entry.isDirectory()) {
+                    salt.addContents(new InputRoot(entry, null), entry.toPath());
+                }
+            }
+            return salt.toHex();
+        } catch (final IOException ex) {
+            throw new MojoExecutionException("Error reading the classpath for the cache", ex);
+        }
+    }
+
+    @Override
+    public Log getLog() {
+        if (bufferedLog != null) {
+            return bufferedLog;
         }
+        return super.getLog();
     }
 
     @Override
     public void execute() throws MojoExecutionException {
+        bufferedLog = bufferLog ? new BufferedLog(super.getLog()) : null;
+        StaticLoggerBinder.getSingleton().setMavenLog(super.getLog());
+        try {
+            StaticLoggerBinder.getSingleton().bind(getLog(), logLevels);
+        } catch (final IllegalArgumentException ex) {
+            bufferedLog = null;
+            throw new MojoExecutionException("Invalid 'logLevels' configuration", ex);
+        }
+        try {
+            generate();
+        } finally {
+            StaticLoggerBinder.getSingleton().unbind();
+            if (bufferedLog != null) {
+                bufferedLog.flush();
+                bufferedLog = null;
+            }
+        }
+    }
 
-        StaticLoggerBinder.getSingleton().setMavenLog(getLog());
+    private void generate() throws MojoExecutionException {
 
-        checkConfigFile();
+        final List<File> files = configFiles();
+        if (!selection().isAll()) {
+            getLog().info("Selected " + selection());
+        }
+        renderProfiler = profile ? new RenderProfiler(profileTop) : null;
 
-        final DefaultContext context = new DefaultContext(this.getClass().getClassLoader(), createCp());
-        final SrcGen4JConfig config = createAndInit(context, configFile);
-        final SrcGen4J srcGen4J = new SrcGen4J(config, context);
+        final long cpStart = System.nanoTime();
+        final List<File> cp = createCp();
+        final long cpNanos = System.nanoTime() - cpStart;
+
+        final List<ConfigRun> runs = new ArrayList<>();
+        for (final File file : files) {
+            final ConfigRun run = new ConfigRun(file, report, files.size() == 1);
+            run.checkConfigFile();
+            runs.add(run);
+        }
+        if (runs.size() == 1) {
+            runs.get(0).execute(cp, cpNanos, null);
+        } else {
+            executeConcurrently(runs, cp, cpNanos);
+        }
+
+        if (renderProfiler != null) {
+            for (final String line : renderProfiler.toTable()) {
+                getLog().info(line);
+            }
+        }
+
+    }
+
+    /**
+     * Executes several configurations on a bounded pool. Overlapping output folders are detected with the raw configurations before
+     * anything is generated and again with the initialized ones. All configurations run to the end, even if one of them fails.
+     * 
+     * @param runs
+     *            Configurations to execute.
+     * @param cp
+     *            Classpath entries shared by all configurations.
+     * @param cpNanos
+     *            Time needed for creating the classpath.
+     * 
+     * @throws MojoExecutionException
+     *             The folders overlap or a configuration failed.
+     */
+    private void executeConcurrently(final List<ConfigRun> runs, final List<File> cp, final long cpNanos) throws MojoExecutionException {
+        final OutputDirClaims claims = new OutputDirClaims();
+        for (final ConfigRun run : runs) {
+            run.claim(claims, run.rawConfig().getOutputDirs());
+        }
+        final int poolSize = Math.max(1, Math.min(configThreads, runs.size()));
+        getLog().info("Processing " + runs.size() + " configuration files with " + poolSize + " thread(s)");
+        final AtomicInteger count = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(poolSize, runnable -> {
+            final Thread thread = new Thread(runnable, "srcgen4j-config-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
         try {
+            final List<Future<Void>> futures = new ArrayList<>();
+            for (final ConfigRun run : runs) {
+                final FutureTask<Void> future = new FutureTask<>(() -> {
+                    run.execute(cp, cpNanos, claims);
+                    return null;
+                });
+                executor.execute(StaticLoggerBinder.getSingleton().bound(future));
+                futures.add(future);
+            }
+            MojoExecutionException failure = null;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (final ExecutionException ex) {
+                    final MojoExecutionException mex = ex.getCause() instanceof MojoExecutionException
+                            ? (MojoExecutionException) ex.getCause()
+                            : new MojoExecutionException("Error processing " + runs.get(i).configFile, ex.getCause());
+                    if (failure == null) {
+                        failure = mex;
+                    } else {
+                        getLog().error("Processing " + runs.get(i).configFile + " failed as well", mex);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while processing the configuration files", ex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Generation for a single configuration file.
+     */
+    private final class ConfigRun {
+
+        private final File configFile;
+
+        private final GenerationReport generationReport;
+
+        private final boolean single;
+
+        private RawConfig rawConfig;
+
+        /**
+         * Constructor with all data.
+         * 
+         * @param configFile
+         *            XML configuration file - Cannot be NULL.
+         * @param report
+         *            TRUE if a report is created.
+         * @param single
+         *            TRUE if this is the only configuration of the execution.
+         */
+        ConfigRun(final File configFile, final boolean report, final boolean single) {
+            this.configFile = configFile;
+            this.generationReport = report ? new GenerationReport(configFile.getPath()) : null;
+            this.single = single;
+        }
+
+        /**
+         * Returns the configuration file read without JAXB. It is read only once.
+         * 
+         * @return Raw configuration.
+         * 
+         * @throws MojoExecutionException
+         *             Error reading the file.
+         */
+        RawConfig rawConfig() throws MojoExecutionException {
+            if (rawConfig == null) {
+                try {
+                    rawConfig = RawConfig.read(configFile);
+                } catch (final IOException ex) {
+                    throw new MojoExecutionException("Error reading configuration: " + configFile, ex);
+                }
+            }
+            return rawConfig;
+        }
+
+        /**
+         * Claims the output folders for this configuration.
+         * 
+         * @param claims
+         *            Folders claimed by all configurations of the execution.
+         * @param dirs
+         *            Output folders of this configuration.
+         * 
+         * @throws MojoExecutionException
+         *             A folder overlaps with a folder of another configuration.
+         */
+        void claim(final OutputDirClaims claims, final List<File> dirs) throws MojoExecutionException {
+            final String overlap = claims.claim(configFile, dirs);
+            if (overlap != null) {
+                throw new MojoExecutionException(overlap);
+            }
+        }
+
+        /**
+         * Creates and initializes the SrcGen4J configuration and adds the necessary configurations.
+         * 
+         * @param context
+         *            Current context - Cannot be NULL.
+         * 
+         * @return New configuration instance.
+         * 
+         * @throws MojoExecutionException
+         *             Error reading the configuration.
+         */
+        SrcGen4JConfig createAndInit(final SrcGen4JContext context) throws MojoExecutionException {
+            try {
+                return new ConfigLoader(jaxbClassesToBeBound, selection(), generationReport).load(context, configFile);
+            } catch (final ClassNotFoundException ex) {
+                throw new MojoExecutionException(ex.getMessage(), ex);
+            } catch (final JAXBException ex) {
+                throw new MojoExecutionException("Error creating the JAXB context", ex);
+            } catch (final IOException ex) {
+                throw new MojoExecutionException("Error reading configuration: " + configFile, ex);
+            }
+        }
+
+        /**
+         * Generates the sources of the configuration unless they are up-to-date.
+         * 
+         * @param cp
+         *            Classpath entries.
+         * @param cpNanos
+         *            Time needed for creating the classpath.
+         * @param claims
+         *            Output folders of all configurations or NULL if this is the only one.
+         * 
+         * @throws MojoExecutionException
+         *             Error during the generation.
+         */
+        void execute(final List<File> cp, final long cpNanos, final OutputDirClaims claims) throws MojoExecutionException {
+
+            if (generationReport != null) {
+                generationReport.phase("classpath", cpNanos);
+            }
+
+            UpToDateCheck upToDateCheck = null;
+            String inputs = null;
+            List<File> outputDirs = null;
+            if (skipIfUpToDate && !selection().isAll()) {
+                getLog().info("Up-to-date check skipped, as only some parsers and generators are selected");
+            } else if (skipIfUpToDate) {
+                try {
+                    final RawConfig rawConfig = rawConfig();
+                    upToDateCheck = new UpToDateCheck(new File(workDirectory, "up-to-date-" + stateName() + ".properties"));
+                    inputs = inputFingerprint(rawConfig, cp);
+                    outputDirs = rawConfig.getOutputDirs();
+                    if (inputs == null) {
+                        getLog().debug("Could not determine all inputs and outputs of " + configFile + " - Up-to-date check skipped");
+                    } else if (upToDateCheck.isUpToDate(inputs)) {
+                        getLog().info("Generated sources are up-to-date - Nothing to do for " + configFile);
+                        return;
+                    }
+                    upToDateCheck.reset();
+                } catch (final IOException ex) {
+                    throw new MojoExecutionException("Error checking if generated sources are up-to-date", ex);
+                }
+            }
+
+            final DefaultContext context = ContextCache.getOrCreate(SrcGen4JMojo.class.getClassLoader(), cp,
+                    classIndex ? classIndexDirectory : null);
+            final SrcGen4JConfig config = createAndInit(context);
+            if (claims != null) {
+                claim(claims, ConfigUtils.outputDirs(config));
+            }
+            try (final FolderLocks.Handle locks = FolderLocks.lock(ConfigUtils.folderDirs(config))) {
+                runGenerators(config, context, cp);
+                if (inputs != null) {
+                    // Still locked, so the output folders are recorded before another execution can change them
+                    try {
+                        upToDateCheck.markUpToDate(inputs, outputDirs);
+                    } catch (final IOException ex) {
+                        throw new MojoExecutionException("Error writing up-to-date state: " + upToDateCheck.getStateFile(), ex);
+                    }
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted while waiting for the output folders", ex);
+            }
+
+            if (generationReport != null) {
+                writeReport();
+            }
+
+        }
+
+        /**
+         * Executes parsers and generators. The output folders must be locked by the caller.
+         * 
+         * @param config
+         *            Initialized configuration.
+         * @param context
+         *            Context the configuration was initialized with.
+         * @param cp
+         *            Classpath entries.
+         * 
+         * @throws MojoExecutionException
+         *             Error during the generation.
+         */
+        private void runGenerators(final SrcGen4JConfig config, final SrcGen4JContext context, final List<File> cp)
+                throws MojoExecutionException {
+
+            final OutputTracker outputTracker;
+            if (writeIfChanged) {
+                final long start = System.nanoTime();
+                outputTracker = new OutputTracker(new File(workDirectory, "outputs-" + stateName() + ".txt"),
+                        ConfigUtils.outputDirs(config));
+                try {
+                    outputTracker.before();
+                } catch (final IOException ex) {
+                    throw new MojoExecutionException("Error reading the generated files", ex);
+                }
+                phase("writeIfChanged", start);
+            } else {
+                outputTracker = null;
+            }
+
+            final StaleOutputCleaner staleOutputCleaner;
+            if (incrementalClean) {
+                final long start = System.nanoTime();
+                staleOutputCleaner = new StaleOutputCleaner(new File(workDirectory, "generated-" + stateName() + ".txt"), config);
+                try {
+                    staleOutputCleaner.before();
+                } catch (final IOException ex) {
+                    throw new MojoExecutionException("Error cleaning the output folders", ex);
+                }
+                phase("clean", start);
+            } else {
+                staleOutputCleaner = null;
+            }
+
+            try {
+                if (forkCount > 0) {
+                    runForked(config, cp);
+                } else {
+                    runInProcess(config, context, cp);
+                }
+            } catch (final ParseException ex) {
+                throw new MojoExecutionException("Parsing error", ex);
+            } catch (final GenerateException ex) {
+                throw new MojoExecutionException("Generation error", ex);
+            }
+
+            if (staleOutputCleaner != null) {
+                final long start = System.nanoTime();
+                try {
+                    getLog().info("Clean folders: " + staleOutputCleaner.after(generatorNames(config)));
+                } catch (final IOException ex) {
+                    throw new MojoExecutionException("Error deleting stale files", ex);
+                }
+                phase("clean", start);
+            }
+
+            if (outputTracker != null) {
+                final long start = System.nanoTime();
+                try {
+                    getLog().info("Generated files: " + outputTracker.after());
+                } catch (final IOException ex) {
+                    throw new MojoExecutionException("Error comparing the generated files", ex);
+                }
+                phase("writeIfChanged", start);
+            }
+
+        }
+
+        private void runInProcess(final SrcGen4JConfig config, final SrcGen4JContext context, final List<File> cp)
+                throws MojoExecutionException, ParseException, GenerateException {
+            final Map<String, StreamingTemplateGenerator> streamed = createStreamingGenerators(config);
+            final ParallelSrcGen4J srcGen4J = new ParallelSrcGen4J(config, threads).withCleanFolders(!incrementalClean)
+                    .withTaskDecorator(StaticLoggerBinder.getSingleton()::bound);
+            if (generationReport != null) {
+                generationReport.setConfig(config);
+                srcGen4J.addListener(generationReport);
+            }
+            if (renderProfiler != null) {
+                srcGen4J.addListener(renderProfiler);
+            }
+            if (modelCache) {
+                srcGen4J.withModelProvider(createModelCache(context, cp));
+            }
+            final BuildCache cache = buildCache ? createBuildCache(cp) : null;
+            if (cache != null) {
+                srcGen4J.withGeneratorCache(cache);
+            }
+            if (!streamed.isEmpty()) {
+                srcGen4J.withGeneratorFilter(generatorConfig -> !streamed.containsKey(generatorConfig.getName()));
+            }
             srcGen4J.execute();
-        } catch (final ParseException ex) {
-            throw new MojoExecutionException("Parsing error", ex);
-        } catch (final GenerateException ex) {
-            throw new MojoExecutionException("Generation error", ex);
+            if (cache != null) {
+                getLog().info("Build cache: " + cache.getStatistics());
+            }
+            final Set<String> notStreamed = new HashSet<>();
+            for (final Map.Entry<String, StreamingTemplateGenerator> entry : streamed.entrySet()) {
+                final long start = System.nanoTime();
+                final long files = entry.getValue().execute();
+                phase("stream " + entry.getKey(), start);
+                if (files == StreamingTemplateGenerator.NOT_STREAMED) {
+                    notStreamed.add(entry.getKey());
+                } else {
+                    getLog().info("Generator '" + entry.getKey() + "' streamed " + files + " files");
+                }
+            }
+            if (!notStreamed.isEmpty()) {
+                // The folders were cleaned before streaming, files written so far are overwritten with the same content
+                getLog().info("Generators " + new TreeSet<>(notStreamed) + " run as usual");
+                srcGen4J.withCleanFolders(false).withGeneratorFilter(generatorConfig -> notStreamed.contains(generatorConfig.getName()))
+                        .execute();
+            }
+        }
+
+        private void runForked(final SrcGen4JConfig config, final List<File> cp) throws MojoExecutionException, GenerateException {
+            if (streamTemplates) {
+                getLog().warn("Streaming mode is not supported with 'forkCount' > 0 - All generators run as usual");
+            }
+            if (buildCache) {
+                getLog().warn("Build cache is not supported with 'forkCount' > 0 - All generators are executed");
+            }
+            if (renderProfiler != null) {
+                getLog().warn("Profiling is not supported with 'forkCount' > 0 - Nothing is measured");
+            }
+            if (!incrementalClean) {
+                new ParallelSrcGen4J(config, 1).clean();
+            }
+            final String salt = modelCache ? cacheSalt(cp) : null;
+            final List<Properties> shards = new ArrayList<>();
+            for (final ForkedGeneration.Shard forkShard : ForkedGeneration.shards(config, forkCount)) {
+                final Properties shard = new Properties();
+                shard.setProperty(ForkedWorker.CONFIG_FILE, Utils4J.getCanonicalFile(configFile).getPath());
+                shard.setProperty(ForkedWorker.JAXB_CLASSES, jaxbClassesToBeBound == null ? "" : String.join(",", jaxbClassesToBeBound));
+                shard.setProperty(ForkedWorker.CLASSPATH, cp.stream().map(File::getPath).collect(Collectors.joining(File.pathSeparator)));
+                shard.setProperty(ForkedWorker.PARSERS, String.join(",", forkShard.getParsers()));
+                shard.setProperty(ForkedWorker.GENERATORS, String.join(",", forkShard.getGenerators()));
+                if (generators != null) {
+                    shard.setProperty(ForkedWorker.SELECTED_GENERATORS, generators);
+                }
+                if (SrcGen4JMojo.this.parsers != null) {
+                    shard.setProperty(ForkedWorker.SELECTED_PARSERS, SrcGen4JMojo.this.parsers);
+                }
+                shard.setProperty(ForkedWorker.THREADS, String.valueOf(threads));
+                if (salt != null) {
+                    shard.setProperty(ForkedWorker.MODEL_CACHE_DIRECTORY, modelCacheDirectory.getPath());
+                    shard.setProperty(ForkedWorker.MODEL_CACHE_SALT, salt);
+                }
+                shards.add(shard);
+            }
+            final List<String> jvmArgs = new ArrayList<>();
+            if (forkArgLine != null && !forkArgLine.trim().isEmpty()) {
+                jvmArgs.addAll(Arrays.asList(forkArgLine.trim().split("\\s+")));
+            }
+            final long start = System.nanoTime();
+            getLog().info("Forking " + shards.size() + " worker JVM(s) for " + configFile);
+            new ForkedGeneration(getLog(), forkJvm, jvmArgs, new File(workDirectory, "fork-" + stateName())).execute(shards);
+            phase("fork", start);
+        }
+
+        private Map<String, StreamingTemplateGenerator> createStreamingGenerators(final SrcGen4JConfig config)
+                throws MojoExecutionException {
+            final Map<String, StreamingTemplateGenerator> streamed = new LinkedHashMap<String, StreamingTemplateGenerator>();
+            if (!streamTemplates || config.getGenerators() == null || config.getGenerators().getList() == null) {
+                return streamed;
+            }
+            for (final GeneratorConfig generatorConfig : config.getGenerators().getList()) {
+                final StreamingTemplateGenerator generator = StreamingTemplateGenerator.create(rawConfig(), config, generatorConfig,
+                        threads, streamQueueSize, renderProfiler);
+                if (generator == null) {
+                    getLog().debug("Generator '" + generatorConfig.getName() + "' is not streamed");
+                } else {
+                    streamed.put(generatorConfig.getName(), generator);
+                }
+            }
+            return streamed;
+        }
+
+        private ModelCache createModelCache(final SrcGen4JContext context, final List<File> cp) throws MojoExecutionException {
+            // Models may contain classes of the project's dependencies that are not visible to the plugin's class loader
+            return new ModelCache(modelCacheDirectory, rawConfig(), cacheSalt(cp), context.getClassLoader());
+        }
+
+        private BuildCache createBuildCache(final List<File> cp) throws MojoExecutionException {
+            return new BuildCache(buildCacheDirectory, buildCacheMaxSize * 1024L * 1024L, rawConfig(), cacheSalt(cp));
+        }
+
+        private void checkConfigFile() throws MojoExecutionException {
+            checkNotNull("configFile", configFile);
+            if (!configFile.exists()) {
+                throw new MojoExecutionException("The configuration file does not exist: " + configFile);
+            }
+            if (!configFile.isFile()) {
+                throw new MojoExecutionException("The configuration file is not a file: " + configFile);
+            }
+        }
+
+        /**
+         * Returns a short name that is unique for the configuration file and can be used for state files.
+         * 
+         * @return Name derived from the canonical path of the configuration file.
+         */
+        private String stateName() {
+            return new Fingerprint().add("configFile", Utils4J.getCanonicalFile(configFile).getPath()).toHex().substring(0, 16);
+        }
+
+        /**
+         * Adds the time since the given start to a phase of the report.
+         * 
+         * @param name
+         *            Name of the phase.
+         * @param start
+         *            Start of the phase from {@link System#nanoTime()}.
+         * 
+         * @return End of the phase that can be used as start of the next one.
+         */
+        private long phase(final String name, final long start) {
+            final long end = System.nanoTime();
+            if (generationReport != null) {
+                generationReport.phase(name, end - start);
+            }
+            return end;
+        }
+
+        private void writeReport() throws MojoExecutionException {
+            generationReport.finish();
+            for (final String line : generationReport.toTable()) {
+                getLog().info(line);
+            }
+            File file = reportFile;
+            if (!single) {
+                // Each configuration of a multi configuration execution has its own report file
+                final String name = reportFile.getName();
+                final int dot = name.lastIndexOf('.');
+                final String suffix = "-" + stateName();
+                file = new File(reportFile.getParentFile(),
+                        dot < 0 ? name + suffix : name.substring(0, dot) + suffix + name.substring(dot));
+            }
+            try {
+                generationReport.writeJson(file);
+            } catch (final IOException ex) {
+                throw new MojoExecutionException("Error writing the report: " + file, ex);
+            }
         }
 
     }
@@ -0,0 +1,422 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.fuin.srcgen4j.commons.Artifact;
+import org.fuin.srcgen4j.commons.Folder;
+import org.fuin.srcgen4j.commons.GenerateException;
+import org.fuin.srcgen4j.commons.GeneratorConfig;
+import org.fuin.srcgen4j.commons.SrcGen4JConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.impl.StaticLoggerBinder;
+
+/**
+ * Executes a parameterized template parser/generator pair without creating the model in memory. The model files are read with StAX and
+ * every <code>target-file</code> element is handed over to the rendering threads through a bounded queue as soon as it was read. The
+ * rendered content is written by a {@link FileWriteStage}, so rendering does not wait for the file system. Memory usage therefore does
+ * not depend on the number of target files and writing starts with the first one. Only the <code>arguments</code> and
+ * <code>target-file</code> elements of a model are supported. The models are checked while they are streamed, so every model file is
+ * read only once. If a model contains any other element, streaming stops and {@link #execute()} returns {@link #NOT_STREAMED}. The
+ * caller then runs the regular parser and generator, which produce the same content for the files that were already written. Like the
+ * regular generator, existing files are kept if the target folder does not allow overriding them.
+ */
+public final class StreamingTemplateGenerator {
+
+    /** Class of the parser that can be streamed. */
+    public static final String PARSER_CLASS = "org.fuin.srcgen4j.core.velocity.ParameterizedTemplateParser";
+
+    /** Class of the generator that can be streamed. */
+    public static final String GENERATOR_CLASS = "org.fuin.srcgen4j.core.velocity.ParameterizedTemplateGenerator";
+
+    /** Result of {@link #execute()} if a model contains an element that is not supported. */
+    public static final long NOT_STREAMED = -1;
+
+    private static final Logger LOG = LoggerFactory.getLogger(StreamingTemplateGenerator.class);
+
+    private static final Pattern DEFAULT_MODEL_FILTER = Pattern.compile(".*\\.ptg\\.xml");
+
+    private static final TargetFile END = new TargetFile(null, null, null, null);
+
+    private static final long POLL_MILLIS = 100;
+
+    private final String name;
+
+    private final InputRoot models;
+
+    private final File templateDir;
+
+    private final File outputDir;
+
+    private final boolean override;
+
+    private final int writers;
+
+    private final int queueSize;
+
+    private final RenderProfiler profiler;
+
+    private StreamingTemplateGenerator(final String name, final InputRoot models, final File templateDir, final File outputDir,
+            final boolean override, final int writers, final int queueSize, final RenderProfiler profiler) {
+        super();
+        this.name = name;
+        this.models = models;
+        this.templateDir = templateDir;
+        this.outputDir = outputDir;
+        this.override = override;
+        this.writers = writers;
+        this.queueSize = queueSize;
+        this.profiler = profiler;
+    }
+
+    /**
+     * Creates a streaming generator if the generator and its parser are a parameterized template pair that can be streamed. This is
+     * not the case if the artifacts are written to more than one folder or if the folder does not exist and must not be created. The
+     * content of the models is not read here.
+     * 
+     * @param rawConfig
+     *            Configuration with the resolved attributes of parser and generator - Cannot be NULL.
+     * @param config
+     *            Initialized configuration - Cannot be NULL.
+     * @param generatorConfig
+     *            Generator to replace - Cannot be NULL.
+     * @param writers
+     *            Number of threads rendering files.
+     * @param queueSize
+     *            Maximum number of target files waiting to be rendered and of rendered files waiting to be written.
+     * @param profiler
+     *            Profiler for the render time of every target file or NULL.
+     * 
+     * @return New instance or NULL if the generator cannot be streamed.
+     */
+    public static StreamingTemplateGenerator create(final RawConfig rawConfig, final SrcGen4JConfig config,
+            final GeneratorConfig generatorConfig, final int writers, final int queueSize, final RenderProfiler profiler) {
+        if (!GENERATOR_CLASS.equals(generatorConfig.getClassName())) {
+            return null;
+        }
+        RawConfig.ParserEntry parser = null;
+        for (final RawConfig.ParserEntry entry : rawConfig.getParsers()) {
+            if (entry.getName().equals(generatorConfig.getParser())) {
+                parser = entry;
+            }
+        }
+        RawConfig.GeneratorEntry generator = null;
+        for (final RawConfig.GeneratorEntry entry : rawConfig.getGenerators()) {
+            if (entry.getName().equals(generatorConfig.getName())) {
+                generator = entry;
+            }
+        }
+        if (parser == null || generator == null || !PARSER_CLASS.equals(parser.getClassName()) || !parser.isResolved()) {
+            return null;
+        }
+        final String modelPath = parser.getConfigAttribute("modelPath");
+        final String templatePath = generator.getConfigAttribute("templatePath");
+        final List<File> outputDirs = ConfigUtils.outputDirs(config, generatorConfig);
+        if (modelPath == null || templatePath == null || outputDirs.size() != 1) {
+            LOG.debug("Generator '{}' cannot be streamed: modelPath={}, templatePath={}, outputDirs={}", generatorConfig.getName(),
+                    modelPath, templatePath, outputDirs);
+            return null;
+        }
+        final Folder folder = targetFolder(config, generatorConfig);
+        if (folder == null) {
+            LOG.debug("Generator '{}' cannot be streamed: Artifacts are written to different folders", generatorConfig.getName());
+            return null;
+        }
+        if (!folder.isCreate() && !outputDirs.get(0).exists()) {
+            LOG.debug("Generator '{}' cannot be streamed: Folder '{}' does not exist and must not be created", generatorConfig.getName(),
+                    folder.getName());
+            return null;
+        }
+        final String modelFilter = parser.getConfigAttribute("modelFilter");
+        final InputRoot models = new InputRoot(new File(modelPath),
+                modelFilter == null ? DEFAULT_MODEL_FILTER : Pattern.compile(modelFilter));
+        return new StreamingTemplateGenerator(generatorConfig.getName(), models, new File(templatePath), outputDirs.get(0),
+                folder.isOverride(), Math.max(1, writers), Math.max(1, queueSize), profiler);
+    }
+
+    private static Folder targetFolder(final SrcGen4JConfig config, final GeneratorConfig generatorConfig) {
+        Folder found = null;
+        for (final Artifact artifact : generatorConfig.getArtifacts()) {
+            final Folder folder = ConfigUtils.findFolder(config, generatorConfig.getProject(), artifact.getFolder());
+            if (folder == null || (found != null && found != folder)) {
+                return null;
+            }
+            found = folder;
+        }
+        return found;
+    }
+
+    private static boolean supported(final int depth, final String element) {
+        return (depth == 1 && element.equals("parameterized-template")) || element.equals("argument")
+                || (depth == 2 && (element.equals("target-file") || element.equals("arguments")));
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return factory;
+    }
+
+    /**
+     * Reads all model files and writes the target files.
+     * 
+     * @return Number of files written - Existing files that were kept are not counted. {@link #NOT_STREAMED} if a model contains an
+     *         element that is not supported, the files written so far are left in place.
+     * 
+     * @throws GenerateException
+     *             Error reading a model or writing a file.
+     */
+    public long execute() throws GenerateException {
+        final ConcurrentMap<String, Template> templates = new ConcurrentHashMap<>();
+
+        final BlockingQueue<TargetFile> queue = new ArrayBlockingQueue<>(queueSize);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicLong written = new AtomicLong();
+        final FileWriteStage writeStage = new FileWriteStage(name, queueSize, Math.max(4, writers), override);
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            final Runnable renderer = StaticLoggerBinder.getSingleton().bound(() -> render(templates, queue, writeStage, failure, written));
+            final Thread thread = new Thread(renderer, "srcgen4j-renderer-" + (i + 1));
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+
+        try {
+            for (final Path file : models.listFiles()) {
+                LOG.debug("Stream: {}", file);
+                read(file, queue, failure);
+            }
+        } catch (final IOException | XMLStreamException | RuntimeException ex) {
+            failure.compareAndSet(null, ex);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, ex);
+        } finally {
+            finish(queue, threads, failure);
+            try {
+                writeStage.close();
+            } catch (final IOException ex) {
+                failure.compareAndSet(null, new GenerateException("Error writing a file of generator '" + name + "'", ex));
+            }
+        }
+
+        final Throwable ex = failure.get();
+        if (ex instanceof UnsupportedContentException) {
+            LOG.info("Generator '{}' is not streamed: {}", name, ex.getMessage());
+            return NOT_STREAMED;
+        }
+        if (ex instanceof GenerateException) {
+            throw (GenerateException) ex;
+        }
+        if (ex != null) {
+            throw new GenerateException("Error streaming generator '" + name + "'", ex);
+        }
+        final long count = written.get() - writeStage.getSkipped();
+        LOG.debug("Generator '{}' streamed {} files", name, count);
+        return count;
+    }
+
+    private void read(final Path file, final BlockingQueue<TargetFile> queue, final AtomicReference<Throwable> failure)
+            throws IOException, XMLStreamException, InterruptedException {
+        try (final InputStream in = Files.newInputStream(file)) {
+            final XMLStreamReader reader = createInputFactory().createXMLStreamReader(in);
+            try {
+                String template = null;
+                final Map<String, String> arguments = new LinkedHashMap<>();
+                Map<String, String> targetArguments = null;
+                String path = null;
+                String fileName = null;
+                int depth = 0;
+                while (reader.hasNext() && failure.get() == null) {
+                    final int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        final String element = reader.getLocalName();
+                        if (depth == 1 && element.equals("parameterized-template")) {
+                            template = reader.getAttributeValue(null, "template");
+                        } else if (element.equals("argument")) {
+                            final Map<String, String> target = targetArguments == null ? arguments : targetArguments;
+                            target.put(reader.getAttributeValue(null, "key"), reader.getAttributeValue(null, "value"));
+                        } else if (depth == 2 && element.equals("target-file")) {
+                            path = reader.getAttributeValue(null, "path");
+                            fileName = reader.getAttributeValue(null, "name");
+                            targetArguments = new LinkedHashMap<>(arguments);
+                        } else if (!supported(depth, element)) {
+                            throw new UnsupportedContentException(
+                                    "Element <" + element + "> is not supported in streaming mode: " + file);
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (depth == 2 && reader.getLocalName().equals("target-file")) {
+                            put(queue, new TargetFile(template, path, fileName, targetArguments), failure);
+                            targetArguments = null;
+                        }
+                        depth--;
+                    }
+                }
+            } catch (final UnsupportedContentException ex) {
+                failure.compareAndSet(null, ex);
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    private static void put(final BlockingQueue<TargetFile> queue, final TargetFile targetFile, final AtomicReference<Throwable> failure)
+            throws InterruptedException {
+        while (failure.get() == null) {
+            if (queue.offer(targetFile, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+    }
+
+    private void finish(final BlockingQueue<TargetFile> queue, final List<Thread> threads, final AtomicReference<Throwable> failure) {
+        if (failure.get() != null) {
+            queue.clear();
+        }
+        try {
+            for (int i = 0; i < threads.size(); i++) {
+                put(queue, END, failure);
+            }
+            for (final Thread thread : threads) {
+                if (failure.get() != null) {
+                    thread.interrupt();
+                }
+                thread.join();
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, ex);
+            for (final Thread thread : threads) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    private void render(final ConcurrentMap<String, Template> templates, final BlockingQueue<TargetFile> queue,
+            final FileWriteStage writeStage, final AtomicReference<Throwable> failure, final AtomicLong written) {
+        try {
+            while (failure.get() == null) {
+                final TargetFile targetFile = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (targetFile == END) {
+                    return;
+                }
+                if (targetFile != null) {
+                    final File dir = targetFile.path == null ? outputDir : new File(outputDir, targetFile.path);
+                    final File file = new File(dir, targetFile.name);
+                    if (!override && file.exists()) {
+                        LOG.debug("Existing file kept: {}", file);
+                        continue;
+                    }
+                    final Template template = template(templates, targetFile.template);
+                    final StringWriter writer = new StringWriter();
+                    final long start = System.nanoTime();
+                    template.merge(new VelocityContext(new HashMap<String, Object>(targetFile.arguments)), writer);
+                    final byte[] content = writer.toString().getBytes(StandardCharsets.UTF_8);
+                    if (profiler != null) {
+                        final String target = targetFile.path == null ? targetFile.name : targetFile.path + "/" + targetFile.name;
+                        profiler.record(targetFile.template, target, System.nanoTime() - start, content.length);
+                    }
+                    writeStage.write(file.toPath(), content);
+                    written.incrementAndGet();
+                }
+            }
+        } catch (final InterruptedException ex) {
+            // Cancelled because of a failure
+            Thread.currentThread().interrupt();
+        } catch (final IOException | RuntimeException ex) {
+            failure.compareAndSet(null, new GenerateException("Error writing a file of generator '" + name + "'", ex));
+        }
+    }
+
+    private Template template(final ConcurrentMap<String, Template> templates, final String templateName) throws IOException {
+        // The content hash is only checked once per execution
+        Template template = templates.get(templateName);
+        if (template == null) {
+            template = TemplateCache.getOrParse(templateDir, templateName);
+            templates.putIfAbsent(templateName, template);
+        }
+        return template;
+    }
+
+    /**
+     * A model contains an element that cannot be streamed.
+     */
+    private static final class UnsupportedContentException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedContentException(final String message) {
+            super(message);
+        }
+
+    }
+
+    /**
+     * A single file to generate.
+     */
+    private static final class TargetFile {
+
+        private final String template;
+
+        private final String path;
+
+        private final String name;
+
+        private final Map<String, String> arguments;
+
+        TargetFile(final String template, final String path, final String name, final Map<String, String> arguments) {
+            this.template = template;
+            this.path = path;
+            this.name = name;
+            this.arguments = arguments;
+        }
+
+    }
+
+}
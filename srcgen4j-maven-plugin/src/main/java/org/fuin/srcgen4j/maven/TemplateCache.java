@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.app.VelocityEngine;
+import org.fuin.utils4j.Utils4J;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JVM wide cache for parsed Velocity templates. The key is the canonical path of the template plus the hash of its content, so a changed
+ * template is parsed again while an unchanged one is reused across target files, executions and - with a Maven daemon - builds. The
+ * number of templates is limited and the least recently used template is evicted first. Changes of templates included with
+ * <code>#parse</code> are not detected.
+ */
+public final class TemplateCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TemplateCache.class);
+
+    private static final int MAX_TEMPLATES = 256;
+
+    /** Path of the file resource loader - Replaces the deprecated 'file.resource.loader.path' since Velocity 2.1. */
+    private static final String FILE_RESOURCE_LOADER_PATH = "resource.loader.file.path";
+
+    private static final Map<String, Template> TEMPLATES = new LinkedHashMap<String, Template>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Template> eldest) {
+            return size() > MAX_TEMPLATES;
+        }
+    };
+
+    private static final Map<File, VelocityEngine> ENGINES = new HashMap<>();
+
+    private static final AtomicLong HITS = new AtomicLong();
+
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    private TemplateCache() {
+        throw new UnsupportedOperationException("It is not allowed to create an instance of a utility class");
+    }
+
+    /**
+     * Returns a parsed template from the cache or parses it.
+     *
+     * @param templateDir
+     *            Directory templates are loaded from - Cannot be NULL.
+     * @param name
+     *            Name of the template relative to the directory - Cannot be NULL.
+     *
+     * @return Parsed template.
+     *
+     * @throws IOException
+     *             Error reading the template.
+     */
+    public static Template getOrParse(final File templateDir, final String name) throws IOException {
+        final File dir = Utils4J.getCanonicalFile(templateDir);
+        final File file = Utils4J.getCanonicalFile(new File(dir, name));
+        final String key = file.getPath() + "|" + Fingerprint.contentHash(file.toPath());
+        synchronized (TEMPLATES) {
+            final Template cached = TEMPLATES.get(key);
+            if (cached != null) {
+                LOG.debug("Template cache hit (hits={}, misses={}): {}", HITS.incrementAndGet(), MISSES.get(), file);
+                return cached;
+            }
+        }
+        final Template template = engine(dir).getTemplate(name, StandardCharsets.UTF_8.name());
+        synchronized (TEMPLATES) {
+            TEMPLATES.put(key, template);
+        }
+        LOG.debug("Template cache miss (hits={}, misses={}): {}", HITS.get(), MISSES.incrementAndGet(), file);
+        return template;
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public static void clear() {
+        synchronized (TEMPLATES) {
+            TEMPLATES.clear();
+        }
+        synchronized (ENGINES) {
+            ENGINES.clear();
+        }
+    }
+
+    private static VelocityEngine engine(final File dir) {
+        synchronized (ENGINES) {
+            VelocityEngine engine = ENGINES.get(dir);
+            if (engine == null) {
+                engine = new VelocityEngine();
+                engine.setProperty(FILE_RESOURCE_LOADER_PATH, dir.getPath());
+                engine.init();
+                ENGINES.put(dir, engine);
+            }
+            return engine;
+        }
+    }
+
+}
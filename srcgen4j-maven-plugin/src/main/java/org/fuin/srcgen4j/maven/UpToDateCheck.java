@@ -0,0 +1,146 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Persists the fingerprint of the inputs and outputs of a successful generation run and determines if a new run is necessary.
+ */
+public final class UpToDateCheck {
+
+    private static final String INPUTS = "inputs";
+
+    private static final String OUTPUTS = "outputs";
+
+    private static final String OUTPUT_DIRS = "outputDirs";
+
+    private final File stateFile;
+
+    /**
+     * Constructor with state file.
+     *
+     * @param stateFile
+     *            File used to store the fingerprints.
+     */
+    public UpToDateCheck(final File stateFile) {
+        super();
+        this.stateFile = stateFile;
+    }
+
+    /**
+     * Returns the state file.
+     *
+     * @return File used to store the fingerprints.
+     */
+    public File getStateFile() {
+        return stateFile;
+    }
+
+    /**
+     * Determines if the last run had the same inputs and the outputs are unchanged since then.
+     *
+     * @param inputs
+     *            Fingerprint of the current inputs.
+     *
+     * @return TRUE if nothing has to be generated.
+     *
+     * @throws IOException
+     *             Error reading the state or the outputs.
+     */
+    public boolean isUpToDate(final String inputs) throws IOException {
+        if (!stateFile.exists()) {
+            return false;
+        }
+        final Properties props = new Properties();
+        try (final InputStream in = Files.newInputStream(stateFile.toPath())) {
+            props.load(in);
+        }
+        if (!inputs.equals(props.getProperty(INPUTS))) {
+            return false;
+        }
+        final List<File> outputDirs = new ArrayList<>();
+        final String dirs = props.getProperty(OUTPUT_DIRS, "");
+        for (final String dir : dirs.split(File.pathSeparator)) {
+            if (dir.length() > 0) {
+                outputDirs.add(new File(dir));
+            }
+        }
+        return outputs(outputDirs).equals(props.getProperty(OUTPUTS));
+    }
+
+    /**
+     * Stores the fingerprints after a successful run.
+     *
+     * @param inputs
+     *            Fingerprint of the inputs used for the run.
+     * @param outputDirs
+     *            Directories written by the run.
+     *
+     * @throws IOException
+     *             Error writing the state or reading the outputs.
+     */
+    public void markUpToDate(final String inputs, final List<File> outputDirs) throws IOException {
+        final StringBuilder dirs = new StringBuilder();
+        for (final File dir : outputDirs) {
+            if (dirs.length() > 0) {
+                dirs.append(File.pathSeparator);
+            }
+            dirs.append(dir.getPath());
+        }
+        final Properties props = new Properties();
+        props.setProperty(INPUTS, inputs);
+        props.setProperty(OUTPUT_DIRS, dirs.toString());
+        props.setProperty(OUTPUTS, outputs(outputDirs));
+        Files.createDirectories(stateFile.getParentFile().toPath());
+        try (final OutputStream out = Files.newOutputStream(stateFile.toPath())) {
+            props.store(out, "SrcGen4J up-to-date state");
+        }
+    }
+
+    /**
+     * Removes the state, so the next run will always generate.
+     *
+     * @throws IOException
+     *             Error deleting the state file.
+     */
+    public void reset() throws IOException {
+        Files.deleteIfExists(stateFile.toPath());
+    }
+
+    private static String outputs(final List<File> outputDirs) throws IOException {
+        final Fingerprint fingerprint = new Fingerprint();
+        for (final File dir : outputDirs) {
+            final InputRoot root = new InputRoot(dir, null);
+            fingerprint.add("dir", dir.getPath());
+            for (final Path file : root.listFiles()) {
+                fingerprint.addFileInfo(file);
+            }
+        }
+        return fingerprint.toHex();
+    }
+
+}
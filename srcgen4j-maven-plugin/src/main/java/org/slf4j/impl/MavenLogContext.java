@@ -0,0 +1,173 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.slf4j.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Maven log and logger levels of a single plugin execution. The level of a logger is the one configured for the longest prefix of its
+ * name. Without configuration trace is disabled and all other levels are left to Maven. Resolved levels are cached, so checking a level
+ * does not allocate after the first call for a logger name.
+ */
+public final class MavenLogContext {
+
+    /** Trace level. */
+    public static final int TRACE = 0;
+
+    /** Debug level. */
+    public static final int DEBUG = 1;
+
+    /** Info level. */
+    public static final int INFO = 2;
+
+    /** Warn level. */
+    public static final int WARN = 3;
+
+    /** Error level. */
+    public static final int ERROR = 4;
+
+    /** Nothing is logged. */
+    public static final int OFF = 5;
+
+    /** Key for the level of all loggers without a more specific entry. */
+    public static final String ROOT = "root";
+
+    private final Log log;
+
+    private final Map<String, Integer> levels;
+
+    private final int rootLevel;
+
+    private final Map<String, Integer> resolved;
+
+    /**
+     * Constructor with all data.
+     *
+     * @param log
+     *            Maven log - Cannot be NULL.
+     * @param levels
+     *            Level names ("trace", "debug", "info", "warn", "error" or "off") by logger name prefix - May be NULL.
+     */
+    public MavenLogContext(final Log log, final Map<String, String> levels) {
+        super();
+        if (log == null) {
+            throw new IllegalArgumentException("log == null");
+        }
+        this.log = log;
+        final Map<String, Integer> map = new HashMap<>();
+        if (levels != null) {
+            for (final Map.Entry<String, String> entry : levels.entrySet()) {
+                map.put(entry.getKey(), parseLevel(entry.getKey(), entry.getValue()));
+            }
+        }
+        final Integer root = map.remove(ROOT);
+        this.rootLevel = root == null ? DEBUG : root;
+        this.levels = Collections.unmodifiableMap(map);
+        this.resolved = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the Maven log.
+     *
+     * @return Log.
+     */
+    public Log getLog() {
+        return log;
+    }
+
+    /**
+     * Determines if a level is enabled for a logger. Both the configured logger level and the Maven log must allow it. Trace messages
+     * are written as debug messages.
+     *
+     * @param name
+     *            Logger name.
+     * @param level
+     *            Level to check.
+     *
+     * @return TRUE if messages with the level are logged.
+     */
+    public boolean isEnabled(final String name, final int level) {
+        if (level < level(name)) {
+            return false;
+        }
+        switch (level) {
+        case TRACE:
+        case DEBUG:
+            return log.isDebugEnabled();
+        case INFO:
+            return log.isInfoEnabled();
+        case WARN:
+            return log.isWarnEnabled();
+        default:
+            return log.isErrorEnabled();
+        }
+    }
+
+    private int level(final String name) {
+        if (levels.isEmpty()) {
+            return rootLevel;
+        }
+        final Integer cached = resolved.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        int level = rootLevel;
+        int length = -1;
+        for (final Map.Entry<String, Integer> entry : levels.entrySet()) {
+            final String prefix = entry.getKey();
+            if (prefix.length() > length && matches(name, prefix)) {
+                level = entry.getValue();
+                length = prefix.length();
+            }
+        }
+        resolved.put(name, level);
+        return level;
+    }
+
+    private static boolean matches(final String name, final String prefix) {
+        return name.startsWith(prefix) && (name.length() == prefix.length() || name.charAt(prefix.length()) == '.'
+                || name.charAt(prefix.length()) == '$');
+    }
+
+    private static int parseLevel(final String name, final String value) {
+        final String level = value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+        switch (level) {
+        case "trace":
+            return TRACE;
+        case "debug":
+            return DEBUG;
+        case "info":
+            return INFO;
+        case "warn":
+            return WARN;
+        case "error":
+            return ERROR;
+        case "off":
+            return OFF;
+        default:
+            throw new IllegalArgumentException("Unknown log level '" + value + "' for logger: " + name);
+        }
+    }
+
+}
@@ -42,6 +42,8 @@ import org.slf4j.helpers.MessageFormatter;
  * Implementation of {@link org.slf4j.Logger} transforming SLF4J messages to
  * Maven log messages. The class has too many methods, but we can't do anything
  * with this since the parent class requires us to implement them all.
+ * Messages are written to the Maven log of the execution running on the
+ * current thread and only formatted if the level is enabled for the logger.
  * 
  * @author Yegor Bugayenko (yegor@rempl.com)
  * @version $Id$
@@ -55,20 +57,23 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
     public static final long serialVersionUID = 0x12C09767;
 
     /**
-     * Get Maven logger.
+     * Create a logger with a name.
      * 
-     * @return The Maven log
+     * @param lname
+     *            Name of the logger
      */
-    private Log log() {
-        return StaticLoggerBinder.getSingleton().getMavenLog();
+    public MavenLoggerAdapter(final String lname) {
+        super();
+        this.name = lname;
     }
 
     /**
-     * {@inheritDoc}
+     * Get the log and levels of the current execution.
+     * 
+     * @return The context
      */
-    @Override
-    public String getName() {
-        return this.getClass().getName();
+    private static MavenLogContext context() {
+        return StaticLoggerBinder.getSingleton().getContext();
     }
 
     /**
@@ -76,8 +81,7 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public boolean isTraceEnabled() {
-        return false;
-        // return this.log().isDebugEnabled();
+        return context().isEnabled(this.name, MavenLogContext.TRACE);
     }
 
     /**
@@ -85,7 +89,10 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void trace(final String msg) {
-        this.log().debug(msg);
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.TRACE)) {
+            context.getLog().debug(msg);
+        }
     }
 
     /**
@@ -93,7 +100,11 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void trace(final String format, final Object arg) {
-        this.log().debug(this.format(format, arg));
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.TRACE)) {
+            final FormattingTuple tuple = MessageFormatter.format(format, arg);
+            write(context, MavenLogContext.DEBUG, tuple.getMessage(), tuple.getThrowable());
+        }
     }
 
     /**
@@ -101,15 +112,23 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void trace(final String format, final Object arg1, final Object arg2) {
-        this.log().debug(this.format(format, arg1, arg2));
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.TRACE)) {
+            final FormattingTuple tuple = MessageFormatter.format(format, arg1, arg2);
+            write(context, MavenLogContext.DEBUG, tuple.getMessage(), tuple.getThrowable());
+        }
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void trace(final String format, final Object[] argArray) {
-        this.log().debug(this.format(format, argArray));
+    public void trace(final String format, final Object... argArray) {
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.TRACE)) {
+            final FormattingTuple tuple = MessageFormatter.arrayFormat(format, argArray);
+            write(context, MavenLogContext.DEBUG, tuple.getMessage(), tuple.getThrowable());
+        }
     }
 
     /**
@@ -117,7 +136,10 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void trace(final String msg, final Throwable thr) {
-        this.log().debug(msg, thr);
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.TRACE)) {
+            context.getLog().debug(msg, thr);
+        }
     }
 
     /**
@@ -125,7 +147,7 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public boolean isDebugEnabled() {
-        return this.log().isDebugEnabled();
+        return context().isEnabled(this.name, MavenLogContext.DEBUG);
     }
 
     /**
@@ -133,7 +155,10 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void debug(final String msg) {
-        this.log().debug(msg);
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.DEBUG)) {
+            context.getLog().debug(msg);
+        }
     }
 
     /**
@@ -141,7 +166,11 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void debug(final String format, final Object arg) {
-        this.log().debug(this.format(format, arg));
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.DEBUG)) {
+            final FormattingTuple tuple = MessageFormatter.format(format, arg);
+            write(context, MavenLogContext.DEBUG, tuple.getMessage(), tuple.getThrowable());
+        }
     }
 
     /**
@@ -149,15 +178,23 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void debug(final String format, final Object arg1, final Object arg2) {
-        this.log().debug(this.format(format, arg1, arg2));
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.DEBUG)) {
+            final FormattingTuple tuple = MessageFormatter.format(format, arg1, arg2);
+            write(context, MavenLogContext.DEBUG, tuple.getMessage(), tuple.getThrowable());
+        }
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void debug(final String format, final Object[] argArray) {
-        this.log().debug(this.format(format, argArray));
+    public void debug(final String format, final Object... argArray) {
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.DEBUG)) {
+            final FormattingTuple tuple = MessageFormatter.arrayFormat(format, argArray);
+            write(context, MavenLogContext.DEBUG, tuple.getMessage(), tuple.getThrowable());
+        }
     }
 
     /**
@@ -165,7 +202,10 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void debug(final String msg, final Throwable thr) {
-        this.log().debug(msg, thr);
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.DEBUG)) {
+            context.getLog().debug(msg, thr);
+        }
     }
 
     /**
@@ -173,7 +213,7 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public boolean isInfoEnabled() {
-        return true;
+        return context().isEnabled(this.name, MavenLogContext.INFO);
     }
 
     /**
@@ -181,7 +221,10 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void info(final String msg) {
-        this.log().info(msg);
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.INFO)) {
+            context.getLog().info(msg);
+        }
     }
 
     /**
@@ -189,7 +232,11 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void info(final String format, final Object arg) {
-        this.log().info(this.format(format, arg));
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.INFO)) {
+            final FormattingTuple tuple = MessageFormatter.format(format, arg);
+            write(context, MavenLogContext.INFO, tuple.getMessage(), tuple.getThrowable());
+        }
     }
 
     /**
@@ -197,15 +244,23 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void info(final String format, final Object arg1, final Object arg2) {
-        this.log().info(this.format(format, arg1, arg2));
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.INFO)) {
+            final FormattingTuple tuple = MessageFormatter.format(format, arg1, arg2);
+            write(context, MavenLogContext.INFO, tuple.getMessage(), tuple.getThrowable());
+        }
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void info(final String format, final Object[] argArray) {
-        this.log().info(this.format(format, argArray));
+    public void info(final String format, final Object... argArray) {
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.INFO)) {
+            final FormattingTuple tuple = MessageFormatter.arrayFormat(format, argArray);
+            write(context, MavenLogContext.INFO, tuple.getMessage(), tuple.getThrowable());
+        }
     }
 
     /**
@@ -213,7 +268,10 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void info(final String msg, final Throwable thr) {
-        this.log().info(msg, thr);
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.INFO)) {
+            context.getLog().info(msg, thr);
+        }
     }
 
     /**
@@ -221,7 +279,7 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public boolean isWarnEnabled() {
-        return true;
+        return context().isEnabled(this.name, MavenLogContext.WARN);
     }
 
     /**
@@ -229,7 +287,10 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void warn(final String msg) {
-        this.log().warn(msg);
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.WARN)) {
+            context.getLog().warn(msg);
+        }
     }
 
     /**
@@ -237,23 +298,35 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void warn(final String format, final Object arg) {
-        this.log().warn(this.format(format, arg));
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.WARN)) {
+            final FormattingTuple tuple = MessageFormatter.format(format, arg);
+            write(context, MavenLogContext.WARN, tuple.getMessage(), tuple.getThrowable());
+        }
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void warn(final String format, final Object[] argArray) {
-        this.log().warn(this.format(format, argArray));
+    public void warn(final String format, final Object arg1, final Object arg2) {
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.WARN)) {
+            final FormattingTuple tuple = MessageFormatter.format(format, arg1, arg2);
+            write(context, MavenLogContext.WARN, tuple.getMessage(), tuple.getThrowable());
+        }
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void warn(final String format, final Object arg1, final Object arg2) {
-        this.log().warn(this.format(format, arg1, arg2));
+    public void warn(final String format, final Object... argArray) {
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.WARN)) {
+            final FormattingTuple tuple = MessageFormatter.arrayFormat(format, argArray);
+            write(context, MavenLogContext.WARN, tuple.getMessage(), tuple.getThrowable());
+        }
     }
 
     /**
@@ -261,7 +334,10 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void warn(final String msg, final Throwable thr) {
-        this.log().warn(msg, thr);
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.WARN)) {
+            context.getLog().warn(msg, thr);
+        }
     }
 
     /**
@@ -269,7 +345,7 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public boolean isErrorEnabled() {
-        return true;
+        return context().isEnabled(this.name, MavenLogContext.ERROR);
     }
 
     /**
@@ -277,7 +353,10 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void error(final String msg) {
-        this.log().error(msg);
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.ERROR)) {
+            context.getLog().error(msg);
+        }
     }
 
     /**
@@ -285,7 +364,11 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void error(final String format, final Object arg) {
-        this.log().error(this.format(format, arg));
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.ERROR)) {
+            final FormattingTuple tuple = MessageFormatter.format(format, arg);
+            write(context, MavenLogContext.ERROR, tuple.getMessage(), tuple.getThrowable());
+        }
     }
 
     /**
@@ -293,15 +376,23 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void error(final String format, final Object arg1, final Object arg2) {
-        this.log().error(this.format(format, arg1, arg2));
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.ERROR)) {
+            final FormattingTuple tuple = MessageFormatter.format(format, arg1, arg2);
+            write(context, MavenLogContext.ERROR, tuple.getMessage(), tuple.getThrowable());
+        }
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void error(final String format, final Object[] argArray) {
-        this.log().error(this.format(format, argArray));
+    public void error(final String format, final Object... argArray) {
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.ERROR)) {
+            final FormattingTuple tuple = MessageFormatter.arrayFormat(format, argArray);
+            write(context, MavenLogContext.ERROR, tuple.getMessage(), tuple.getThrowable());
+        }
     }
 
     /**
@@ -309,51 +400,57 @@ public final class MavenLoggerAdapter extends MarkerIgnoringBase {
      */
     @Override
     public void error(final String msg, final Throwable thr) {
-        this.log().error(msg, thr);
-    }
-
-    /**
-     * Format with one object.
-     * 
-     * @param format
-     *            Format to use
-     * @param arg
-     *            One argument
-     * @return The message
-     */
-    private String format(final String format, final Object arg) {
-        final FormattingTuple tuple = MessageFormatter.format(format, arg);
-        return tuple.getMessage();
-    }
-
-    /**
-     * Format with two objects.
-     * 
-     * @param format
-     *            Format to use
-     * @param arg1
-     *            First argument
-     * @param arg2
-     *            Second argument
-     * @return The message
-     */
-    private String format(final String format, final Object arg1, final Object arg2) {
-        final FormattingTuple tuple = MessageFormatter.format(format, arg1, arg2);
-        return tuple.getMessage();
+        final MavenLogContext context = context();
+        if (context.isEnabled(this.name, MavenLogContext.ERROR)) {
+            context.getLog().error(msg, thr);
+        }
     }
 
     /**
-     * Format with array.
+     * Write a formatted message.
      * 
-     * @param format
-     *            Format to use
-     * @param argArray
-     *            List of arguments
-     * @return The message
-     */
-    private String format(final String format, final Object[] argArray) {
-        final FormattingTuple tuple = MessageFormatter.format(format, argArray);
-        return tuple.getMessage();
+     * @param context
+     *            Context of the current execution
+     * @param level
+     *            Level of the message
+     * @param msg
+     *            The message
+     * @param thr
+     *            Throwable or NULL
+     */
+    private static void write(final MavenLogContext context, final int level, final String msg, final Throwable thr) {
+        final Log log = context.getLog();
+        switch (level) {
+        case MavenLogContext.TRACE:
+        case MavenLogContext.DEBUG:
+            if (thr == null) {
+                log.debug(msg);
+            } else {
+                log.debug(msg, thr);
+            }
+            break;
+        case MavenLogContext.INFO:
+            if (thr == null) {
+                log.info(msg);
+            } else {
+                log.info(msg, thr);
+            }
+            break;
+        case MavenLogContext.WARN:
+            if (thr == null) {
+                log.warn(msg);
+            } else {
+                log.warn(msg, thr);
+            }
+            break;
+        default:
+            if (thr == null) {
+                log.error(msg);
+            } else {
+                log.error(msg, thr);
+            }
+            break;
+        }
     }
 
 }
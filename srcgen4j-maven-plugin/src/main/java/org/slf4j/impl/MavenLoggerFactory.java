@@ -32,10 +32,12 @@
  */
 package org.slf4j.impl;
 
-import org.slf4j.ILoggerFactory;
-import org.slf4j.Logger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 // SLF4J API
+import org.slf4j.ILoggerFactory;
+import org.slf4j.Logger;
 
 /**
  * {@link MavenLoggerFactory} is an implementation of {@link ILoggerFactory}
@@ -48,17 +50,25 @@ import org.slf4j.Logger;
 public final class MavenLoggerFactory implements ILoggerFactory {
 
     /**
-     * The adapter between SLF4J and Maven. There is only one instance, since
-     * there is only one Maven thread.
+     * The adapters between SLF4J and Maven by logger name. The adapters do not
+     * hold a Maven log, so they can be shared by all executions.
      */
-    private static final MavenLoggerAdapter LOGGER = new MavenLoggerAdapter();
+    private final ConcurrentMap<String, MavenLoggerAdapter> loggers = new ConcurrentHashMap<String, MavenLoggerAdapter>();
 
     /**
      * {@inheritDoc}
      */
     @Override
     public Logger getLogger(final String name) {
-        return LOGGER;
+        MavenLoggerAdapter logger = this.loggers.get(name);
+        if (logger == null) {
+            final MavenLoggerAdapter created = new MavenLoggerAdapter(name);
+            logger = this.loggers.putIfAbsent(name, created);
+            if (logger == null) {
+                logger = created;
+            }
+        }
+        return logger;
     }
 
 }
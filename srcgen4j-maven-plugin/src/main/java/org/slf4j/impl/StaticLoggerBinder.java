@@ -32,6 +32,8 @@
  */
 package org.slf4j.impl;
 
+import java.util.Map;
+
 // Maven API
 import org.apache.maven.plugin.logging.Log;
 import org.slf4j.ILoggerFactory;
@@ -65,9 +67,15 @@ public final class StaticLoggerBinder implements LoggerFactoryBinder {
     private final MavenLoggerFactory factory;
 
     /**
-     * The Maven Log.
+     * Log of the plugin execution running on the current thread. Worker
+     * threads get it only through {@link #bound(Runnable)}.
+     */
+    private final ThreadLocal<MavenLogContext> current = new ThreadLocal<MavenLogContext>();
+
+    /**
+     * The Maven Log used by threads without an execution specific log.
      */
-    private Log log;
+    private volatile MavenLogContext global;
 
     /**
      * Private ctor to avoid direct instantiation of the class.
@@ -92,21 +100,88 @@ public final class StaticLoggerBinder implements LoggerFactoryBinder {
      *            The log from Maven plugin
      */
     public void setMavenLog(final Log mlog) {
-        this.log = mlog;
+        this.global = new MavenLogContext(mlog, null);
     }
 
     /**
-     * Set Maven Log.
+     * Binds a Maven Log to the current thread until {@link #unbind()} is
+     * called. Used by executions that may run in parallel with other
+     * executions. Threads without a bound log use the one set with
+     * {@link #setMavenLog(Log)}.
+     * 
+     * @param mlog
+     *            The log from Maven plugin
+     * @param levels
+     *            Level names by logger name prefix - May be NULL
+     */
+    public void bind(final Log mlog, final Map<String, String> levels) {
+        final MavenLogContext context = new MavenLogContext(mlog, levels);
+        this.current.set(context);
+    }
+
+    /**
+     * Removes the Maven Log bound to the current thread.
+     */
+    public void unbind() {
+        this.current.remove();
+    }
+
+    /**
+     * Returns a task that runs with the Maven Log bound to the current thread.
+     * The log is removed from the thread executing the task when it ends, so
+     * pooled threads never keep the log of a finished execution.
+     * 
+     * @param task
+     *            Task to run on another thread
+     * 
+     * @return The task itself if no log is bound to the current thread
+     */
+    public Runnable bound(final Runnable task) {
+        final MavenLogContext context = this.current.get();
+        if (context == null) {
+            return task;
+        }
+        return () -> {
+            final MavenLogContext previous = this.current.get();
+            this.current.set(context);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    this.current.remove();
+                } else {
+                    this.current.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Get Maven Log.
      * 
      * @return The log from Maven plugin
      */
     public Log getMavenLog() {
-        if (this.log == null) {
+        return this.getContext().getLog();
+    }
+
+    /**
+     * Get the log and levels of the current execution.
+     * 
+     * @return The context bound to the current thread or the global one
+     */
+    MavenLogContext getContext() {
+        final MavenLogContext context = this.current.get();
+        if (context != null) {
+            return context;
+        }
+        final MavenLogContext fallback = this.global;
+        if (fallback == null) {
             throw new IllegalStateException(
                     "You should initialize StaticLoggerBinder with #setMavenLog()"
                             + " before any log message is sent to or by Maven plugin");
         }
-        return this.log;
+        return fallback;
     }
 
     /**
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2013 Future Invent Informationsmanagement GmbH. All rights
+ * reserved. <http://www.fuin.org/>
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fuin.srcgen4j.maven;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.impl.StaticLoggerBinder;
+
+/**
+ * Test for {@link TemplateCache}.
+ */
+public class TemplateCacheTest {
+
+    // CHECKSTYLE:OFF Test
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Before
+    public void setup() {
+        StaticLoggerBinder.getSingleton().setMavenLog(new SystemStreamLog());
+    }
+
+    @After
+    public void teardown() {
+        TemplateCache.clear();
+    }
+
+    @Test
+    public void testGetOrParseHit() throws IOException {
+
+        // PREPARE
+        final File dir = tmp.newFolder("templates");
+        write(new File(dir, "a.vm"), "Hello $name");
+
+        // TEST
+        final Template first = TemplateCache.getOrParse(dir, "a.vm");
+        final Template second = TemplateCache.getOrParse(dir, "a.vm");
+
+        // VERIFY
+        assertThat(second).isSameAs(first);
+        assertThat(merge(first)).isEqualTo("Hello World");
+
+    }
+
+    @Test
+    public void testGetOrParseChangedContent() throws IOException {
+
+        // PREPARE
+        final File dir = tmp.newFolder("templates");
+        final File file = new File(dir, "a.vm");
+        write(file, "Hello $name");
+        final Template first = TemplateCache.getOrParse(dir, "a.vm");
+
+        // TEST
+        write(file, "Bye $name");
+        final Template second = TemplateCache.getOrParse(dir, "a.vm");
+
+        // VERIFY
+        assertThat(second).isNotSameAs(first);
+        assertThat(merge(second)).isEqualTo("Bye World");
+
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String merge(final Template template) {
+        final VelocityContext context = new VelocityContext();
+        context.put("name", "World");
+        final StringWriter writer = new StringWriter();
+        template.merge(context, writer);
+        return writer.toString();
+    }
+
+    // CHECKSTYLE:ON
+
+}
@@ -20,12 +20,29 @@ package org.fuin.srcgen4j.maven;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import org.apache.maven.it.VerificationException;
 import org.apache.maven.it.Verifier;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 /**
  * Test for {@link SrcGen4JMojo}.
  */
@@ -35,6 +52,10 @@ public class SrcGen4JMojoTest {
 
     private static final File TEST_DIR = new File("target/test-classes/test-project");
 
+    private static final File MULTI_DIR = new File("target/test-classes/test-project-multi");
+
+    private static final File AGGREGATE_DIR = new File("target/test-classes/test-project-aggregate");
+
     private Verifier verifier;
 
     @Before
@@ -66,6 +87,555 @@ public class SrcGen4JMojoTest {
 
     }
 
+    @Test
+    public void testMojoParallel() throws VerificationException {
+
+        // PREPARE
+        final File fileA = new File(TEST_DIR, "srcGen/a/A.java");
+        final File fileB = new File(TEST_DIR, "srcGen/b/B.java");
+        fileA.delete();
+        fileB.delete();
+        verifier.addCliOption("-Dsrcgen4j.threads=2");
+        verifier.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+
+        // TEST
+        verifier.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+
+        // VERIFY
+        verifier.verifyErrorFreeLog();
+        assertThat(fileA).exists();
+        assertThat(fileB).exists();
+
+    }
+
+    @Test
+    public void testMojoStreaming() throws VerificationException {
+
+        // PREPARE
+        final File fileA = new File(TEST_DIR, "srcGen/a/A.java");
+        final File fileB = new File(TEST_DIR, "srcGen/b/B.java");
+        fileA.delete();
+        fileB.delete();
+        verifier.addCliOption("-Dsrcgen4j.streamTemplates=true");
+        verifier.addCliOption("-Dsrcgen4j.threads=2");
+        verifier.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+
+        // TEST
+        verifier.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+
+        // VERIFY
+        verifier.verifyErrorFreeLog();
+        verifier.verifyTextInLog("Generator 'gen1' streamed 2 files");
+        assertThat(fileA).exists();
+        assertThat(fileB).exists();
+
+    }
+
+    @Test
+    public void testMojoStreamingSameOutputAsGenerator() throws VerificationException, IOException {
+
+        // PREPARE
+        final File dir = new File(TEST_DIR, "srcGenStream");
+        verifier.addCliOption("-Dsrcgen4j.configFiles=srcgen4j-stream.xml");
+        verifier.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+        verifier.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+        verifier.verifyErrorFreeLog();
+        final Map<String, byte[]> expected = contents(dir);
+        assertThat(expected.keySet()).containsExactly("a/A.java", "a/b/B.java", "c/C.java");
+
+        // TEST
+        final Verifier streaming = new Verifier(TEST_DIR.getAbsolutePath());
+        streaming.addCliOption("-Dsrcgen4j.configFiles=srcgen4j-stream.xml");
+        streaming.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+        streaming.addCliOption("-Dsrcgen4j.streamTemplates=true");
+        streaming.addCliOption("-Dsrcgen4j.threads=2");
+        streaming.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+
+        // VERIFY
+        streaming.verifyErrorFreeLog();
+        streaming.verifyTextInLog("Generator 'gen1' streamed 3 files");
+        final Map<String, byte[]> actual = contents(dir);
+        assertThat(actual.keySet()).isEqualTo(expected.keySet());
+        for (final Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertThat(actual.get(entry.getKey())).as(entry.getKey()).isEqualTo(entry.getValue());
+        }
+
+    }
+
+    @Test
+    public void testMojoMultipleConfigFiles() throws VerificationException {
+
+        // PREPARE
+        final File fileA = new File(TEST_DIR, "srcGen/a/A.java");
+        final File fileA2 = new File(TEST_DIR, "srcGen2/a/A.java");
+        final File fileB2 = new File(TEST_DIR, "srcGen2/b/B.java");
+        fileA.delete();
+        fileA2.delete();
+        fileB2.delete();
+        verifier.addCliOption("-Dsrcgen4j.configFiles=srcgen4j-config*.xml");
+        verifier.addCliOption("-Dsrcgen4j.configThreads=2");
+        verifier.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+
+        // TEST
+        verifier.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+
+        // VERIFY
+        verifier.verifyErrorFreeLog();
+        verifier.verifyTextInLog("Processing 2 configuration files with 2 thread(s)");
+        assertThat(fileA).exists();
+        assertThat(fileA2).exists();
+        assertThat(fileB2).exists();
+
+    }
+
+    @Test
+    public void testMojoSelectedGenerators() throws VerificationException {
+
+        // PREPARE
+        final File fileA = new File(TEST_DIR, "srcGen/a/A.java");
+        final File fileA2 = new File(TEST_DIR, "srcGen2/a/A.java");
+        fileA.delete();
+        fileA2.delete();
+        verifier.addCliOption("-Dsrcgen4j.configFiles=srcgen4j-config*.xml");
+        verifier.addCliOption("-Dsrcgen4j.generators=gen2");
+
+        // TEST
+        verifier.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+
+        // VERIFY
+        verifier.verifyErrorFreeLog();
+        verifier.verifyTextInLog("Selected generators=[gen2], parsers=[]");
+        verifier.verifyTextInLog("Up-to-date check skipped, as only some parsers and generators are selected");
+        assertThat(fileA).doesNotExist();
+        assertThat(fileA2).exists();
+
+    }
+
+    @Test
+    public void testMojoClassIndex() throws VerificationException {
+
+        // PREPARE
+        final File fileA = new File(TEST_DIR, "srcGen/a/A.java");
+        fileA.delete();
+        verifier.addCliOption("-Dsrcgen4j.classIndex=true");
+        verifier.addCliOption("-Dsrcgen4j.classIndexDirectory=" + new File(TEST_DIR, "target/class-index").getAbsolutePath());
+        verifier.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+
+        // TEST
+        verifier.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+
+        // VERIFY
+        verifier.verifyErrorFreeLog();
+        verifier.verifyTextInLog("Class index: ");
+        assertThat(fileA).exists();
+
+    }
+
+    @Test
+    public void testMojoProfile() throws VerificationException {
+
+        // PREPARE
+        verifier.addCliOption("-Dsrcgen4j.streamTemplates=true");
+        verifier.addCliOption("-Dsrcgen4j.profile=true");
+        verifier.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+
+        // TEST
+        verifier.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+
+        // VERIFY
+        verifier.verifyErrorFreeLog();
+        verifier.verifyTextInLog("SrcGen4J profile - Slowest templates:");
+        verifier.verifyTextInLog("SrcGen4J profile - Slowest target files:");
+        final List<String> lines = verifier.loadFile(verifier.getBasedir(), verifier.getLogFileName(), false);
+        assertThat(lines).anyMatch(line -> line.contains("parameterized-template-1.ptg.java") && line.contains(" 2 "));
+        assertThat(lines).anyMatch(line -> line.contains("a/A.java"));
+
+    }
+
+    @Test
+    public void testMojoFlightRecorder() throws VerificationException, IOException {
+
+        // PREPARE
+        final File recording = new File(TEST_DIR, "target/srcgen4j.jfr");
+        Files.deleteIfExists(recording.toPath());
+        verifier.setEnvironmentVariable("MAVEN_OPTS", "-XX:StartFlightRecording=dumponexit=true,filename=" + recording.getAbsolutePath());
+        verifier.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+
+        // TEST
+        verifier.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+
+        // VERIFY
+        verifier.verifyErrorFreeLog();
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(recording.toPath());
+        assertThat(events).anyMatch(event -> event.getEventType().getName().equals("org.fuin.srcgen4j.ConfigLoad"));
+        assertThat(events).anyMatch(event -> event.getEventType().getName().equals("org.fuin.srcgen4j.Parser")
+                && event.getString("name").equals("parse1"));
+        assertThat(events).anyMatch(event -> event.getEventType().getName().equals("org.fuin.srcgen4j.Generator")
+                && event.getString("name").equals("gen1") && event.getBoolean("success"));
+        assertThat(events).noneMatch(event -> event.getEventType().getName().equals("org.fuin.srcgen4j.GeneratedFile"));
+
+    }
+
+    @Test
+    public void testMojoForked() throws VerificationException {
+
+        // PREPARE
+        final File fileA = new File(TEST_DIR, "srcGen/a/A.java");
+        final File fileB = new File(TEST_DIR, "srcGen/b/B.java");
+        fileA.delete();
+        fileB.delete();
+        verifier.addCliOption("-Dsrcgen4j.forkCount=2");
+        verifier.addCliOption("-Dsrcgen4j.forkArgLine=-Xmx256m");
+        verifier.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+
+        // TEST
+        verifier.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+
+        // VERIFY
+        verifier.verifyErrorFreeLog();
+        verifier.verifyTextInLog("Forking 1 worker JVM(s)");
+        verifier.verifyTextInLog("[worker-1] Worker finished parsers [parse1] and generators [gen1]");
+        assertThat(fileA).exists();
+        assertThat(fileB).exists();
+
+    }
+
+    @Test
+    public void testMojoForkedSplitsGeneratorsOfOneParser() throws VerificationException {
+
+        // PREPARE
+        final File fileA = new File(TEST_DIR, "srcGen/a/A.java");
+        final File forkA = new File(TEST_DIR, "srcGenFork/a/A.java");
+        final File forkB = new File(TEST_DIR, "srcGenFork/b/B.java");
+        fileA.delete();
+        forkA.delete();
+        forkB.delete();
+        verifier.addCliOption("-Dsrcgen4j.configFiles=srcgen4j-fork.xml");
+        verifier.addCliOption("-Dsrcgen4j.forkCount=2");
+        verifier.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+
+        // TEST
+        verifier.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+
+        // VERIFY
+        verifier.verifyErrorFreeLog();
+        verifier.verifyTextInLog("Forking 2 worker JVM(s)");
+        verifier.verifyTextInLog("[worker-1] Worker finished parsers [parse1] and generators [gen1]");
+        verifier.verifyTextInLog("[worker-2] Worker finished parsers [parse1] and generators [gen2]");
+        assertThat(fileA).exists();
+        assertThat(forkA).exists();
+        assertThat(forkB).exists();
+
+    }
+
+    @Test
+    public void testMojoWriteIfChanged() throws VerificationException, IOException {
+
+        // PREPARE
+        final File fileA = new File(TEST_DIR, "srcGen/a/A.java");
+        verifier.addCliOption("-Dsrcgen4j.writeIfChanged=true");
+        verifier.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+        verifier.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+        verifier.verifyErrorFreeLog();
+        // A rewrite would set the current time, so an older time shows that the file was kept
+        final FileTime lastModified = FileTime.fromMillis(System.currentTimeMillis() - 3600000L);
+        Files.setLastModifiedTime(fileA.toPath(), lastModified);
+
+        // TEST
+        final Verifier second = new Verifier(TEST_DIR.getAbsolutePath());
+        second.addCliOption("-Dsrcgen4j.writeIfChanged=true");
+        second.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+        second.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+
+        // VERIFY
+        second.verifyErrorFreeLog();
+        second.verifyTextInLog("0 written");
+        assertThat(Files.getLastModifiedTime(fileA.toPath())).isEqualTo(lastModified);
+
+    }
+
+    @Test
+    public void testMojoUpToDate() throws VerificationException {
+
+        // PREPARE
+        final File fileA = new File(TEST_DIR, "srcGen/a/A.java");
+        verifier.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+        verifier.verifyErrorFreeLog();
+        final long lastModified = fileA.lastModified();
+
+        // TEST
+        final Verifier second = new Verifier(TEST_DIR.getAbsolutePath());
+        second.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+
+        // VERIFY
+        second.verifyErrorFreeLog();
+        second.verifyTextInLog("Generated sources are up-to-date");
+        assertThat(fileA.lastModified()).isEqualTo(lastModified);
+
+    }
+
+    @Test
+    public void testMojoIncrementalClean() throws VerificationException, IOException {
+
+        // PREPARE
+        final File fileA = new File(TEST_DIR, "srcGen/a/A.java");
+        final File stale = new File(TEST_DIR, "srcGen/x/Stale.java");
+        verifier.addCliOption("-Dsrcgen4j.incrementalClean=true");
+        verifier.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+        verifier.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+        verifier.verifyErrorFreeLog();
+        stale.getParentFile().mkdirs();
+        Files.write(stale.toPath(), "class Stale {}".getBytes(StandardCharsets.UTF_8));
+
+        // TEST
+        final Verifier second = new Verifier(TEST_DIR.getAbsolutePath());
+        second.addCliOption("-Dsrcgen4j.incrementalClean=true");
+        second.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+        second.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+
+        // VERIFY
+        second.verifyErrorFreeLog();
+        second.verifyTextInLog("2 kept, 1 stale deleted");
+        assertThat(fileA).exists();
+        assertThat(stale).doesNotExist();
+        assertThat(stale.getParentFile()).doesNotExist();
+
+    }
+
+    @Test
+    public void testMojoBuildCache() throws VerificationException, IOException {
+
+        // PREPARE
+        final File fileA = new File(TEST_DIR, "srcGen/a/A.java");
+        final File cacheDir = new File(TEST_DIR, "target/build-cache");
+        if (cacheDir.exists()) {
+            for (final File file : cacheDir.listFiles()) {
+                Files.delete(file.toPath());
+            }
+        }
+        verifier.addCliOption("-Dsrcgen4j.buildCache=true");
+        verifier.addCliOption("-Dsrcgen4j.buildCacheDirectory=" + cacheDir.getAbsolutePath());
+        verifier.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+        verifier.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+        verifier.verifyErrorFreeLog();
+        verifier.verifyTextInLog("0 hits, 1 misses, 1 stored");
+        Files.delete(fileA.toPath());
+
+        // TEST
+        final Verifier second = new Verifier(TEST_DIR.getAbsolutePath());
+        second.addCliOption("-Dsrcgen4j.buildCache=true");
+        second.addCliOption("-Dsrcgen4j.buildCacheDirectory=" + cacheDir.getAbsolutePath());
+        second.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+        second.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+
+        // VERIFY
+        second.verifyErrorFreeLog();
+        second.verifyTextInLog("Output of generator 'gen1' restored from build cache");
+        second.verifyTextInLog("1 hits, 0 misses, 0 stored");
+        assertThat(fileA).exists();
+
+    }
+
+    @Test
+    public void testMojoMultiModuleParallel() throws VerificationException, IOException {
+
+        // PREPARE
+        final File fileA1 = new File(MULTI_DIR, "module-a/srcGen/a/A1.java");
+        final File fileB1 = new File(MULTI_DIR, "module-b/srcGen/b/B1.java");
+        final File sharedA2 = new File(MULTI_DIR, "shared/srcGen/a/A2.java");
+        final File sharedB2 = new File(MULTI_DIR, "shared/srcGen/b/B2.java");
+        final Verifier multi = new Verifier(MULTI_DIR.getAbsolutePath());
+        multi.deleteArtifacts("org.fuin.srcgen4j", "srcgen4j-test-project-multi", "0.0.1");
+        multi.addCliOption("-T2");
+        multi.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+
+        // TEST
+        multi.executeGoal("process-sources");
+
+        // VERIFY
+        multi.verifyErrorFreeLog();
+        assertThat(fileA1).exists();
+        assertThat(fileB1).exists();
+        assertThat(sharedA2).exists();
+        assertThat(sharedB2).exists();
+        final List<String> lines = multi.loadFile(multi.getBasedir(), multi.getLogFileName(), false);
+        assertThat(lines).noneMatch(line -> line.contains("@threadSafe"));
+        // Both modules write into 'shared/srcGen' at the same time - Every file must be complete and nothing else may be left
+        final String templateA = new String(Files.readAllBytes(new File(MULTI_DIR, "module-a/templates/parameterized-template-a.ptg.java")
+                .toPath()), StandardCharsets.UTF_8);
+        final String templateB = new String(Files.readAllBytes(new File(MULTI_DIR, "module-b/templates/parameterized-template-b.ptg.java")
+                .toPath()), StandardCharsets.UTF_8);
+        final Map<String, String> expected = new TreeMap<>();
+        expected.put("a/A1.java", render(templateA, "a", "A1"));
+        expected.put("a/A2.java", render(templateA, "a", "A2"));
+        expected.put("b/B1.java", render(templateB, "b", "B1"));
+        expected.put("b/B2.java", render(templateB, "b", "B2"));
+        final Map<String, byte[]> shared = contents(new File(MULTI_DIR, "shared/srcGen"));
+        assertThat(shared.keySet()).containsExactly(expected.keySet().toArray());
+        for (final Map.Entry<String, String> entry : expected.entrySet()) {
+            assertThat(new String(shared.get(entry.getKey()), StandardCharsets.UTF_8)).as(entry.getKey()).isEqualTo(entry.getValue());
+        }
+        assertThat(contents(new File(MULTI_DIR, "module-a/srcGen")).keySet()).containsExactly("a/A1.java", "a/A2.java");
+        assertThat(contents(new File(MULTI_DIR, "module-b/srcGen")).keySet()).containsExactly("b/B1.java", "b/B2.java");
+
+    }
+
+    @Test
+    public void testMojoLogLevels() throws VerificationException {
+
+        // PREPARE
+        verifier.addCliOption("--file=pom-log-levels.xml");
+        verifier.addCliOption("-X");
+        verifier.addCliOption("-Dsrcgen4j.bufferLog=true");
+        verifier.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+
+        // TEST
+        verifier.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+
+        // VERIFY
+        verifier.verifyErrorFreeLog();
+        // Buffered messages are written when the execution ends
+        verifier.verifyTextInLog("[DEBUG] Parse: parse1");
+        verifier.verifyTextInLog("[DEBUG] Parser finished: parse1 (success=true");
+        verifier.verifyTextInLog("[DEBUG] Generator finished: gen1 (success=true");
+        final List<String> lines = verifier.loadFile(verifier.getBasedir(), verifier.getLogFileName(), false);
+        assertThat(lines).noneMatch(line -> line.contains("Context cache "));
+        assertThat(lines).noneMatch(line -> line.contains("JAXB context cache "));
+
+    }
+
+    @Test
+    public void testMojoModelCache() throws VerificationException, IOException {
+
+        // PREPARE
+        final File fileA = new File(TEST_DIR, "srcGen/a/A.java");
+        final File cacheDir = new File(TEST_DIR, "target/model-cache");
+        if (cacheDir.exists()) {
+            for (final File file : cacheDir.listFiles()) {
+                Files.delete(file.toPath());
+            }
+        }
+        verifier.addCliOption("-Dsrcgen4j.modelCache=true");
+        verifier.addCliOption("-Dsrcgen4j.modelCacheDirectory=" + cacheDir.getAbsolutePath());
+        verifier.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+        verifier.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+        verifier.verifyErrorFreeLog();
+        final List<String> lines = verifier.loadFile(verifier.getBasedir(), verifier.getLogFileName(), false);
+        assertThat(lines).noneMatch(line -> line.contains("loaded from cache"));
+        final byte[] expected = Files.readAllBytes(fileA.toPath());
+        Files.delete(fileA.toPath());
+
+        // TEST
+        final Verifier second = new Verifier(TEST_DIR.getAbsolutePath());
+        second.addCliOption("-Dsrcgen4j.modelCache=true");
+        second.addCliOption("-Dsrcgen4j.modelCacheDirectory=" + cacheDir.getAbsolutePath());
+        second.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+        second.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+
+        // VERIFY
+        second.verifyErrorFreeLog();
+        second.verifyTextInLog("Model of parser 'parse1' loaded from cache");
+        assertThat(Files.readAllBytes(fileA.toPath())).isEqualTo(expected);
+
+    }
+
+    @Test
+    public void testMojoAggregate() throws VerificationException, IOException {
+
+        // PREPARE
+        final File fileA = new File(AGGREGATE_DIR, "module-a/srcGen/a/A1.java");
+        final File fileB = new File(AGGREGATE_DIR, "module-b/srcGen/a/A1.java");
+        final Verifier aggregate = new Verifier(AGGREGATE_DIR.getAbsolutePath());
+        aggregate.deleteArtifacts("org.fuin.srcgen4j", "srcgen4j-test-project-aggregate", "0.0.1");
+        aggregate.addCliOption("-X");
+
+        // TEST
+        aggregate.executeGoal("process-sources");
+
+        // VERIFY
+        aggregate.verifyErrorFreeLog();
+        assertThat(fileA).exists();
+        assertThat(fileB).exists();
+        // Both modules use the same model, so it is parsed once and reused once
+        aggregate.verifyTextInLog("Parsed 1 models for 2 modules, 1 reused");
+        final List<String> lines = aggregate.loadFile(aggregate.getBasedir(), aggregate.getLogFileName(), false);
+        assertThat(lines.stream().filter(line -> line.contains("Reusing model of parser 'parse1'")).count()).isEqualTo(1L);
+
+    }
+
+    @Test
+    public void testMojoAggregateClassIndex() throws VerificationException, IOException {
+
+        // PREPARE
+        final File fileA = new File(AGGREGATE_DIR, "module-a/srcGen/a/A1.java");
+        final File fileB = new File(AGGREGATE_DIR, "module-b/srcGen/a/A1.java");
+        final Verifier aggregate = new Verifier(AGGREGATE_DIR.getAbsolutePath());
+        aggregate.deleteArtifacts("org.fuin.srcgen4j", "srcgen4j-test-project-aggregate", "0.0.1");
+        aggregate.addCliOption("-Dsrcgen4j.classIndex=true");
+        aggregate.addCliOption("-Dsrcgen4j.classIndexDirectory=" + new File(AGGREGATE_DIR, "target/class-index").getAbsolutePath());
+
+        // TEST
+        aggregate.executeGoal("process-sources");
+
+        // VERIFY
+        aggregate.verifyErrorFreeLog();
+        assertThat(fileA).exists();
+        assertThat(fileB).exists();
+        // The classpaths differ, so each module has its own class loader and parses the model itself
+        aggregate.verifyTextInLog("Parsed 2 models for 2 modules, 0 reused");
+
+    }
+
+    @Test
+    public void testMojoReport() throws VerificationException, IOException {
+
+        // PREPARE
+        final File reportFile = new File(TEST_DIR, "target/srcgen4j-report.json");
+        Files.deleteIfExists(reportFile.toPath());
+        verifier.addCliOption("-Dsrcgen4j.skipIfUpToDate=false");
+
+        // TEST
+        verifier.executeGoal("org.fuin.srcgen4j:srcgen4j-maven-plugin:process-template");
+
+        // VERIFY
+        verifier.verifyErrorFreeLog();
+        assertThat(reportFile).exists();
+        final JsonNode report = new ObjectMapper().readTree(reportFile);
+        assertThat(report.get("name").asText()).endsWith("srcgen4j-config.xml");
+        assertThat(report.get("totalMillis").asDouble()).isGreaterThan(0.0);
+        assertThat(names(report.get("phases"))).contains("jaxbContext", "unmarshal", "init", "classpath", "clean");
+        assertThat(names(report.get("parsers"))).containsExactly("parse1");
+        final JsonNode generators = report.get("generators");
+        assertThat(names(generators)).containsExactly("gen1");
+        final JsonNode gen1 = generators.get(0);
+        assertThat(gen1.get("files").asLong()).isEqualTo(2L);
+        assertThat(gen1.get("bytes").asLong()).isEqualTo(
+                new File(TEST_DIR, "srcGen/a/A.java").length() + new File(TEST_DIR, "srcGen/b/B.java").length());
+
+    }
+
+    private static List<String> names(final JsonNode array) {
+        final List<String> names = new ArrayList<>();
+        for (final JsonNode entry : array) {
+            names.add(entry.get("name").asText());
+        }
+        return names;
+    }
+
+    private static String render(final String template, final String pkg, final String name) {
+        return template.replace("${pkg}", pkg).replace("${name}", name);
+    }
+
+    private static Map<String, byte[]> contents(final File dir) throws IOException {
+        final Map<String, byte[]> contents = new TreeMap<>();
+        try (final Stream<Path> stream = Files.walk(dir.toPath())) {
+            for (final Path file : stream.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                contents.put(dir.toPath().relativize(file).toString().replace(File.separatorChar, '/'), Files.readAllBytes(file));
+            }
+        }
+        return contents;
+    }
+
     // CHECKSTYLE:OFF Test
 
 }
@@ -0,0 +1,6 @@
+package ${pkg};
+
+/** TEST. */
+public class ${name} {
+
+}
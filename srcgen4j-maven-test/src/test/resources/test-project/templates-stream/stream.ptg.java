@@ -0,0 +1,12 @@
+package ${pkg};
+
+/** Generated class ${name} with tabs	and "quotes" &amp; entities. */
+public class ${name} {
+#foreach ($field in $fields.split(","))
+#if ($field != "")
+
+    private String ${field};
+#end
+#end
+
+}